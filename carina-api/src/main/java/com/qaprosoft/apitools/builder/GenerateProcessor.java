@@ -15,58 +15,163 @@
  *******************************************************************************/
 package com.qaprosoft.apitools.builder;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.qaprosoft.apitools.util.GenerationUtil;
 
+/**
+ * Replaces generate_word(length), generate_number(length) and generate_date(format;offset) placeholders with
+ * generated values. Each property value is parsed once into {@link GeneratorTemplate}, values without placeholders
+ * are not parsed at all.
+ */
 public class GenerateProcessor implements PropertiesProcessor {
 
+    private static final String PLACEHOLDER_PREFIX = "generate_";
+
+    // parsed values are dropped when there are too many of them (e.g. unique values added in runtime)
+    private static final int MAX_TEMPLATES = 1024;
+
+    private static final Pattern WORD_PATTERN = Pattern.compile(PropertiesKeywords.GENERATE_WORD_REGEX.getKey());
+    private static final Pattern NUMBER_PATTERN = Pattern.compile(PropertiesKeywords.GENERATE_NUMBER_REGEX.getKey());
+    private static final Pattern DATE_PATTERN = Pattern.compile(PropertiesKeywords.GENERATE_DATE_REGEX.getKey());
+    private static final Pattern LENGTH_PATTERN = Pattern.compile("\\d+");
+    private static final Pattern OFFSET_PATTERN = Pattern.compile("-?\\d+");
+
+    private static final ConcurrentMap<String, GeneratorTemplate> templates = new ConcurrentHashMap<String, GeneratorTemplate>();
+
     @Override
     public Properties process(Properties in) {
         Properties out = new Properties();
         for (Entry<Object, Object> entry : in.entrySet()) {
-            Matcher wordMatcher = Pattern.compile(PropertiesKeywords.GENERATE_WORD_REGEX.getKey()).matcher(entry.getValue().toString());
-            Matcher numberMatcher = Pattern.compile(PropertiesKeywords.GENERATE_NUMBER_REGEX.getKey()).matcher(entry.getValue().toString());
-            Matcher dateMatcher = Pattern.compile(PropertiesKeywords.GENERATE_DATE_REGEX.getKey()).matcher(entry.getValue().toString());
-            String tmp = entry.getValue().toString();
-
-            while (wordMatcher.find()) {
-                String toReplace = wordMatcher.group();
-                Matcher tmpMatcher = Pattern.compile("\\d+").matcher(toReplace);
-                tmpMatcher.find();
-                String length = tmpMatcher.group();
-                tmp = tmp.replace(toReplace, GenerationUtil.generateWord(Integer.parseInt(length)));
+            String value = entry.getValue().toString();
+            if (value.contains(PLACEHOLDER_PREFIX)) {
+                value = getTemplate(value).generate();
             }
+            out.put(entry.getKey(), value);
+        }
+        return out;
+    }
 
-            while (numberMatcher.find()) {
-                String toReplace = numberMatcher.group();
-                Matcher tmpMatcher = Pattern.compile("\\d+").matcher(toReplace);
-                tmpMatcher.find();
-                String length = tmpMatcher.group();
-                tmp = tmp.replace(toReplace, GenerationUtil.generateNumber(Integer.parseInt(length)));
+    static GeneratorTemplate getTemplate(String value) {
+        GeneratorTemplate template = templates.get(value);
+        if (template == null) {
+            if (templates.size() >= MAX_TEMPLATES) {
+                templates.clear();
             }
+            template = compile(value);
+            templates.putIfAbsent(value, template);
+        }
+        return template;
+    }
+
+    private static GeneratorTemplate compile(String value) {
+        // placeholders sorted by position, the same placeholder gets the same value
+        TreeMap<Integer, String> placeholders = new TreeMap<Integer, String>();
+        Map<String, Supplier<String>> generators = new LinkedHashMap<String, Supplier<String>>();
+
+        Matcher matcher = WORD_PATTERN.matcher(value);
+        while (matcher.find()) {
+            int length = parseInt(LENGTH_PATTERN, matcher.group());
+            addPlaceholder(placeholders, generators, matcher, () -> GenerationUtil.generateWord(length));
+        }
+
+        matcher = NUMBER_PATTERN.matcher(value);
+        while (matcher.find()) {
+            int length = parseInt(LENGTH_PATTERN, matcher.group());
+            addPlaceholder(placeholders, generators, matcher, () -> GenerationUtil.generateNumber(length));
+        }
+
+        matcher = DATE_PATTERN.matcher(value);
+        while (matcher.find()) {
+            String format = matcher.group(1);
+            int offset = parseOffset(matcher.group());
+            addPlaceholder(placeholders, generators, matcher,
+                    () -> GenerationUtil.generateTime(format, offset, Calendar.DAY_OF_YEAR));
+        }
 
-            while (dateMatcher.find()) {
-                String toReplace = dateMatcher.group();
-                // getting offset
-                Matcher offsetMatcher = Pattern.compile("-{0,1}\\d+").matcher(toReplace);
-                offsetMatcher.find();
-                String offset = offsetMatcher.group();
-                // getting format
-                Matcher formatMatcher = Pattern.compile("(?<=generate_date\\().*?(?=;)").matcher(toReplace);
-                formatMatcher.find();
-                String format = formatMatcher.group();
-                // generating date
-                tmp = tmp.replace(toReplace,
-                        GenerationUtil.generateTime(format, Integer.parseInt(offset), Calendar.DAY_OF_YEAR));
+        List<String> literals = new ArrayList<String>();
+        List<String> keys = new ArrayList<String>();
+        int position = 0;
+        for (Entry<Integer, String> placeholder : placeholders.entrySet()) {
+            if (placeholder.getKey() < position) {
+                // overlaps with previous placeholder
+                continue;
             }
+            literals.add(value.substring(position, placeholder.getKey()));
+            keys.add(placeholder.getValue());
+            position = placeholder.getKey() + placeholder.getValue().length();
+        }
+        literals.add(value.substring(position));
+        return new GeneratorTemplate(literals, keys, generators);
+    }
+
+    private static void addPlaceholder(TreeMap<Integer, String> placeholders, Map<String, Supplier<String>> generators, Matcher matcher,
+            Supplier<String> generator) {
+        placeholders.putIfAbsent(matcher.start(), matcher.group());
+        generators.putIfAbsent(matcher.group(), generator);
+    }
+
+    private static int parseInt(Pattern pattern, String placeholder) {
+        Matcher matcher = pattern.matcher(placeholder);
+        matcher.find();
+        return Integer.parseInt(matcher.group());
+    }
+
+    private static int parseOffset(String placeholder) {
+        // offset follows the last ';' so digits of date format are not used
+        Matcher matcher = OFFSET_PATTERN.matcher(placeholder.substring(placeholder.lastIndexOf(';')));
+        return matcher.find() ? Integer.parseInt(matcher.group()) : 0;
+    }
 
-            out.put(entry.getKey(), tmp);
+    /**
+     * Property value split into literal parts and placeholders.
+     */
+    static class GeneratorTemplate {
+        private final String[] literals;
+        private final int[] placeholders;
+        private final List<Supplier<String>> generators;
+        private final int length;
+
+        private GeneratorTemplate(List<String> literals, List<String> keys, Map<String, Supplier<String>> generators) {
+            this.literals = literals.toArray(new String[0]);
+            this.generators = new ArrayList<Supplier<String>>(generators.values());
+            List<String> generatorKeys = new ArrayList<String>(generators.keySet());
+            this.placeholders = new int[keys.size()];
+            int length = 0;
+            for (int i = 0; i < keys.size(); i++) {
+                placeholders[i] = generatorKeys.indexOf(keys.get(i));
+                length += keys.get(i).length();
+            }
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.length = length;
+        }
+
+        String generate() {
+            String[] values = new String[generators.size()];
+            StringBuilder sb = new StringBuilder(length);
+            for (int i = 0; i < placeholders.length; i++) {
+                sb.append(literals[i]);
+                int generator = placeholders[i];
+                if (values[generator] == null) {
+                    values[generator] = generators.get(generator).get();
+                }
+                sb.append(values[generator]);
+            }
+            return sb.append(literals[literals.length - 1]).toString();
         }
-        return out;
     }
 }
@@ -16,50 +16,149 @@
 package com.qaprosoft.apitools.builder;
 
 import java.io.IOException;
-import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.output.StringBuilderWriter;
 
 import freemarker.cache.ClassTemplateLoader;
 import freemarker.template.Configuration;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.SimpleCollection;
 import freemarker.template.Template;
+import freemarker.template.TemplateCollectionModel;
 import freemarker.template.TemplateException;
+import freemarker.template.TemplateHashModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
 
 public class MessageBuilder {
 
+    // buffers which grew bigger are not kept by the thread
+    private static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
     private static Configuration freemarkerConfiguration;
 
+    private static final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<String, Template>();
+
+    private static final ThreadLocal<StringBuilderWriter> buffer = ThreadLocal.withInitial(StringBuilderWriter::new);
+
     static {
         freemarkerConfiguration = new Configuration();
         freemarkerConfiguration.setTemplateLoader(new ClassTemplateLoader(MessageBuilder.class, "/"));
     }
 
-    public final static synchronized String buildStringMessage(String templatePath, Properties... propertiesArr) {
-        Template template;
-        try {
-            template = freemarkerConfiguration.getTemplate(templatePath);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
-        Properties resultProperties = new Properties();
-        for (Properties properties : propertiesArr) {
-            resultProperties.putAll(properties);
-        }
+    /**
+     * Renders template with properties. Parsed templates are cached and can be processed by many threads at once,
+     * properties are not copied: value from the last properties object containing the key is used.
+     * 
+     * @param templatePath path to freemarker template in classpath
+     * @param propertiesArr properties used as template data model
+     * @return rendered message
+     */
+    public final static String buildStringMessage(String templatePath, Properties... propertiesArr) {
+        Template template = getTemplate(templatePath);
 
-        StringWriter sw = new StringWriter();
+        StringBuilderWriter sw = buffer.get();
+        StringBuilder sb = sw.getBuilder();
+        sb.setLength(0);
         try {
-            template.process(resultProperties, sw);
+            template.process(new PropertiesModel(propertiesArr), sw);
+            return sb.toString();
         } catch (TemplateException e) {
             throw new RuntimeException(e);
         } catch (IOException e) {
             throw new RuntimeException(e);
         } finally {
+            if (sb.capacity() > MAX_BUFFER_SIZE) {
+                buffer.remove();
+            } else {
+                sb.setLength(0);
+            }
+        }
+    }
+
+    private static Template getTemplate(String templatePath) {
+        Template template = templates.get(templatePath);
+        if (template == null) {
             try {
-                sw.close();
+                template = freemarkerConfiguration.getTemplate(templatePath);
             } catch (IOException e) {
-                e.printStackTrace();
+                throw new RuntimeException(e);
+            }
+            Template cached = templates.putIfAbsent(templatePath, template);
+            if (cached != null) {
+                template = cached;
             }
         }
-        return sw.getBuffer().toString();
+        return template;
+    }
+
+    /**
+     * Read only data model over several properties objects, later ones override earlier.
+     */
+    private static class PropertiesModel implements TemplateHashModelEx {
+        private final Properties[] propertiesArr;
+
+        private PropertiesModel(Properties[] propertiesArr) {
+            this.propertiesArr = propertiesArr;
+        }
+
+        @Override
+        public TemplateModel get(String key) throws TemplateModelException {
+            for (int i = propertiesArr.length - 1; i >= 0; i--) {
+                Object value = propertiesArr[i].get(key);
+                if (value != null) {
+                    return getObjectWrapper().wrap(value);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            for (Properties properties : propertiesArr) {
+                if (!properties.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return getKeys().size();
+        }
+
+        @Override
+        public TemplateCollectionModel keys() {
+            return new SimpleCollection(getKeys(), getObjectWrapper());
+        }
+
+        @Override
+        public TemplateCollectionModel values() throws TemplateModelException {
+            List<TemplateModel> values = new ArrayList<TemplateModel>();
+            for (Object key : getKeys()) {
+                values.add(get(key.toString()));
+            }
+            return new SimpleCollection(values, getObjectWrapper());
+        }
+
+        private Set<Object> getKeys() {
+            Set<Object> keys = new LinkedHashSet<Object>();
+            for (Properties properties : propertiesArr) {
+                keys.addAll(properties.keySet());
+            }
+            return keys;
+        }
+
+        private static ObjectWrapper getObjectWrapper() {
+            return freemarkerConfiguration.getObjectWrapper();
+        }
     }
 }
@@ -15,23 +15,42 @@
  *******************************************************************************/
 package com.qaprosoft.apitools.builder;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class PropertiesProcessorMain {
 
     private static List<PropertiesProcessor> processors;
 
     static {
-        processors = new ArrayList<PropertiesProcessor>();
+        processors = new CopyOnWriteArrayList<PropertiesProcessor>();
         processors.add(new GenerateProcessor());
     }
 
+    /**
+     * Adds processor to the end of the chain. Each processor gets properties returned by the previous one, so it
+     * should return all properties and not only the changed ones.
+     * 
+     * @param processor PropertiesProcessor
+     */
+    public static void addProcessor(PropertiesProcessor processor) {
+        processors.add(processor);
+    }
+
+    public static void removeProcessor(PropertiesProcessor processor) {
+        processors.remove(processor);
+    }
+
     public static Properties processProperties(Properties in) {
-        Properties out = new Properties();
+        Properties out = in;
         for (PropertiesProcessor processor : processors) {
-            out.putAll(processor.process(in));
+            out = processor.process(out);
+        }
+        if (out == in) {
+            // result is always a new object
+            out = new Properties();
+            out.putAll(in);
         }
         return out;
     }
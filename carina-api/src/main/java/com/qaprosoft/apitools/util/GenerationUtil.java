@@ -16,18 +16,41 @@
 package com.qaprosoft.apitools.util;
 
 import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.Calendar;
-import java.util.Random;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class GenerationUtil {
     public static final String DEFAULT_TIME_ZONE = "America/Los_Angeles";
 
     private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
 
-    private static final Random RANDOM = new Random();
+    // TimeZone.getTimeZone is synchronized
+    private static final ConcurrentMap<String, ZoneId> ZONES = new ConcurrentHashMap<String, ZoneId>();
+
+    private static final ConcurrentMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<String, DateTimeFormatter>();
 
     public static String generateTime(String format, int offset, int calendarUnit, String timeZone) {
+        ChronoUnit unit = toChronoUnit(calendarUnit);
+        DateTimeFormatter formatter = unit != null ? getFormatter(format) : null;
+        if (formatter == null) {
+            return generateCalendarTime(format, offset, calendarUnit, timeZone);
+        }
+        ZoneId zone = timeZone != null ? ZONES.computeIfAbsent(timeZone, id -> TimeZone.getTimeZone(id).toZoneId()) : ZoneId.systemDefault();
+        return formatter.format(ZonedDateTime.now(zone).plus(offset, unit));
+    }
+
+    public static String generateTime(String format, int offset, int calendarUnit) {
+        return generateTime(format, offset, calendarUnit, DEFAULT_TIME_ZONE);
+    }
+
+    private static String generateCalendarTime(String format, int offset, int calendarUnit, String timeZone) {
         SimpleDateFormat sdf = new SimpleDateFormat(format);
         Calendar calendar = Calendar.getInstance();
         if (timeZone != null) {
@@ -37,43 +60,81 @@ public class GenerationUtil {
         return sdf.format(calendar.getTime());
     }
 
-    public static String generateTime(String format, int offset, int calendarUnit) {
-        return generateTime(format, offset, calendarUnit, DEFAULT_TIME_ZONE);
+    /**
+     * Formatters are immutable so one instance per format is shared by all threads.
+     * 
+     * @param format date format
+     * @return formatter or null if format is supported by SimpleDateFormat only
+     */
+    private static DateTimeFormatter getFormatter(String format) {
+        DateTimeFormatter formatter = FORMATTERS.get(format);
+        if (formatter == null) {
+            // day of week and milliseconds letters have another meaning in DateTimeFormatter
+            if (format.indexOf('u') >= 0 || (format.indexOf('S') >= 0 && !format.matches("[^S]*SSS[^S]*"))) {
+                return null;
+            }
+            try {
+                formatter = DateTimeFormatter.ofPattern(format);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            FORMATTERS.putIfAbsent(format, formatter);
+        }
+        return formatter;
     }
 
-    private static String generateBase(int keySize) {
-        String base = "";
-        for (int i = 0; i < keySize; i++) {
-            base += String.valueOf(RANDOM.nextInt(9));
+    private static ChronoUnit toChronoUnit(int calendarUnit) {
+        switch (calendarUnit) {
+        case Calendar.YEAR:
+            return ChronoUnit.YEARS;
+        case Calendar.MONTH:
+            return ChronoUnit.MONTHS;
+        case Calendar.WEEK_OF_YEAR:
+        case Calendar.WEEK_OF_MONTH:
+            return ChronoUnit.WEEKS;
+        case Calendar.DATE:
+        case Calendar.DAY_OF_YEAR:
+        case Calendar.DAY_OF_WEEK:
+            return ChronoUnit.DAYS;
+        case Calendar.HOUR:
+        case Calendar.HOUR_OF_DAY:
+            return ChronoUnit.HOURS;
+        case Calendar.MINUTE:
+            return ChronoUnit.MINUTES;
+        case Calendar.SECOND:
+            return ChronoUnit.SECONDS;
+        case Calendar.MILLISECOND:
+            return ChronoUnit.MILLIS;
+        default:
+            return null;
         }
-        return base;
     }
 
     public static String generateWord(int keySize) {
-        StringBuilder result = new StringBuilder();
-        String base = generateBase(keySize);
-        int position = RANDOM.nextInt(ALPHABET.length() - 1);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] result = new char[keySize];
+        int position = random.nextInt(ALPHABET.length() - 1);
         int sign = -1;
         for (int i = 0; i < keySize; i++) {
-
-            int step = Integer.valueOf(base.substring(i, i + 1)) * sign;
+            int step = random.nextInt(9) * sign;
             if (position + step > 0 && position + step < ALPHABET.length() - 1) {
                 position += step;
             } else {
                 position -= step;
             }
-            result.append(ALPHABET.charAt(position));
+            result[i] = ALPHABET.charAt(position);
             sign *= -1;
         }
-        return result.toString();
+        return new String(result);
     }
 
     public static String generateNumber(int keySize) {
-        StringBuilder result = new StringBuilder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] result = new char[keySize];
         for (int i = 0; i < keySize; i++) {
-            result.append(RANDOM.nextInt(10));
+            result[i] = (char) ('0' + random.nextInt(10));
         }
-        return result.toString();
+        return new String(result);
     }
 
     // public static Calendar setTimeZone(Calendar inCalendar, String tz) {
@@ -31,8 +31,8 @@ import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.qaprosoft.apitools.builder.MessageBuilder;
 import com.qaprosoft.apitools.builder.PropertiesProcessorMain;
-import com.qaprosoft.apitools.message.TemplateMessage;
 import com.qaprosoft.carina.core.foundation.api.annotation.ContentType;
 import com.qaprosoft.carina.core.foundation.api.annotation.RequestTemplatePath;
 import com.qaprosoft.carina.core.foundation.api.annotation.ResponseTemplatePath;
@@ -114,10 +114,8 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
     @Override
     public Response callAPI() {
         if (rqPath != null) {
-            TemplateMessage tm = new TemplateMessage();
-            tm.setTemplatePath(rqPath);
-            tm.setPropertiesStorage(properties);
-            setBodyContent(tm.getMessageText());
+            // properties are already processed when set or added
+            setBodyContent(buildMessage(rqPath));
         }
         Response rs = super.callAPI();
         actualRsBody = rs.asString();
@@ -172,7 +170,9 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
         if (properties == null) {
             throw new RuntimeException("API method properties are not initialized!");
         }
-        properties.put(key, value);
+        Properties property = new Properties();
+        property.put(key, value);
+        properties.putAll(PropertiesProcessorMain.processProperties(property));
     }
 
     public void removeProperty(String key) {
@@ -206,10 +206,7 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
         if (actualRsBody == null) {
             throw new RuntimeException("Actual response body is null. Please make API call before validation response");
         }
-        TemplateMessage tm = new TemplateMessage();
-        tm.setTemplatePath(rsPath);
-        tm.setPropertiesStorage(properties);
-        String expectedRs = tm.getMessageText();
+        String expectedRs = buildMessage(rsPath);
         try {
             JSONAssert.assertEquals(expectedRs, actualRsBody, new JsonKeywordsComparator(mode, validationFlags));
         } catch (JSONException e) {
@@ -260,9 +257,7 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
         }
         ContentType contentType = this.getClass().getAnnotation(ContentType.class);
         if (contentType == null || contentType.type().equals(JSON_CONTENT_TYPE.getHeaderValue())) {
-            TemplateMessage tm = new TemplateMessage();
-            tm.setTemplatePath(schemaPath);
-            String schema = tm.getMessageText();
+            String schema = MessageBuilder.buildStringMessage(schemaPath);
             JsonValidator.validateJsonAgainstSchema(schema, actualRsBody);
         } else if (contentType.type().equals(XML_CONTENT_TYPE.getHeaderValue())) {
             XmlValidator.validateXmlAgainstSchema(schemaPath, actualRsBody);
@@ -271,6 +266,13 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
         }
     }
 
+    private String buildMessage(String templatePath) {
+        if (properties == null) {
+            return MessageBuilder.buildStringMessage(templatePath);
+        }
+        return MessageBuilder.buildStringMessage(templatePath, properties);
+    }
+
     public void setAuth(String jSessionId) {
         addCookie("pfJSESSIONID", jSessionId);
     }
@@ -89,4 +89,44 @@ public class GenerateProcessorTest {
         Assert.assertFalse(actual.contains("generate_number"));
         Assert.assertFalse(actual.contains("generate_date"));
     }
+
+    @Test
+    public void testSamePlaceholderHasSameValue() {
+        GenerateProcessor generateProcessor = new GenerateProcessor();
+        Properties properties = new Properties();
+        String key = "email";
+        properties.setProperty(key, "generate_word(8)@generate_word(8).com");
+        String actual = generateProcessor.process(properties).getProperty(key);
+        Assert.assertTrue(actual.matches("([a-z]{8})@\\1\\.com"), actual);
+        Assert.assertNotEquals(generateProcessor.process(properties).getProperty(key), actual, "Value should be generated on each call!");
+    }
+
+    @Test
+    public void testValueWithoutPlaceholders() {
+        GenerateProcessor generateProcessor = new GenerateProcessor();
+        Properties properties = new Properties();
+        properties.setProperty("text", "generate_ nothing(5)");
+        properties.put("number", 10);
+        Properties actual = generateProcessor.process(properties);
+        Assert.assertEquals(actual.get("text"), "generate_ nothing(5)");
+        Assert.assertEquals(actual.get("number"), "10");
+    }
+
+    @Test
+    public void testProcessorsChain() {
+        PropertiesProcessor upperCaseProcessor = in -> {
+            Properties out = new Properties();
+            in.forEach((key, value) -> out.put(key, value.toString().toUpperCase()));
+            return out;
+        };
+        PropertiesProcessorMain.addProcessor(upperCaseProcessor);
+        try {
+            Properties properties = new Properties();
+            properties.setProperty("username", "generate_word(5)");
+            String actual = PropertiesProcessorMain.processProperties(properties).getProperty("username");
+            Assert.assertTrue(actual.matches("[A-Z]{5}"), actual);
+        } finally {
+            PropertiesProcessorMain.removeProcessor(upperCaseProcessor);
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.apitools.builder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import freemarker.cache.ClassTemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+/**
+ * Messages/sec of the legacy globally synchronized builder vs {@link MessageBuilder} at 1/16/64 threads, each call
+ * renders request template with api method properties and environment properties.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBuilderBenchmark {
+    private static final String TEMPLATE = "builder/user_rq.json";
+
+    @State(Scope.Benchmark)
+    public static class Data {
+        Properties methodProperties;
+        Properties envProperties;
+
+        @Setup
+        public void setup() {
+            methodProperties = new Properties();
+            methodProperties.put("id", "1");
+            methodProperties.put("username", "admin");
+            methodProperties.put("email", "admin@example.com");
+            envProperties = new Properties();
+            for (int i = 0; i < 50; i++) {
+                envProperties.put("env.key" + i, "value" + i);
+            }
+            envProperties.put("role", "user");
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String legacy1(Data data) {
+        return LegacyMessageBuilder.buildStringMessage(TEMPLATE, data.envProperties, data.methodProperties);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String legacy16(Data data) {
+        return LegacyMessageBuilder.buildStringMessage(TEMPLATE, data.envProperties, data.methodProperties);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public String legacy64(Data data) {
+        return LegacyMessageBuilder.buildStringMessage(TEMPLATE, data.envProperties, data.methodProperties);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String cached1(Data data) {
+        return MessageBuilder.buildStringMessage(TEMPLATE, data.envProperties, data.methodProperties);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String cached16(Data data) {
+        return MessageBuilder.buildStringMessage(TEMPLATE, data.envProperties, data.methodProperties);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public String cached64(Data data) {
+        return MessageBuilder.buildStringMessage(TEMPLATE, data.envProperties, data.methodProperties);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageBuilderBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * MessageBuilder before template cache and lock removal.
+     */
+    private static class LegacyMessageBuilder {
+        private static Configuration freemarkerConfiguration;
+
+        static {
+            freemarkerConfiguration = new Configuration();
+            freemarkerConfiguration.setTemplateLoader(new ClassTemplateLoader(LegacyMessageBuilder.class, "/"));
+        }
+
+        static synchronized String buildStringMessage(String templatePath, Properties... propertiesArr) {
+            Template template;
+            try {
+                template = freemarkerConfiguration.getTemplate(templatePath);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            Properties resultProperties = new Properties();
+            for (Properties properties : propertiesArr) {
+                resultProperties.putAll(properties);
+            }
+
+            StringWriter sw = new StringWriter();
+            try {
+                template.process(resultProperties, sw);
+            } catch (TemplateException | IOException e) {
+                throw new RuntimeException(e);
+            }
+            return sw.toString();
+        }
+    }
+}
@@ -17,6 +17,26 @@ public class MessageBuilderTest {
         Assert.assertEquals(actualStringMessage, expectedStringMessage, "String message wasn't generated properly");
     }
 
+    @Test
+    public void testBuildStringMessageWithSeveralProperties() {
+        Properties base = new Properties();
+        base.put("id", "1");
+        base.put("username", "base");
+        base.put("role", "user");
+        Properties overridden = new Properties();
+        overridden.put("username", "admin");
+        overridden.put("email", "admin@example.com");
+
+        String actualStringMessage = MessageBuilder.buildStringMessage("builder/user_rq.json", base, overridden);
+
+        Assert.assertTrue(actualStringMessage.contains("\"username\": \"admin\""), "Last properties should override previous: " + actualStringMessage);
+        Assert.assertTrue(actualStringMessage.contains("\"email\": \"admin@example.com\""), actualStringMessage);
+        Assert.assertTrue(actualStringMessage.contains("\"role\": \"user\""), actualStringMessage);
+        Assert.assertEquals(base.getProperty("username"), "base", "Properties shouldn't be modified!");
+        Assert.assertEquals(MessageBuilder.buildStringMessage("builder/user_rq.json", base, overridden), actualStringMessage,
+                "Cached template should be rendered the same way!");
+    }
+
     @Test(expectedExceptions = RuntimeException.class)
     public void testBuildStringMessageWithWrongProperties() {
         MessageBuilder.buildStringMessage("nonexistent.properties");
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.apitools.builder;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of properties processing per API request: legacy GenerateProcessor vs {@link PropertiesProcessorMain} for
+ * typical api method properties (20 plain values and 5 values with placeholders).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertiesProcessorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Data {
+        Properties properties;
+        LegacyGenerateProcessor legacy;
+
+        @Setup
+        public void setup() {
+            properties = new Properties();
+            for (int i = 0; i < 20; i++) {
+                properties.put("key" + i, "value" + i);
+            }
+            properties.put("username", "generate_word(10)");
+            properties.put("email", "generate_word(8)@example.com");
+            properties.put("phone", "+1generate_number(10)");
+            properties.put("birthday", "generate_date(yyyy-MM-dd;-7300)");
+            properties.put("expiration", "generate_date(yyyy-MM-dd'T'HH:mm:ss;30)");
+            legacy = new LegacyGenerateProcessor();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Properties legacy1(Data data) {
+        return data.legacy.process(data.properties);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Properties legacy16(Data data) {
+        return data.legacy.process(data.properties);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Properties compiled1(Data data) {
+        return PropertiesProcessorMain.processProperties(data.properties);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Properties compiled16(Data data) {
+        return PropertiesProcessorMain.processProperties(data.properties);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PropertiesProcessorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * GenerateProcessor and GenerationUtil before patterns precompilation.
+     */
+    private static class LegacyGenerateProcessor implements PropertiesProcessor {
+        private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+        private static final Random RANDOM = new Random();
+
+        @Override
+        public Properties process(Properties in) {
+            Properties out = new Properties();
+            for (Entry<Object, Object> entry : in.entrySet()) {
+                Matcher wordMatcher = Pattern.compile(PropertiesKeywords.GENERATE_WORD_REGEX.getKey()).matcher(entry.getValue().toString());
+                Matcher numberMatcher = Pattern.compile(PropertiesKeywords.GENERATE_NUMBER_REGEX.getKey()).matcher(entry.getValue().toString());
+                Matcher dateMatcher = Pattern.compile(PropertiesKeywords.GENERATE_DATE_REGEX.getKey()).matcher(entry.getValue().toString());
+                String tmp = entry.getValue().toString();
+
+                while (wordMatcher.find()) {
+                    String toReplace = wordMatcher.group();
+                    Matcher tmpMatcher = Pattern.compile("\\d+").matcher(toReplace);
+                    tmpMatcher.find();
+                    tmp = tmp.replace(toReplace, generateWord(Integer.parseInt(tmpMatcher.group())));
+                }
+
+                while (numberMatcher.find()) {
+                    String toReplace = numberMatcher.group();
+                    Matcher tmpMatcher = Pattern.compile("\\d+").matcher(toReplace);
+                    tmpMatcher.find();
+                    tmp = tmp.replace(toReplace, generateNumber(Integer.parseInt(tmpMatcher.group())));
+                }
+
+                while (dateMatcher.find()) {
+                    String toReplace = dateMatcher.group();
+                    Matcher offsetMatcher = Pattern.compile("-{0,1}\\d+").matcher(toReplace);
+                    offsetMatcher.find();
+                    String offset = offsetMatcher.group();
+                    Matcher formatMatcher = Pattern.compile("(?<=generate_date\\().*?(?=;)").matcher(toReplace);
+                    formatMatcher.find();
+                    tmp = tmp.replace(toReplace, generateTime(formatMatcher.group(), Integer.parseInt(offset)));
+                }
+
+                out.put(entry.getKey(), tmp);
+            }
+            return out;
+        }
+
+        private static String generateTime(String format, int offset) {
+            SimpleDateFormat sdf = new SimpleDateFormat(format);
+            Calendar calendar = Calendar.getInstance();
+            sdf.setTimeZone(TimeZone.getTimeZone("America/Los_Angeles"));
+            calendar.add(Calendar.DAY_OF_YEAR, offset);
+            return sdf.format(calendar.getTime());
+        }
+
+        private static String generateBase(int keySize) {
+            String base = "";
+            for (int i = 0; i < keySize; i++) {
+                base += String.valueOf(RANDOM.nextInt(9));
+            }
+            return base;
+        }
+
+        private static String generateWord(int keySize) {
+            StringBuilder result = new StringBuilder();
+            String base = generateBase(keySize);
+            int position = RANDOM.nextInt(ALPHABET.length() - 1);
+            int sign = -1;
+            for (int i = 0; i < keySize; i++) {
+                int step = Integer.valueOf(base.substring(i, i + 1)) * sign;
+                if (position + step > 0 && position + step < ALPHABET.length() - 1) {
+                    position += step;
+                } else {
+                    position -= step;
+                }
+                result.append(ALPHABET.charAt(position));
+                sign *= -1;
+            }
+            return result.toString();
+        }
+
+        private static String generateNumber(int keySize) {
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < keySize; i++) {
+                result.append(RANDOM.nextInt(10));
+            }
+            return result.toString();
+        }
+    }
+}
@@ -191,4 +191,6 @@ public class SpecialKeywords {
     
     
     public final static String DEFAULT_VIDEO_FILENAME = "%s.mp4";
+    // video is decoded into temporary file which is renamed to DEFAULT_VIDEO_FILENAME when completed
+    public final static String TEMP_VIDEO_FILENAME = "%s.mp4.tmp";
 }
@@ -16,6 +16,7 @@
 package com.qaprosoft.carina.core.foundation;
 
 import java.lang.annotation.Annotation;
+import java.util.Iterator;
 
 import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
@@ -83,6 +84,12 @@ public interface IAbstractTest extends ICustomTypePageFactory, ITestCases {
         return objects;
     }
 
+    @DataProvider(name = "LazyDataProvider", parallel = true)
+    default Iterator<Object[]> createLazyData(final ITestNGMethod testMethod, ITestContext context) {
+        Annotation[] annotations = testMethod.getConstructorOrMethod().getMethod().getDeclaredAnnotations();
+        return DataProviderFactory.getDataProviderIterator(annotations, context, testMethod);
+    }
+
     /**
      * Pause for specified timeout.
      *
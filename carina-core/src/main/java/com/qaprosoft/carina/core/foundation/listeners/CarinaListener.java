@@ -15,7 +15,10 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.listeners;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.net.URL;
@@ -64,6 +67,7 @@ import com.qaprosoft.amazon.AmazonS3Manager;
 import com.qaprosoft.appcenter.AppCenterManager;
 import com.qaprosoft.carina.browsermobproxy.ProxyPool;
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.DataProviderFactory;
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.report.TestResultItem;
 import com.qaprosoft.carina.core.foundation.report.TestResultType;
@@ -86,10 +90,12 @@ import com.qaprosoft.carina.core.foundation.utils.resources.L10Nparser;
 import com.qaprosoft.carina.core.foundation.utils.tag.PriorityManager;
 import com.qaprosoft.carina.core.foundation.utils.tag.TagManager;
 import com.qaprosoft.carina.core.foundation.webdriver.CarinaDriver;
+import com.qaprosoft.carina.core.foundation.webdriver.DriverRecycler;
 import com.qaprosoft.carina.core.foundation.webdriver.IDriverPool;
 import com.qaprosoft.carina.core.foundation.webdriver.Screenshot;
 import com.qaprosoft.carina.core.foundation.webdriver.TestPhase;
 import com.qaprosoft.carina.core.foundation.webdriver.TestPhase.Phase;
+import com.qaprosoft.carina.core.foundation.webdriver.WarmDriverPool;
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.CapabilitiesLoader;
 import com.qaprosoft.carina.core.foundation.webdriver.device.Device;
 import com.qaprosoft.carina.core.foundation.webdriver.screenshot.AutoScreenshotRule;
@@ -369,6 +375,10 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
 //        quitDrivers(Phase.BEFORE_CLASS); already exited in onAfterClass() method
         quitDrivers(Phase.BEFORE_TEST);
 
+        // lazy data providers which were not read till the end keep their files open
+        DataProviderFactory.closeDataProviderIterators(context);
+        ExpectedSkipManager.getInstance().clear(context);
+
         LOGGER.debug("CarinaListener->onFinish(context): " + context.getName());
     }
 
@@ -406,16 +416,26 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
             // Jira.updateAfterSuite(context,
             // EmailReportItemCollector.getTestResults());
 
+            // screenshots are resized in background and report refers to them
+            ReportContext.waitForScreenshots();
+
             LOGGER.debug("Generating email report...");
 
-            // Generate emailable html report using regular method
+            // Generate emailable html report from rows rendered during the run
             EmailReportGenerator report = new EmailReportGenerator(title, env, Configuration.get(Parameter.APP_VERSION),
-                    deviceName, browser, DateUtils.now(), EmailReportItemCollector.getTestResults(),
+                    deviceName, browser, DateUtils.now(), EmailReportItemCollector.getReportRows(),
                     EmailReportItemCollector.getCreatedItems());
 
-            String emailContent = report.getEmailBody();
-            // Store emailable report under emailable-report.html
-            ReportContext.generateHtmlReport(emailContent);
+            File emailContent = File.createTempFile("emailable-report", ".html");
+            try {
+                try (OutputStream os = new BufferedOutputStream(new FileOutputStream(emailContent))) {
+                    report.writeEmailBody(os);
+                }
+                // Store emailable report under emailable-report.html
+                ReportContext.generateHtmlReport(emailContent);
+            } finally {
+                emailContent.delete();
+            }
 
             printExecutionSummary(EmailReportItemCollector.getTestResults());
             ReportContext.setCustomTestDirName("run_summary");
@@ -437,6 +457,8 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
         } catch (Exception e) {
             LOGGER.error("Exception in CarinaListener->onFinish(ISuite suite)", e);
         } finally {
+            WarmDriverPool.shutdown();
+            DriverRecycler.shutdown();
             int counter = 0;
             while (FtpUtils.isUploading() && ++counter < 30) {
                 LOGGER.info("waiting to finish FTP uploading... " + counter + " sec.");
@@ -976,6 +998,8 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
             if (!Configuration.getBoolean(Parameter.FORCIBLY_DISABLE_DRIVER_QUIT)) {
                 quitAllDriversOnHook();
             }
+            WarmDriverPool.shutdown();
+            DriverRecycler.shutdown();
         }
 
     }
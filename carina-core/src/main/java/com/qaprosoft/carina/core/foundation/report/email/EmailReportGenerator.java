@@ -15,13 +15,19 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.report.email;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,18 +48,13 @@ import com.qaprosoft.carina.core.foundation.utils.R;
 public class EmailReportGenerator {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private static String CONTAINER = R.EMAIL.get("container");
-    private static String PACKAGE_TR = R.EMAIL.get("package_tr");
-    private static String PASS_TEST_LOG_DEMO_TR = R.EMAIL.get("pass_test_log_demo_tr");
-    private static String FAIL_TEST_LOG_DEMO_TR = R.EMAIL.get("fail_test_log_demo_tr");
-    private static String SKIP_TEST_LOG_DEMO_TR = R.EMAIL.get("skip_test_log_demo_tr");
-    private static String FAIL_CONFIG_LOG_DEMO_TR = R.EMAIL.get("fail_config_log_demo_tr");
-    private static String PASS_TEST_LOG_TR = R.EMAIL.get("pass_test_log_tr");
-    private static String FAIL_TEST_LOG_TR = R.EMAIL.get("fail_test_log_tr");
-    private static String SKIP_TEST_LOG_TR = R.EMAIL.get("skip_test_log_tr");
-    private static String FAIL_CONFIG_LOG_TR = R.EMAIL.get("fail_config_log_tr");
-    private static String CREATED_ITEMS_LIST = R.EMAIL.get("created_items_list");
-    private static String CREATED_ITEM = R.EMAIL.get("created_item");
+    private static final String RESULTS_PLACEHOLDER = "${result_rows}";
+    private static final String CONTAINER = R.EMAIL.get("container");
+    // container is split by result rows so rows are streamed between header and footer
+    private static final EmailReportTemplate HEADER = new EmailReportTemplate(StringUtils.substringBefore(CONTAINER, RESULTS_PLACEHOLDER));
+    private static final EmailReportTemplate FOOTER = new EmailReportTemplate(StringUtils.substringAfter(CONTAINER, RESULTS_PLACEHOLDER));
+    private static final EmailReportTemplate CREATED_ITEMS_LIST = new EmailReportTemplate(R.EMAIL.get("created_items_list"));
+    private static final EmailReportTemplate CREATED_ITEM = new EmailReportTemplate(R.EMAIL.get("created_item"));
     private static final String TITLE_PLACEHOLDER = "${title}";
     private static final String ENV_PLACEHOLDER = "${env}";
     private static final String DEVICE_PLACEHOLDER = "${device}";
@@ -64,18 +65,8 @@ public class EmailReportGenerator {
     private static final String FAIL_COUNT_PLACEHOLDER = "${fail_count}";
     private static final String SKIP_COUNT_PLACEHOLDER = "${skip_count}";
     private static final String PASS_RATE_PLACEHOLDER = "${pass_rate}";
-    private static final String RESULTS_PLACEHOLDER = "${result_rows}";
-    private static final String PACKAGE_NAME_PLACEHOLDER = "${package_name}";
-    private static final String TEST_NAME_PLACEHOLDER = "${test_name}";
-    private static final String FAIL_REASON_PLACEHOLDER = "${fail_reason}";
-    private static final String SKIP_REASON_PLACEHOLDER = "${skip_reason}";
-    private static final String FAIL_CONFIG_REASON_PLACEHOLDER = "${fail_config_reason}";
-    private static final String SCREENSHOTS_URL_PLACEHOLDER = "${screenshots_url}";
-    private static final String VIDEO_URL_PLACEHOLDER = "${video_url_html}";
-    private static final String LOG_URL_PLACEHOLDER = "${log_url}";
     private static final String CREATED_ITEMS_LIST_PLACEHOLDER = "${created_items_list}";
     private static final String CREATED_ITEM_PLACEHOLDER = "${created_item}";
-    private static final int MESSAGE_LIMIT = R.EMAIL.getInt("fail_description_limit");
     
     // Cucumber section
     private static final String CUCUMBER_RESULTS_PLACEHOLDER = "${cucumber_results}";
@@ -83,12 +74,9 @@ public class EmailReportGenerator {
     // Artifacts section
     private static final String ARTIFACTS_RESULTS_PLACEHOLDER = "${artifacts}";
 
-    private static boolean INCLUDE_PASS = R.EMAIL.getBoolean("include_pass");
-    private static boolean INCLUDE_FAIL = R.EMAIL.getBoolean("include_fail");
-    private static boolean INCLUDE_SKIP = R.EMAIL.getBoolean("include_skip");
-
-    private String emailBody = CONTAINER;
-    private StringBuilder testResults = null;
+    private final Map<String, String> values = new HashMap<String, String>();
+    private final EmailReportRowWriter rows;
+    private String emailBody;
 
     private int passCount = 0;
     private int failCount = 0;
@@ -96,30 +84,81 @@ public class EmailReportGenerator {
 
     public EmailReportGenerator(String title, String url, String version, String device, String browser, String finishDate,
             List<TestResultItem> testResultItems, List<String> createdItems) {
-        emailBody = emailBody.replace(TITLE_PLACEHOLDER, title);
-        emailBody = emailBody.replace(ENV_PLACEHOLDER, url);
-        emailBody = emailBody.replace(DEVICE_PLACEHOLDER, device);
-        emailBody = emailBody.replace(VERSION_PLACEHOLDER, version);
-        emailBody = emailBody.replace(BROWSER_PLACEHOLDER, browser);
-        emailBody = emailBody.replace(FINISH_DATE_PLACEHOLDER, finishDate);
-        emailBody = emailBody.replace(RESULTS_PLACEHOLDER, getTestResultsList(testResultItems));
-        emailBody = emailBody.replace(PASS_COUNT_PLACEHOLDER, String.valueOf(passCount));
-        emailBody = emailBody.replace(FAIL_COUNT_PLACEHOLDER, String.valueOf(failCount));
-        emailBody = emailBody.replace(SKIP_COUNT_PLACEHOLDER, String.valueOf(skipCount));
-        emailBody = emailBody.replace(PASS_RATE_PLACEHOLDER, String.valueOf(getSuccessRate()));
-        emailBody = emailBody.replace(CREATED_ITEMS_LIST_PLACEHOLDER, getCreatedItemsList(createdItems));
-        
+        this.rows = null;
+        String testResults = getTestResultsList(testResultItems);
+        putValues(title, url, version, device, browser, finishDate, createdItems);
+
+        StringBuilder body = new StringBuilder(CONTAINER.length() + testResults.length());
+        HEADER.render(values, body);
+        body.append(testResults);
+        FOOTER.render(values, body);
+        emailBody = body.toString();
+    }
+
+    /**
+     * Creates report from rows which were rendered into file during the run, see
+     * {@link EmailReportItemCollector#getReportRows()}. Report is produced by {@link #writeEmailBody(OutputStream)}.
+     */
+    public EmailReportGenerator(String title, String url, String version, String device, String browser, String finishDate,
+            EmailReportRowWriter rows, List<String> createdItems) {
+        this.rows = rows;
+        passCount = rows.getPassCount();
+        failCount = rows.getFailCount();
+        skipCount = rows.getSkipCount();
+        putValues(title, url, version, device, browser, finishDate, createdItems);
+    }
+
+    private void putValues(String title, String url, String version, String device, String browser, String finishDate,
+            List<String> createdItems) {
+        values.put(TITLE_PLACEHOLDER, title);
+        values.put(ENV_PLACEHOLDER, url);
+        values.put(DEVICE_PLACEHOLDER, device);
+        values.put(VERSION_PLACEHOLDER, version);
+        values.put(BROWSER_PLACEHOLDER, browser);
+        values.put(FINISH_DATE_PLACEHOLDER, finishDate);
+        values.put(PASS_COUNT_PLACEHOLDER, String.valueOf(passCount));
+        values.put(FAIL_COUNT_PLACEHOLDER, String.valueOf(failCount));
+        values.put(SKIP_COUNT_PLACEHOLDER, String.valueOf(skipCount));
+        values.put(PASS_RATE_PLACEHOLDER, String.valueOf(getSuccessRate()));
+        values.put(CREATED_ITEMS_LIST_PLACEHOLDER, getCreatedItemsList(createdItems));
+
         // Cucumber section
-        emailBody = emailBody.replace(CUCUMBER_RESULTS_PLACEHOLDER, getCucumberResultsHTML());
+        values.put(CUCUMBER_RESULTS_PLACEHOLDER, getCucumberResultsHTML());
 
         // Artifacts section
-        emailBody = emailBody.replace(ARTIFACTS_RESULTS_PLACEHOLDER, getArtifactsLinkHTML());
+        values.put(ARTIFACTS_RESULTS_PLACEHOLDER, getArtifactsLinkHTML());
     }
 
     public String getEmailBody() {
+        if (emailBody == null) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try {
+                writeEmailBody(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            emailBody = new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
         return emailBody;
     }
 
+    /**
+     * Writes report in UTF-8 copying result rows from rows file between header and footer.
+     * 
+     * @param os OutputStream
+     * @throws IOException on rows file or report failure
+     */
+    public void writeEmailBody(OutputStream os) throws IOException {
+        if (emailBody != null) {
+            os.write(emailBody.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        os.write(HEADER.render(values).getBytes(StandardCharsets.UTF_8));
+        // TODO: identify way to synch config failure with testNG method
+        rows.writeRows(os, Configuration.getBoolean(Parameter.RESULT_SORTING));
+        os.write(FOOTER.render(values).getBytes(StandardCharsets.UTF_8));
+    }
+
     private String getTestResultsList(List<TestResultItem> testResultItems) {
         if (testResultItems.size() > 0) {
             if (Configuration.getBoolean(Parameter.RESULT_SORTING)) {
@@ -129,109 +168,29 @@ public class EmailReportGenerator {
             }
 
             String packageName = "";
-            testResults = new StringBuilder();
+            StringBuilder testResults = new StringBuilder();
             for (TestResultItem testResultItem : testResultItems) {
                 if (!testResultItem.isConfig() && !packageName.equals(testResultItem.getPack())) {
                     packageName = testResultItem.getPack();
-                    testResults.append(PACKAGE_TR.replace(PACKAGE_NAME_PLACEHOLDER, packageName));
+                    testResults.append(EmailReportRowWriter.renderPackageRow(packageName));
                 }
                 testResults.append(getTestRow(testResultItem));
             }
+            return testResults.toString();
         }
-        return testResults != null ? testResults.toString() : "";
+        return "";
     }
 
     private String getTestRow(TestResultItem testResultItem) {
-        String result = "";
-        String failReason = "";
-        if (testResultItem.getResult().name().equalsIgnoreCase("FAIL")) {
-            if (INCLUDE_FAIL) {
-                if (testResultItem.isConfig()) {
-                    result = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots()) ? FAIL_CONFIG_LOG_DEMO_TR : FAIL_CONFIG_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-
-                    failReason = testResultItem.getFailReason();
-                    if (!StringUtils.isEmpty(failReason)) {
-                        // Make description more compact for email report
-                        failReason = failReason.length() > MESSAGE_LIMIT ? (failReason.substring(0, MESSAGE_LIMIT) + "...") : failReason;
-                        result = result.replace(FAIL_CONFIG_REASON_PLACEHOLDER, formatFailReasonAsHtml(failReason));
-                    } else {
-                        result = result.replace(FAIL_CONFIG_REASON_PLACEHOLDER, "Undefined failure: contact qa engineer!");
-                    }
-                } else {
-                    result = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots()) ? FAIL_TEST_LOG_DEMO_TR : FAIL_TEST_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-
-                    failReason = testResultItem.getFailReason();
-                    if (!StringUtils.isEmpty(failReason)) {
-                        // Make description more compact for email report
-                        failReason = failReason.length() > MESSAGE_LIMIT ? (failReason.substring(0, MESSAGE_LIMIT) + "...") : failReason;
-                        result = result.replace(FAIL_REASON_PLACEHOLDER, formatFailReasonAsHtml(failReason));
-                    } else {
-                        result = result.replace(FAIL_REASON_PLACEHOLDER, "Undefined failure: contact qa engineer!");
-                    }
-                }
-
-                result = result.replace(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
-
-                if (testResultItem.getLinkToScreenshots() != null) {
-                    result = result.replace(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
-                }
-            }
+        String result = testResultItem.getResult().name();
+        if (result.equalsIgnoreCase("FAIL")) {
             failCount++;
+        } else if (result.equalsIgnoreCase("SKIP") && !testResultItem.isConfig()) {
+            skipCount++;
+        } else if (result.equalsIgnoreCase("PASS") && !testResultItem.isConfig()) {
+            passCount++;
         }
-
-        if (testResultItem.getResult().name().equalsIgnoreCase("SKIP")) {
-            failReason = testResultItem.getFailReason();
-            if (!testResultItem.isConfig()) {
-                if (INCLUDE_SKIP) {
-                    result = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots()) ? SKIP_TEST_LOG_DEMO_TR : SKIP_TEST_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-
-                    if (!StringUtils.isEmpty(failReason)) {
-                        // Make description more compact for email report
-                        failReason = failReason.length() > MESSAGE_LIMIT
-                                ? (failReason.substring(0, MESSAGE_LIMIT) + "...")
-                                : failReason;
-                        result = result.replace(SKIP_REASON_PLACEHOLDER, formatFailReasonAsHtml(failReason));
-                    } else {
-                        result = result.replace(SKIP_REASON_PLACEHOLDER,
-                                "Analyze SYSTEM ISSUE log for details or check dependency settings for the test.");
-                    }
-
-                    result = result.replace(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
-
-                    if (testResultItem.getLinkToScreenshots() != null) {
-                        result = result.replace(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
-                    }
-                }
-                skipCount++;
-            }
-        }
-        if (testResultItem.getResult().name().equalsIgnoreCase("PASS")) {
-            if (!testResultItem.isConfig()) {
-                passCount++;
-                if (INCLUDE_PASS) {
-                    result = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots()) ? PASS_TEST_LOG_DEMO_TR : PASS_TEST_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-                    result = result.replace(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
-
-                    if (testResultItem.getLinkToScreenshots() != null) {
-                        result = result.replace(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
-                    }
-                }
-            }
-        }
-
-        // putting of video URLs
-        String videoHTML = "";
-        List<String> videoLinks = testResultItem.getLinksToVideo();
-        for (int i = 0; i < videoLinks.size(); i++) {
-            videoHTML = videoHTML.concat(String.format("<span> | </span><a target='_blank' href='%s' style='color: white'>%s</a>", videoLinks.get(i),
-                    (videoLinks.size() > 1) ? "Video_" + (i + 1) : "Video"));
-        }
-        result = result.replace(VIDEO_URL_PLACEHOLDER, videoHTML);
-        return result;
+        return EmailReportRowWriter.renderRow(testResultItem);
     }
 
     private int getSuccessRate() {
@@ -292,21 +251,21 @@ public class EmailReportGenerator {
     public String getCreatedItemsList(List<String> createdItems) {
         if (!CollectionUtils.isEmpty(createdItems)) {
             StringBuilder result = new StringBuilder();
+            Map<String, String> itemValues = new HashMap<String, String>();
             for (String createdItem : createdItems) {
-                result.append(CREATED_ITEM.replace(CREATED_ITEM_PLACEHOLDER, createdItem));
+                itemValues.put(CREATED_ITEM_PLACEHOLDER, createdItem);
+                CREATED_ITEM.render(itemValues, result);
             }
-            return CREATED_ITEMS_LIST.replace(CREATED_ITEMS_LIST_PLACEHOLDER, result.toString());
+            itemValues.clear();
+            itemValues.put(CREATED_ITEMS_LIST_PLACEHOLDER, result.toString());
+            return CREATED_ITEMS_LIST.render(itemValues);
         } else {
             return "";
         }
     }
 
     public String formatFailReasonAsHtml(String reasonText) {
-        if (!StringUtils.isEmpty(reasonText)) {
-            reasonText = StringEscapeUtils.escapeHtml4(reasonText);
-            reasonText = reasonText.replace("\n", "<br/>");
-        }
-        return reasonText;
+        return EmailReportRowWriter.formatFailReasonAsHtml(reasonText);
     }
 
     /**
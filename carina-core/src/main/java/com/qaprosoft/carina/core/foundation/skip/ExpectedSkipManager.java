@@ -17,16 +17,24 @@ package com.qaprosoft.carina.core.foundation.skip;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
 
+import com.qaprosoft.carina.core.foundation.rule.DeterministicRule;
 import com.qaprosoft.carina.core.foundation.rule.IRule;
+import com.qaprosoft.carina.core.foundation.rule.StatefulRule;
 
 public class ExpectedSkipManager {
 
@@ -34,6 +42,18 @@ public class ExpectedSkipManager {
 
     private static ExpectedSkipManager instance = null;
 
+    // effective rules of each test method are collected once per context
+    private final Map<ITestContext, Map<Method, Set<Class<? extends IRule>>>> contextRules = Collections
+            .synchronizedMap(new WeakHashMap<ITestContext, Map<Method, Set<Class<? extends IRule>>>>());
+    // rules of methods which are not part of the context are resolved by reflection once
+    private final Map<String, Set<Class<? extends IRule>>> dependentMethodRules = new ConcurrentHashMap<>();
+
+    private final Map<Class<? extends IRule>, IRule> rules = new ConcurrentHashMap<>();
+    private final Map<Class<? extends IRule>, ThreadLocal<IRule>> statefulRules = new ConcurrentHashMap<>();
+    // results of deterministic rules are calculated once per context and released together with its rules
+    private final Map<ITestContext, Map<Class<? extends IRule>, Boolean>> deterministicResults = Collections
+            .synchronizedMap(new WeakHashMap<ITestContext, Map<Class<? extends IRule>, Boolean>>());
+
     private ExpectedSkipManager() {
     };
 
@@ -56,11 +76,11 @@ public class ExpectedSkipManager {
     public boolean isSkip(Method testMethod, ITestContext context) {
         for (Class<? extends IRule> rule : collectRules(testMethod, context)) {
             try {
-                if (rule.newInstance().isPerform()) {
+                if (isPerform(rule, context)) {
                     LOGGER.info("Test execution will be skipped due to following rule: ".concat(rule.getName()));
                     return true;
                 }
-            } catch (InstantiationException | IllegalAccessException e) {
+            } catch (ReflectiveOperationException e) {
                 LOGGER.error("Error during skip rules initialization: ".concat(rule.getName()));
                 LOGGER.error("Error msg: ".concat(e.getMessage()), e);
             }
@@ -68,43 +88,151 @@ public class ExpectedSkipManager {
         return false;
     }
 
+    /**
+     * Release collected rules and deterministic rule results of finished context
+     * 
+     * @param context tests context
+     */
+    public void clear(ITestContext context) {
+        contextRules.remove(context);
+        deterministicResults.remove(context);
+    }
+
+    /**
+     * Calculate rule using cached instance, result of deterministic rule is calculated once per tests context
+     * 
+     * @param rule
+     * @param context
+     * @return isPerform result
+     */
+    private boolean isPerform(Class<? extends IRule> rule, ITestContext context) throws ReflectiveOperationException {
+        if (!rule.isAnnotationPresent(DeterministicRule.class)) {
+            return getRule(rule).isPerform();
+        }
+        Map<Class<? extends IRule>, Boolean> results = deterministicResults.computeIfAbsent(context, c -> new ConcurrentHashMap<>());
+        Boolean result = results.get(rule);
+        if (result == null) {
+            result = getRule(rule).isPerform();
+            results.put(rule, result);
+        }
+        return result;
+    }
+
+    /**
+     * Get rule instance: single one or per thread for stateful rules
+     * 
+     * @param rule
+     * @return rule instance
+     */
+    private IRule getRule(Class<? extends IRule> rule) throws ReflectiveOperationException {
+        if (rule.isAnnotationPresent(StatefulRule.class)) {
+            ThreadLocal<IRule> threadRule = statefulRules.computeIfAbsent(rule, r -> new ThreadLocal<IRule>());
+            IRule instance = threadRule.get();
+            if (instance == null) {
+                instance = rule.getDeclaredConstructor().newInstance();
+                threadRule.set(instance);
+            }
+            return instance;
+        }
+
+        IRule instance = rules.get(rule);
+        if (instance == null) {
+            instance = rule.getDeclaredConstructor().newInstance();
+            IRule existing = rules.putIfAbsent(rule, instance);
+            if (existing != null) {
+                instance = existing;
+            }
+        }
+        return instance;
+    }
+
     /**
      * Collect rules based on tests and its context
      * 
      * @param testMethod
      * @param context
-     * @return rules list
+     * @return rules set
      */
-    private List<Class<? extends IRule>> collectRules(Method testMethod, ITestContext context) {
-        List<Class<? extends IRule>> rules = new ArrayList<>();
-        // collect rules from current class and method
-        ExpectedSkip classSkipAnnotation = testMethod.getDeclaringClass().getAnnotation(ExpectedSkip.class);
-        ExpectedSkip methodSkipAnnotation = testMethod.getAnnotation(ExpectedSkip.class);
-        rules.addAll(getRulesFromAnnotation(classSkipAnnotation));
-        rules.addAll(getRulesFromAnnotation(methodSkipAnnotation));
-
-        // analyze all dependent methods and collect rules
-        ITestNGMethod[] methods = context.getAllTestMethods();
-        for (ITestNGMethod iTestNGMethod : methods) {
-            if (iTestNGMethod.getMethodName().equalsIgnoreCase(testMethod.getName())) {
-                String[] methodsDep = iTestNGMethod.getMethodsDependedUpon();
-                for (String method : methodsDep) {
-                    rules.addAll(getDependentMethodsRules(method));
-                }
+    private Set<Class<? extends IRule>> collectRules(Method testMethod, ITestContext context) {
+        Set<Class<? extends IRule>> methodRules = contextRules.computeIfAbsent(context, this::indexRules).get(testMethod);
+        if (methodRules == null) {
+            // method isn't registered in the context so only its own rules are used
+            methodRules = new LinkedHashSet<>();
+            methodRules.addAll(getRulesFromAnnotation(testMethod.getDeclaringClass().getAnnotation(ExpectedSkip.class)));
+            methodRules.addAll(getRulesFromAnnotation(testMethod.getAnnotation(ExpectedSkip.class)));
+        }
+        return methodRules;
+    }
+
+    /**
+     * Collect rules of all context methods including rules of transitive dependencies
+     * 
+     * @param context
+     * @return rules by test method
+     */
+    private Map<Method, Set<Class<? extends IRule>>> indexRules(ITestContext context) {
+        Map<String, ITestNGMethod> methods = new HashMap<>();
+        for (ITestNGMethod method : context.getAllTestMethods()) {
+            methods.put(getQualifiedName(method), method);
+        }
+
+        Map<Method, Set<Class<? extends IRule>>> index = new HashMap<>();
+        for (ITestNGMethod method : methods.values()) {
+            Method testMethod = method.getConstructorOrMethod().getMethod();
+            if (testMethod == null) {
+                continue;
+            }
+            // collect rules from current class and method
+            Set<Class<? extends IRule>> methodRules = new LinkedHashSet<>();
+            methodRules.addAll(getRulesFromAnnotation(testMethod.getDeclaringClass().getAnnotation(ExpectedSkip.class)));
+            methodRules.addAll(getRulesFromAnnotation(testMethod.getAnnotation(ExpectedSkip.class)));
+
+            // analyze all dependent methods and collect rules
+            Set<String> visited = new HashSet<>();
+            visited.add(getQualifiedName(method));
+            for (String dependency : method.getMethodsDependedUpon()) {
+                collectDependentMethodsRules(dependency, methods, methodRules, visited);
             }
+            index.put(testMethod, Collections.unmodifiableSet(methodRules));
         }
+        LOGGER.debug("Expected skip rules are collected for context: " + context.getName());
+        return index;
+    }
 
-        return rules;
+    /**
+     * Collect rules of dependent method, its class and its own dependencies
+     * 
+     * @param methodName
+     * @param methods context methods by qualified name
+     * @param rules
+     * @param visited already analyzed methods
+     */
+    private void collectDependentMethodsRules(String methodName, Map<String, ITestNGMethod> methods, Set<Class<? extends IRule>> rules,
+            Set<String> visited) {
+        if (!visited.add(methodName)) {
+            return;
+        }
+        rules.addAll(dependentMethodRules.computeIfAbsent(methodName, this::getDependentMethodsRules));
+        ITestNGMethod method = methods.get(methodName);
+        if (method != null) {
+            for (String dependency : method.getMethodsDependedUpon()) {
+                collectDependentMethodsRules(dependency, methods, rules, visited);
+            }
+        }
+    }
+
+    private static String getQualifiedName(ITestNGMethod method) {
+        return method.getRealClass().getName() + "." + method.getMethodName();
     }
 
     /**
      * Get rules from annotation
      * 
      * @param annotation
-     * @return rules list
+     * @return rules set
      */
-    private List<Class<? extends IRule>> getRulesFromAnnotation(ExpectedSkip annotation) {
-        List<Class<? extends IRule>> rules = new ArrayList<>();
+    private Set<Class<? extends IRule>> getRulesFromAnnotation(ExpectedSkip annotation) {
+        Set<Class<? extends IRule>> rules = new LinkedHashSet<>();
         if (annotation != null) {
             rules.addAll(Arrays.asList(annotation.rules()));
         }
@@ -115,13 +243,13 @@ public class ExpectedSkipManager {
      * Get rules from dependent methods and their classes
      * 
      * @param methodName
-     * @return rules list
+     * @return rules set
      */
-    private List<Class<? extends IRule>> getDependentMethodsRules(String methodName) {
+    private Set<Class<? extends IRule>> getDependentMethodsRules(String methodName) {
         int indexDot = methodName.lastIndexOf(".");
         String clazz = methodName.substring(0, indexDot);
         String shortName = methodName.substring(indexDot + 1);
-        List<Class<? extends IRule>> rules = new ArrayList<>();
+        Set<Class<? extends IRule>> rules = new LinkedHashSet<>();
         try {
             LOGGER.debug("Extracted class name: ".concat(clazz));
             Class<?> testClass = Class.forName(clazz);
@@ -143,7 +271,7 @@ public class ExpectedSkipManager {
         } catch (ClassNotFoundException e) {
             LOGGER.error("Error during class initialization: ".concat(e.getMessage()));
         }
-        return rules;
+        return Collections.unmodifiableSet(rules);
     }
 
 }
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.skip;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.internal.ConstructorOrMethod;
+
+import com.qaprosoft.carina.core.foundation.rule.DeterministicRule;
+import com.qaprosoft.carina.core.foundation.rule.IRule;
+import com.qaprosoft.carina.core.foundation.rule.StatefulRule;
+
+public class ExpectedSkipManagerTest {
+
+    private static final Set<Class<? extends IRule>> EVALUATED = ConcurrentHashMap.newKeySet();
+
+    public static class AlwaysRule implements IRule {
+        @Override
+        public boolean isPerform() {
+            EVALUATED.add(getClass());
+            return true;
+        }
+    }
+
+    public static class NeverRule implements IRule {
+        @Override
+        public boolean isPerform() {
+            EVALUATED.add(getClass());
+            return false;
+        }
+    }
+
+    @StatefulRule
+    public static class StatefulCounterRule implements IRule {
+        private static final Set<IRule> INSTANCES = ConcurrentHashMap.newKeySet();
+
+        private int calls = 0;
+
+        @Override
+        public boolean isPerform() {
+            INSTANCES.add(this);
+            calls++;
+            return false;
+        }
+    }
+
+    @DeterministicRule
+    public static class DeterministicCounterRule implements IRule {
+        private static final AtomicInteger CALLS = new AtomicInteger();
+
+        @Override
+        public boolean isPerform() {
+            CALLS.incrementAndGet();
+            return false;
+        }
+    }
+
+    @ExpectedSkip(rules = NeverRule.class)
+    public static class AnnotatedTests {
+
+        @ExpectedSkip(rules = AlwaysRule.class)
+        public void skipped() {
+        }
+
+        public void executed() {
+        }
+    }
+
+    public static class DependentTests {
+
+        @ExpectedSkip(rules = AlwaysRule.class)
+        public void root() {
+        }
+
+        public void child() {
+        }
+
+        public void grandChild() {
+        }
+
+        public void first() {
+        }
+
+        public void second() {
+        }
+
+        public void independent() {
+        }
+
+        @ExpectedSkip(rules = AlwaysRule.class)
+        public void unregistered() {
+        }
+
+        @ExpectedSkip(rules = StatefulCounterRule.class)
+        public void stateful() {
+        }
+
+        @ExpectedSkip(rules = DeterministicCounterRule.class)
+        public void deterministic() {
+        }
+    }
+
+    private final ExpectedSkipManager manager = ExpectedSkipManager.getInstance();
+
+    @BeforeMethod(alwaysRun = true)
+    public void resetEvaluatedRules() {
+        EVALUATED.clear();
+    }
+
+    @Test()
+    public void testClassAndMethodRulesAreCombined() throws Exception {
+        ITestContext context = createContext(createMethod(AnnotatedTests.class, "skipped"), createMethod(AnnotatedTests.class, "executed"));
+
+        Assert.assertTrue(manager.isSkip(AnnotatedTests.class.getMethod("skipped"), context), "Method rule should skip the test!");
+        Assert.assertTrue(EVALUATED.contains(NeverRule.class), "Class rule wasn't evaluated!");
+        Assert.assertTrue(EVALUATED.contains(AlwaysRule.class), "Method rule wasn't evaluated!");
+
+        EVALUATED.clear();
+        Assert.assertFalse(manager.isSkip(AnnotatedTests.class.getMethod("executed"), context), "Only class rule should be applied!");
+        Assert.assertTrue(EVALUATED.contains(NeverRule.class), "Class rule wasn't evaluated!");
+        Assert.assertFalse(EVALUATED.contains(AlwaysRule.class), "Rule of another method was evaluated!");
+    }
+
+    @Test()
+    public void testTransitiveDependencyRulesAreCollected() throws Exception {
+        ITestContext context = createContext(createMethod(DependentTests.class, "root"),
+                createMethod(DependentTests.class, "child", "root"),
+                createMethod(DependentTests.class, "grandChild", "child"),
+                createMethod(DependentTests.class, "independent"));
+
+        Assert.assertTrue(manager.isSkip(DependentTests.class.getMethod("grandChild"), context),
+                "Rule of transitive dependency should skip the test!");
+        Assert.assertTrue(manager.isSkip(DependentTests.class.getMethod("child"), context), "Rule of dependency should skip the test!");
+
+        EVALUATED.clear();
+        Assert.assertFalse(manager.isSkip(DependentTests.class.getMethod("independent"), context), "Independent test shouldn't be skipped!");
+        Assert.assertTrue(EVALUATED.isEmpty(), "Rules were evaluated for method without rules: " + EVALUATED);
+    }
+
+    @Test(timeOut = 10000)
+    public void testDependencyCycleIsResolved() throws Exception {
+        ITestContext context = createContext(createMethod(DependentTests.class, "root"),
+                createMethod(DependentTests.class, "first", "second"),
+                createMethod(DependentTests.class, "second", "first", "root"));
+
+        Assert.assertTrue(manager.isSkip(DependentTests.class.getMethod("first"), context), "Rule behind the cycle should skip the test!");
+        Assert.assertTrue(manager.isSkip(DependentTests.class.getMethod("second"), context), "Rule of dependency should skip the test!");
+    }
+
+    @Test()
+    public void testMethodMissingFromContextUsesOwnRules() throws Exception {
+        ITestContext context = createContext(createMethod(DependentTests.class, "independent"));
+
+        Assert.assertTrue(manager.isSkip(DependentTests.class.getMethod("unregistered"), context),
+                "Own rule of method missing from the context should skip the test!");
+        Assert.assertFalse(manager.isSkip(DependentTests.class.getMethod("child"), context),
+                "Dependencies of method missing from the context are unknown!");
+    }
+
+    @Test()
+    public void testStatefulRuleIsInstantiatedPerThread() throws Exception {
+        Method method = DependentTests.class.getMethod("stateful");
+        ITestContext context = createContext(createMethod(DependentTests.class, "stateful"));
+
+        manager.isSkip(method, context);
+        manager.isSkip(method, context);
+        Assert.assertEquals(StatefulCounterRule.INSTANCES.size(), 1, "Stateful rule should be reused within the thread!");
+        StatefulCounterRule current = (StatefulCounterRule) StatefulCounterRule.INSTANCES.iterator().next();
+        Assert.assertEquals(current.calls, 2);
+
+        AtomicBoolean skipped = new AtomicBoolean(true);
+        Thread thread = new Thread(() -> skipped.set(manager.isSkip(method, context)));
+        thread.start();
+        thread.join();
+
+        Assert.assertFalse(skipped.get());
+        Assert.assertEquals(StatefulCounterRule.INSTANCES.size(), 2, "Stateful rule should be instantiated per thread!");
+        Assert.assertEquals(current.calls, 2, "Stateful rule instance was shared with another thread!");
+    }
+
+    @Test()
+    public void testDeterministicRuleIsCalculatedOncePerContext() throws Exception {
+        Method method = DependentTests.class.getMethod("deterministic");
+        ITestContext context = createContext(createMethod(DependentTests.class, "deterministic"));
+        int calls = DeterministicCounterRule.CALLS.get();
+
+        manager.isSkip(method, context);
+        manager.isSkip(method, context);
+        Assert.assertEquals(DeterministicCounterRule.CALLS.get(), calls + 1, "Deterministic rule should be calculated once per context!");
+
+        manager.isSkip(method, createContext(createMethod(DependentTests.class, "deterministic")));
+        Assert.assertEquals(DeterministicCounterRule.CALLS.get(), calls + 2, "Deterministic rule should be calculated for new context!");
+
+        manager.clear(context);
+        manager.isSkip(method, context);
+        Assert.assertEquals(DeterministicCounterRule.CALLS.get(), calls + 3, "Deterministic result should be released with context!");
+    }
+
+    private static ITestNGMethod createMethod(Class<?> clazz, String name, String... dependsOn) throws NoSuchMethodException {
+        ConstructorOrMethod method = new ConstructorOrMethod(clazz.getMethod(name));
+        String[] dependencies = new String[dependsOn.length];
+        for (int i = 0; i < dependsOn.length; i++) {
+            dependencies[i] = clazz.getName() + "." + dependsOn[i];
+        }
+        return (ITestNGMethod) Proxy.newProxyInstance(ITestNGMethod.class.getClassLoader(), new Class<?>[] { ITestNGMethod.class },
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                    case "getRealClass":
+                        return clazz;
+                    case "getMethodName":
+                        return name;
+                    case "getConstructorOrMethod":
+                        return method;
+                    case "getMethodsDependedUpon":
+                        return dependencies;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    private static ITestContext createContext(ITestNGMethod... methods) {
+        return (ITestContext) Proxy.newProxyInstance(ITestContext.class.getClassLoader(), new Class<?>[] { ITestContext.class },
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                    case "getAllTestMethods":
+                        return methods;
+                    case "getName":
+                        return "skip";
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                    }
+                });
+    }
+}
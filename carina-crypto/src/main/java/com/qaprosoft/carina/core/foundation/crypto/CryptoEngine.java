@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.crypto;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+
+/**
+ * Process-wide crypto service. The secret key is loaded from disk once per key file (and reloaded only when the file
+ * is modified, modification is checked at most once per second), ciphers are confined to the calling thread and decrypted values are memoized in a bounded LRU cache.
+ */
+public final class CryptoEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    static final int MAX_CACHED_VALUES = 1000;
+    static final long KEY_CHECK_INTERVAL = 1000;
+
+    private static final Map<String, CryptoEngine> ENGINES = new ConcurrentHashMap<>();
+
+    private final String algorithm;
+    private final Key key;
+    private final long keyModified;
+    private volatile long keyChecked;
+
+    private final ThreadLocal<Cipher> cipher;
+
+    private final Map<String, String> decrypted = Collections.synchronizedMap(
+            new LinkedHashMap<String, String>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_CACHED_VALUES;
+                }
+            });
+
+    private CryptoEngine(String algorithm, Key key, long keyModified) {
+        this.algorithm = algorithm;
+        this.key = key;
+        this.keyModified = keyModified;
+        this.keyChecked = System.currentTimeMillis();
+        this.cipher = ThreadLocal.withInitial(() -> {
+            try {
+                return Cipher.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+                throw new RuntimeException("Unable to initialize cipher for '" + algorithm + "' algorithm! " + e.getMessage(), e);
+            }
+        });
+    }
+
+    public static CryptoEngine getInstance() {
+        return getInstance(SpecialKeywords.CRYPTO_KEY_PATH);
+    }
+
+    public static CryptoEngine getInstance(String cryptoKeyPath) {
+        return getInstance(SpecialKeywords.CRYPTO_ALGORITHM, SpecialKeywords.CRYPTO_KEY_TYPE, cryptoKeyPath);
+    }
+
+    public static CryptoEngine getInstance(String cryptoAlgorithm, String cryptoKeyType, String cryptoKeyPath) {
+        File keyFile = new File(cryptoKeyPath);
+        String id = cryptoAlgorithm + ":" + cryptoKeyType + ":" + keyFile.getAbsolutePath();
+        long now = System.currentTimeMillis();
+
+        CryptoEngine engine = ENGINES.get(id);
+        if (engine != null && now - engine.keyChecked < KEY_CHECK_INTERVAL) {
+            return engine;
+        }
+
+        long modified = keyFile.lastModified();
+        if (engine != null && engine.keyModified == modified) {
+            engine.keyChecked = now;
+            return engine;
+        }
+
+        Key key = loadKey(keyFile, cryptoKeyType);
+        if (key == null) {
+            // failure isn't cached so the key is loaded again by the next call
+            return new CryptoEngine(cryptoAlgorithm, null, modified);
+        }
+        return ENGINES.compute(id, (k, current) -> {
+            if (current != null && current.keyModified == modified) {
+                return current;
+            }
+            return new CryptoEngine(cryptoAlgorithm, key, modified);
+        });
+    }
+
+    private static Key loadKey(File keyFile, String cryptoKeyType) {
+        try {
+            LOGGER.debug("Loading crypto key from '" + keyFile.getAbsolutePath() + "'");
+            return SecretKeyManager.loadKey(keyFile, cryptoKeyType);
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public String encrypt(String strToEncrypt) {
+        try {
+            Cipher c = cipher.get();
+            c.init(Cipher.ENCRYPT_MODE, key);
+            return new String(Base64.encodeBase64(c.doFinal(strToEncrypt.getBytes())));
+        } catch (Exception e) {
+            throw new RuntimeException("Error while encrypting, check your crypto key! " + e.getMessage(), e);
+        }
+    }
+
+    public String decrypt(String strToDecrypt) {
+        String value = decrypted.get(strToDecrypt);
+        if (value == null) {
+            try {
+                Cipher c = cipher.get();
+                c.init(Cipher.DECRYPT_MODE, key);
+                value = new String(c.doFinal(Base64.decodeBase64(strToDecrypt.getBytes())));
+            } catch (Exception e) {
+                throw new RuntimeException("Error while decrypting, check your crypto key! " + e.getMessage(), e);
+            }
+            decrypted.put(strToDecrypt, value);
+        }
+        return value;
+    }
+
+    public String decryptByPattern(String content, Pattern pattern) {
+        String wildcard = pattern.pattern().substring(pattern.pattern().indexOf("{") + 1,
+                pattern.pattern().indexOf(":"));
+        if (content != null && content.contains(wildcard)) {
+            Matcher matcher = pattern.matcher(content);
+            while (matcher.find()) {
+                String group = matcher.group();
+                String crypt = StringUtils.removeStart(group, "{" + wildcard + ":").replace("}", "");
+                content = StringUtils.replace(content, group, decrypt(crypt));
+            }
+        }
+        if (content == null) {
+            // fix potential null pointer exception in doType
+            content = "";
+        }
+        return content;
+    }
+
+    int getCachedValuesCount() {
+        return decrypted.size();
+    }
+
+}
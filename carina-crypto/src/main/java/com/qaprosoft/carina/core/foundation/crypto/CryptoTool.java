@@ -15,8 +15,6 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.crypto;
 
-import java.io.File;
-import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
@@ -39,6 +37,7 @@ public class CryptoTool {
     private String algorithm;
     private Cipher cipher;
     private Key key;
+    private CryptoEngine engine;
 
     public CryptoTool(String cryptoAlgorithm, String cryptoKeyType, Key key) {
         this.algorithm = cryptoAlgorithm;
@@ -63,11 +62,9 @@ public class CryptoTool {
     public CryptoTool(String cryptoAlgorithm, String cryptoKeyType, String cryptoKeyPath) {
         this.algorithm = cryptoAlgorithm;
 
-        try {
-            this.key = SecretKeyManager.loadKey(new File(cryptoKeyPath), cryptoKeyType);
-        } catch (IOException e) {
-            LOGGER.error(e.getMessage(), e);
-        }
+        // key is loaded once per key file and shared across all CryptoTool instances
+        this.engine = CryptoEngine.getInstance(cryptoAlgorithm, cryptoKeyType, cryptoKeyPath);
+        this.key = engine.getKey();
         try {
             this.cipher = Cipher.getInstance(algorithm);
         } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
@@ -113,6 +110,9 @@ public class CryptoTool {
     }
 
     public String decryptByPattern(String content, Pattern pattern) {
+        if (engine != null) {
+            return engine.decryptByPattern(content, pattern);
+        }
         String wildcard = pattern.pattern().substring(pattern.pattern().indexOf("{") + 1,
                 pattern.pattern().indexOf(":"));
         if (content != null && content.contains(wildcard)) {
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.crypto;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+
+/**
+ * Compares per-call {@link CryptoTool} construction (legacy ExtendedWebElement/R behavior) with the shared
+ * {@link CryptoEngine}. Run from the module directory: build test classes and execute {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoEngineBenchmark {
+    private static final Pattern CRYPTO_PATTERN = Pattern.compile(SpecialKeywords.CRYPT);
+    private static final String KEY_PATH = "./src/test/resources/crypto.key";
+
+    private String content;
+
+    @Setup
+    public void setup() {
+        content = String.format("{crypt:%s}", new CryptoTool(KEY_PATH).encrypt("EncryptMe"));
+    }
+
+    @Benchmark
+    public String newCryptoToolPerCall() {
+        return new CryptoTool(SpecialKeywords.CRYPTO_ALGORITHM, SpecialKeywords.CRYPTO_KEY_TYPE,
+                loadKey(KEY_PATH)).decryptByPattern(content, CRYPTO_PATTERN);
+    }
+
+    @Benchmark
+    public String sharedCryptoEngine() {
+        return CryptoEngine.getInstance(KEY_PATH).decryptByPattern(content, CRYPTO_PATTERN);
+    }
+
+    private static Key loadKey(String path) {
+        // legacy behavior: key file is read from disk on each call
+        try {
+            return SecretKeyManager.loadKey(new File(path), SpecialKeywords.CRYPTO_KEY_TYPE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CryptoEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
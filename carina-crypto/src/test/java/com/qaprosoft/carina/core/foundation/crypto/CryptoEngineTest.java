@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.crypto;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+
+/**
+ * Tests for {@link CryptoEngine}
+ */
+public class CryptoEngineTest {
+    private static final Pattern CRYPTO_PATTERN = Pattern.compile(SpecialKeywords.CRYPT);
+    private static final String KEY_PATH = "./src/test/resources/crypto.key";
+
+    @Test
+    public void testSharedInstance() {
+        CryptoEngine engine = CryptoEngine.getInstance(KEY_PATH);
+        Assert.assertSame(CryptoEngine.getInstance(KEY_PATH), engine);
+        Assert.assertEquals(new CryptoTool(KEY_PATH).decryptByPattern("plain", CRYPTO_PATTERN), "plain");
+        Assert.assertNotNull(engine.getKey());
+    }
+
+    @Test
+    public void testFailedKeyIsNotCached() throws Exception {
+        File dir = Files.createTempDirectory("crypto").toFile();
+        try {
+            File keyFile = new File(dir, "crypto.key");
+            Assert.assertNull(CryptoEngine.getInstance(keyFile.getPath()).getKey(), "Missing key shouldn't be loaded!");
+
+            SecretKeyManager.saveKey(SecretKeyManager.generateKey(SpecialKeywords.CRYPTO_KEY_TYPE, SpecialKeywords.CRYPTO_KEY_SIZE), keyFile);
+            CryptoEngine engine = CryptoEngine.getInstance(keyFile.getPath());
+            Assert.assertNotNull(engine.getKey(), "Key wasn't loaded after it was created!");
+            Assert.assertEquals(engine.decrypt(engine.encrypt("value")), "value");
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void testDecryptByPattern() {
+        CryptoEngine engine = CryptoEngine.getInstance(KEY_PATH);
+        String encrypted = String.format("{crypt:%s}", engine.encrypt("EncryptMe"));
+        Assert.assertEquals(engine.decryptByPattern("login " + encrypted, CRYPTO_PATTERN), "login EncryptMe");
+        Assert.assertEquals(new CryptoTool(KEY_PATH).decryptByPattern(encrypted, CRYPTO_PATTERN), "EncryptMe");
+        Assert.assertEquals(engine.decryptByPattern(null, CRYPTO_PATTERN), "");
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        CryptoEngine engine = CryptoEngine.getInstance(KEY_PATH);
+        for (int i = 0; i < CryptoEngine.MAX_CACHED_VALUES + 10; i++) {
+            engine.decrypt(engine.encrypt("value" + i));
+        }
+        Assert.assertTrue(engine.getCachedValuesCount() <= CryptoEngine.MAX_CACHED_VALUES);
+    }
+
+    @Test
+    public void testParallelDecrypt() throws Exception {
+        CryptoEngine engine = CryptoEngine.getInstance(KEY_PATH);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final String value = "parallel" + i;
+                results.add(executor.submit((Callable<Boolean>) () -> value.equals(engine.decrypt(engine.encrypt(value)))));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -62,4 +62,10 @@ public @interface XlsDataSourceParameters {
     String bugColumn() default "";
 
     String[] doNotRunTestNames() default {};
+
+    /**
+     * Read .xlsx sheet row by row without loading whole workbook into memory. Cell links (FK_LINK_ columns) are not
+     * supported in this mode.
+     */
+    boolean streaming() default false;
 }
@@ -20,10 +20,16 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
@@ -44,6 +50,9 @@ public class DataProviderFactory {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    // lazy data provider iterators which are not read till the end yet
+    private static final Map<ITestContext, Set<DataProviderIterator>> openIterators = Collections.synchronizedMap(new WeakHashMap<>());
+
     private DataProviderFactory() {
     }
 
@@ -58,32 +67,8 @@ public class DataProviderFactory {
 
         for (Annotation annotation : annotations) {
             try {
-                Class<? extends Annotation> type = annotation.annotationType();
-
-                String providerClass = "";
-
-                for (Method method : type.getDeclaredMethods()) {
-                    if (method.getName().equalsIgnoreCase("classname")) {
-                        providerClass = (String) method.invoke(annotation);
-                        break;
-                    }
-                }
-
-                if (providerClass.isEmpty())
-                    continue;
-
-                Class<?> clazz;
-                Object object = null;
-                try {
-                    clazz = Class.forName(providerClass);
-                    Constructor<?> ctor = clazz.getConstructor();
-                    object = ctor.newInstance();
-                } catch (Exception e) {
-                    LOGGER.error("DataProvider failure", e);
-                }
-
-                if (object instanceof com.qaprosoft.carina.core.foundation.dataprovider.core.impl.BaseDataProvider) {
-                    BaseDataProvider activeProvider = (BaseDataProvider) object;
+                BaseDataProvider activeProvider = createDataProvider(annotation);
+                if (activeProvider != null) {
                     provider = ArrayUtils.addAll(provider, activeProvider.getDataProvider(annotation, context, m));
                     testNameArgsMap.putAll(activeProvider.getTestNameArgsMap());
                     testMethodOwnerArgsMap.putAll(activeProvider.getTestMethodOwnerArgsMap());
@@ -109,6 +94,164 @@ public class DataProviderFactory {
         return provider;
     }
 
+    /**
+     * Get data provider rows on demand. Rows of all data sources are produced one by one while TestNG iterates
+     * so huge data sources are never loaded into memory at once. Grouped data sources are loaded entirely.
+     * Data sources are closed when all rows are read or by {@link #closeDataProviderIterators(ITestContext)}.
+     *
+     * @param annotations Annotation[] of test method
+     * @param context ITestContext
+     * @param m ITestNGMethod
+     * @return Iterator of test arguments
+     */
+    public static Iterator<Object[]> getDataProviderIterator(Annotation[] annotations, ITestContext context, ITestNGMethod m) {
+        Map<String, String> testNameArgsMap = Collections.synchronizedMap(new HashMap<>());
+
+        List<BaseDataProvider> providers = new ArrayList<>();
+        List<Iterator<Object[]>> iterators = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            try {
+                BaseDataProvider activeProvider = createDataProvider(annotation);
+                if (activeProvider != null) {
+                    iterators.add(activeProvider.getDataProviderIterator(annotation, context, m));
+                    providers.add(activeProvider);
+                }
+            } catch (Exception e) {
+                LOGGER.error("DataProvider failure", e);
+            }
+        }
+
+        context.setAttribute(SpecialKeywords.TEST_NAME_ARGS_MAP, testNameArgsMap);
+
+        if (!GroupByMapper.getInstanceInt().isEmpty() || !GroupByMapper.getInstanceStrings().isEmpty()) {
+            // grouping requires all rows
+            Object[][] provider = new Object[][] {};
+            for (Iterator<Object[]> iterator : iterators) {
+                List<Object[]> rows = new ArrayList<>();
+                iterator.forEachRemaining(rows::add);
+                provider = ArrayUtils.addAll(provider, rows.toArray(new Object[rows.size()][]));
+            }
+            for (BaseDataProvider activeProvider : providers) {
+                testNameArgsMap.putAll(activeProvider.getTestNameArgsMap());
+            }
+
+            // clear group by settings
+            GroupByMapper.getInstanceInt().clear();
+            GroupByMapper.getInstanceStrings().clear();
+
+            return Arrays.asList(getGroupedList(provider)).iterator();
+        }
+
+        Set<DataProviderIterator> contextIterators = openIterators.computeIfAbsent(context, k -> ConcurrentHashMap.newKeySet());
+        DataProviderIterator iterator = new DataProviderIterator(providers, iterators, testNameArgsMap, contextIterators);
+        contextIterators.add(iterator);
+        return iterator;
+    }
+
+    /**
+     * Close data sources of lazy data providers which were not read till the end, i.e. when test run is interrupted.
+     *
+     * @param context ITestContext
+     */
+    public static void closeDataProviderIterators(ITestContext context) {
+        Set<DataProviderIterator> iterators = openIterators.remove(context);
+        if (iterators != null) {
+            iterators.forEach(DataProviderIterator::close);
+        }
+    }
+
+    private static BaseDataProvider createDataProvider(Annotation annotation) throws Exception {
+        Class<? extends Annotation> type = annotation.annotationType();
+
+        String providerClass = "";
+
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.getName().equalsIgnoreCase("classname")) {
+                providerClass = (String) method.invoke(annotation);
+                break;
+            }
+        }
+
+        if (providerClass.isEmpty())
+            return null;
+
+        Class<?> clazz;
+        Object object = null;
+        try {
+            clazz = Class.forName(providerClass);
+            Constructor<?> ctor = clazz.getConstructor();
+            object = ctor.newInstance();
+        } catch (Exception e) {
+            LOGGER.error("DataProvider failure", e);
+        }
+
+        if (object instanceof com.qaprosoft.carina.core.foundation.dataprovider.core.impl.BaseDataProvider) {
+            return (BaseDataProvider) object;
+        }
+        return null;
+    }
+
+    /**
+     * Produces rows of all data sources one by one and registers test name of each row.
+     */
+    private static final class DataProviderIterator implements Iterator<Object[]>, AutoCloseable {
+        private final List<BaseDataProvider> providers;
+        private final List<Iterator<Object[]>> iterators;
+        private final Map<String, String> testNameArgsMap;
+        private final Set<DataProviderIterator> owner;
+        private int current = 0;
+
+        private DataProviderIterator(List<BaseDataProvider> providers, List<Iterator<Object[]>> iterators,
+                Map<String, String> testNameArgsMap, Set<DataProviderIterator> owner) {
+            this.providers = providers;
+            this.iterators = iterators;
+            this.testNameArgsMap = testNameArgsMap;
+            this.owner = owner;
+        }
+
+        @Override
+        public synchronized boolean hasNext() {
+            while (current < iterators.size()) {
+                if (iterators.get(current).hasNext()) {
+                    return true;
+                }
+                current++;
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        public synchronized Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = iterators.get(current).next();
+            // test name of the row is registered by data provider when row is produced
+            String hashCode = String.valueOf(Arrays.hashCode(row));
+            String testName = providers.get(current).getTestNameArgsMap().get(hashCode);
+            if (testName != null) {
+                testNameArgsMap.put(hashCode, testName);
+            }
+            return row;
+        }
+
+        @Override
+        public synchronized void close() {
+            owner.remove(this);
+            for (int i = current; i < iterators.size(); i++) {
+                if (iterators.get(i) instanceof AutoCloseable) {
+                    try {
+                        ((AutoCloseable) iterators.get(i)).close();
+                    } catch (Exception e) {
+                        LOGGER.debug("Unable to close data provider", e);
+                    }
+                }
+            }
+            current = iterators.size();
+        }
+    }
+
     private static Object[][] getGroupedList(Object[][] provider) {
         Object[][] finalProvider;
         if (GroupByMapper.isHashMapped()) {
@@ -16,8 +16,10 @@
 package com.qaprosoft.carina.core.foundation.dataprovider.core.impl;
 
 import java.lang.annotation.Annotation;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -46,6 +48,19 @@ public abstract class BaseDataProvider {
 
     public abstract Object[][] getDataProvider(Annotation annotation, ITestContext context, ITestNGMethod testMethod);
 
+    /**
+     * Get rows of data provider on demand. Special maps are updated for each row when it is produced.
+     * Default implementation loads all rows at once.
+     *
+     * @param annotation data source annotation
+     * @param context ITestContext
+     * @param testMethod ITestNGMethod
+     * @return Iterator of test arguments
+     */
+    public Iterator<Object[]> getDataProviderIterator(Annotation annotation, ITestContext context, ITestNGMethod testMethod) {
+        return Arrays.asList(getDataProvider(annotation, context, testMethod)).iterator();
+    }
+
     protected static Object getStaticParam(String name, ITestContext context, DSBean dsBean) {
         return ParameterGenerator.process(dsBean
                 .getTestParams().get(name));
@@ -15,16 +15,20 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.dataprovider.core.impl;
 
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.annotation.Annotation;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +44,11 @@ import au.com.bytecode.opencsv.CSVReader;
 
 /**
  * Created by Patotsky on 16.12.2014.
+ *
+ * CSV is read line by line: rows are filtered by executeColumn/executeValue while parsing and placeholders are
+ * processed only once per used cell. {@link #getDataProviderIterator(Annotation, ITestContext, ITestNGMethod)}
+ * produces rows on demand so whole file is never kept in memory. CSV file is closed when all rows are read, the
+ * iterator is {@link AutoCloseable} to close it earlier.
  */
 public class CsvDataProvider extends BaseDataProvider {
 
@@ -54,9 +63,15 @@ public class CsvDataProvider extends BaseDataProvider {
     private String testMethodOwnerColumn;
     private String bugColumn;
 
-    @SuppressWarnings("unchecked")
     @Override
     public Object[][] getDataProvider(Annotation annotation, ITestContext context, ITestNGMethod testMethod) {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        getDataProviderIterator(annotation, context, testMethod).forEachRemaining(rows::add);
+        return rows.toArray(new Object[rows.size()][]);
+    }
+
+    @Override
+    public Iterator<Object[]> getDataProviderIterator(Annotation annotation, ITestContext context, ITestNGMethod testMethod) {
         CsvDataSourceParameters parameters = (CsvDataSourceParameters) annotation;
         doNotRunTestNames = Arrays.asList(parameters.doNotRunTestNames());
 
@@ -92,106 +107,185 @@ public class CsvDataProvider extends BaseDataProvider {
         if (parameters.dsArgs().isEmpty()) {
             GroupByMapper.setIsHashMapped(true);
         }
-        CSVReader reader;
-        List<String[]> list = new ArrayList<String[]>();
 
+        CSVReader reader = null;
+        String[] headerLine = null;
         try {
-            String csvFile = ClassLoader.getSystemResource(dsBean.getDsFile()).getFile();
-            reader = new CSVReader(new FileReader(csvFile), separator, quote);
-            list = reader.readAll();
+            // resource is read as stream so it can be located inside jar as well
+            InputStream csvFile = ClassLoader.getSystemResourceAsStream(dsBean.getDsFile());
+            if (csvFile == null) {
+                throw new IOException("Unable to find " + dsBean.getDsFile() + " in classpath!");
+            }
+            reader = new CSVReader(new InputStreamReader(csvFile), separator, quote);
+            headerLine = reader.readNext();
         } catch (IOException e) {
             LOGGER.error("Unable to read data from CSV DataProvider", e);
         }
 
-        if (list.size() == 0) {
+        if (headerLine == null) {
+            closeQuietly(reader);
             throw new RuntimeException("Unable to retrieve data from CSV DataProvider! Verify separator and quote settings.");
         }
-        List<String> headers = Arrays.asList((String[]) list.get(0));
+        List<String> headers = Arrays.asList(headerLine);
 
         // handle empty argsList inside initMapper
-        mapper = initMapper(argsList, headers);
-        list.remove(0);
+        try {
+            mapper = initMapper(argsList, headers);
+        } catch (RuntimeException e) {
+            closeQuietly(reader);
+            throw e;
+        }
 
-        // exclude those lines which don't satisfy executeColumn/executeValue filter
-        Iterator<String[]> iter = list.iterator();
-        while (iter.hasNext()) {
-            int index = mapper.get(executeColumn);
+        return new RowIterator(reader, headers, argsList, staticArgsList, context, dsBean);
+    }
 
-            String[] line = iter.next();
-            if (!line[index].equalsIgnoreCase(executeValue)) {
-                iter.remove();
+    /**
+     * Reads and filters CSV lines on demand and converts them into data provider rows.
+     */
+    private class RowIterator implements Iterator<Object[]>, AutoCloseable {
+        private final CSVReader reader;
+        private final List<String> argsList;
+        private final List<String> staticArgsList;
+        private final ITestContext context;
+        private final DSBean dsBean;
+
+        private final int executeIndex;
+        // header name and column index for each entry of dynamic HashMap
+        private final String[] dynamicHeaders;
+        private final int[] dynamicIndexes;
+        // columns whose values are used by the row, placeholders are processed only for them
+        private final int[] usedIndexes;
+        private final int width;
+
+        private String[] nextLine;
+        private boolean finished;
+
+        private RowIterator(CSVReader reader, List<String> headers, List<String> argsList, List<String> staticArgsList,
+                ITestContext context, DSBean dsBean) {
+            this.reader = reader;
+            this.argsList = argsList;
+            this.staticArgsList = staticArgsList;
+            this.context = context;
+            this.dsBean = dsBean;
+            this.executeIndex = mapper.get(executeColumn);
+
+            Set<Integer> used = new LinkedHashSet<Integer>();
+            if (argsList.size() == 0) {
+                // first element is dynamic HashMap<String, String>
+                dynamicHeaders = headers.toArray(new String[headers.size()]);
+                dynamicIndexes = new int[dynamicHeaders.length];
+                for (int i = 0; i < dynamicHeaders.length; i++) {
+                    dynamicIndexes[i] = mapper.get(dynamicHeaders[i]);
+                    used.add(dynamicIndexes[i]);
+                }
+                width = staticArgsList.size() + 1;
+            } else {
+                dynamicHeaders = null;
+                dynamicIndexes = null;
+                for (String arg : argsList) {
+                    used.add(mapper.get(arg));
+                }
+                width = argsList.size() + staticArgsList.size();
+            }
+            for (String column : Arrays.asList(testMethodColumn, testMethodOwnerColumn, testRailColumn)) {
+                if (!column.isEmpty()) {
+                    used.add(mapper.get(column));
+                }
             }
+            usedIndexes = used.stream().mapToInt(Integer::intValue).toArray();
         }
 
-        int listSize = list.size();
+        @Override
+        public boolean hasNext() {
+            if (nextLine == null && !finished) {
+                nextLine = readNextLine();
+            }
+            return nextLine != null;
+        }
 
-        int width = 0;
-        if (argsList.size() == 0) {
-            // first element is dynamic HashMap<String, String>
-            width = staticArgsList.size() + 1;
-        } else {
-            width = argsList.size() + staticArgsList.size();
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String[] line = nextLine;
+            nextLine = null;
+            try {
+                return createRow(line);
+            } catch (RuntimeException e) {
+                // TestNG stops iteration on failure
+                close();
+                throw e;
+            }
         }
 
-        Object[][] args = new Object[listSize][width];
-        int rowIndex = 0;
-        for (String[] strings : list) {
-            String testName = context.getName();
+        @Override
+        public void close() {
+            finished = true;
+            nextLine = null;
+            closeQuietly(reader);
+        }
 
-            int i = 0;
-            if (argsList.size() == 0) {
-                // read all csv data into the single HashMap<String, String> object
-                HashMap<String, String> dynamicAttrs = new HashMap<String, String>();
-
-                for (String header : headers) {
-                    int index = mapper.get(header);
-                    if (ParameterGenerator.process(strings[index]) != null) {
-                        dynamicAttrs.put(header, ParameterGenerator.process(strings[index]).toString());
-                    } else {
-                        dynamicAttrs.put(header, null);
+        private String[] readNextLine() {
+            try {
+                String[] line;
+                while ((line = reader.readNext()) != null) {
+                    // exclude those lines which don't satisfy executeColumn/executeValue filter
+                    if (executeIndex == -1 || line[executeIndex].equalsIgnoreCase(executeValue)) {
+                        return line;
                     }
-
-                    args[rowIndex][0] = dynamicAttrs;
                 }
+            } catch (IOException e) {
+                LOGGER.error("Unable to read data from CSV DataProvider", e);
+            }
+            close();
+            return null;
+        }
+
+        private Object[] createRow(String[] line) {
+            String[] values = new String[line.length];
+            for (int index : usedIndexes) {
+                Object param = ParameterGenerator.process(line[index]);
+                values[index] = param != null ? param.toString() : null;
+            }
 
-                i++;
+            Object[] row = new Object[width];
+            int i = 0;
+            if (dynamicHeaders != null) {
+                // read all csv data into the single HashMap<String, String> object
+                HashMap<String, String> dynamicAttrs = new HashMap<String, String>(dynamicHeaders.length * 4 / 3 + 1);
+                for (int j = 0; j < dynamicHeaders.length; j++) {
+                    dynamicAttrs.put(dynamicHeaders[j], values[dynamicIndexes[j]]);
+                }
+                row[i++] = dynamicAttrs;
             } else {
                 for (String arg : argsList) {
-                    int index = mapper.get(arg);
-                    if (ParameterGenerator.process(strings[index]) != null) {
-                        args[rowIndex][i] = ParameterGenerator.process(strings[index]).toString();
-                    } else {
-                        args[rowIndex][i] = null;
-                    }
-                    i++;
+                    row[i++] = values[mapper.get(arg)];
                 }
             }
 
             for (int j = 0; j < staticArgsList.size(); j++) {
-                args[rowIndex][i + j] = getStaticParam(staticArgsList.get(j), context, dsBean);
+                row[i + j] = getStaticParam(staticArgsList.get(j), context, dsBean);
             }
 
             // update testName adding UID values from DataSource arguments if any
-            testName = dsBean.setDataSorceUUID(testName, strings, mapper); // provide whole line from data provider for UUID generation
+            String testName = dsBean.setDataSorceUUID(context.getName(), line, mapper); // provide whole line from data provider for UUID generation
 
-            HashMap<String, String> csvRow = (HashMap<String, String>) args[rowIndex][0];
-            
-            testNameArgsMap.put(String.valueOf(Arrays.hashCode(args[rowIndex])), testName);
+            String hashCode = String.valueOf(Arrays.hashCode(row));
+            testNameArgsMap.put(hashCode, testName);
             if (!testMethodColumn.isEmpty()) {
-                // override testName value from xls datasource to special hashMap
-                addValueToSpecialMap(testNameArgsMap, testMethodColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+                // override testName value from csv datasource to special hashMap
+                addValueToSpecialMap(testNameArgsMap, testMethodColumn, hashCode, values);
             }
 
-            // add testMethoOwner from xls datasource to special hashMap
-            addValueToSpecialMap(testMethodOwnerArgsMap, testMethodOwnerColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+            // add testMethoOwner from csv datasource to special hashMap
+            addValueToSpecialMap(testMethodOwnerArgsMap, testMethodOwnerColumn, hashCode, values);
 
-            // add testrails cases from xls datasource to special hashMap
-            addValueToSpecialMap(testRailsArgsMap, testRailColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+            // add testrails cases from csv datasource to special hashMap
+            addValueToSpecialMap(testRailsArgsMap, testRailColumn, hashCode, values);
 
-            rowIndex++;
+            return row;
         }
-
-        return args;
     }
 
     /*
@@ -239,17 +333,28 @@ public class CsvDataProvider extends BaseDataProvider {
         return index;
     }
 
-    private void addValueToSpecialMap(Map<String, String> map, String column, String hashCode, Map<String, String> csvRow) {
+    private void addValueToSpecialMap(Map<String, String> map, String column, String hashCode, String[] values) {
         if (column != null) {
             if (!column.isEmpty()) {
-                if (csvRow.get(column) != null) {
-                    if (!csvRow.get(column).isEmpty()) {
+                String value = values[mapper.get(column)];
+                if (value != null) {
+                    if (!value.isEmpty()) {
                         // put into the args only non empty jira tickets
-                        map.put(hashCode, csvRow.get(column));
+                        map.put(hashCode, value);
                     }
                 }
             }
         }
     }
 
+    private static void closeQuietly(CSVReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LOGGER.debug("Unable to close CSV DataProvider reader", e);
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -16,43 +16,176 @@
 package com.qaprosoft.carina.core.foundation.dataprovider.parser;
 
 import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.qaprosoft.carina.core.foundation.exception.InvalidArgsException;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * LRU cache of loaded workbooks. Total estimated heap size of cached workbooks is limited by xls_cache_size (MB), least
+ * recently used workbooks are evicted when it is exceeded. Size is estimated by the number of loaded cells as file size
+ * says nothing about heap footprint of compressed xlsx. Workbook which is still used by caller is just garbage
+ * collected later.
+ */
 public class XLSCache {
-    private static Map<String, Workbook> xlsCache = new HashMap<String, Workbook>();
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final long DEFAULT_MAX_SIZE = 100;
+    // rough heap footprint of loaded cell including its row and style references
+    static final long ESTIMATED_CELL_SIZE = 1024;
+
+    private static final Map<String, CachedWorkbook> xlsCache = new ConcurrentHashMap<String, CachedWorkbook>();
+    // path is needed to resolve external links of the workbook even after its eviction
+    private static final Map<Workbook, String> xlsPaths = Collections.synchronizedMap(new WeakHashMap<Workbook, String>());
+    private static final AtomicLong clock = new AtomicLong();
+
+    public static Workbook getWorkbook(String xlsPath) {
+        return getCachedWorkbook(xlsPath).workbook;
+    }
+
+    public static String getWorkbookPath(Workbook book) {
+        return xlsPaths.get(book);
+    }
+
+    /**
+     * Get shared formula evaluator of cached workbook. Evaluator is not thread-safe so callers should synchronize on it.
+     *
+     * @param book Workbook
+     * @return FormulaEvaluator
+     */
+    public static FormulaEvaluator getFormulaEvaluator(Workbook book) {
+        String xlsPath = getWorkbookPath(book);
+        CachedWorkbook cachedWorkbook = xlsPath != null ? xlsCache.get(xlsPath) : null;
+        if (cachedWorkbook != null && cachedWorkbook.workbook == book) {
+            return cachedWorkbook.evaluator;
+        }
+        return book.getCreationHelper().createFormulaEvaluator();
+    }
+
+    /**
+     * Get values of the 2nd column by keys of the 1st column. Index is built once per sheet.
+     *
+     * @param xlsPath String
+     * @param sheetName String
+     * @return Map of key to value
+     */
+    public static Map<String, String> getKeyValues(String xlsPath, String sheetName) {
+        CachedWorkbook cachedWorkbook = getCachedWorkbook(xlsPath);
+        return cachedWorkbook.keyValues.computeIfAbsent(sheetName, name -> {
+            Sheet sheet = cachedWorkbook.workbook.getSheet(name);
+            if (sheet == null) {
+                throw new InvalidArgsException(String.format("No sheet: '%s' in excel file: '%s'!", name, xlsPath));
+            }
+            Map<String, String> values = new HashMap<String, String>();
+            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                Row row = sheet.getRow(i);
+                if (row != null) {
+                    // the first row with the key wins
+                    values.putIfAbsent(XLSParser.getCellValue(row.getCell(0)), XLSParser.getCellValue(row.getCell(1)));
+                }
+            }
+            return values;
+        });
+    }
+
+    private static CachedWorkbook getCachedWorkbook(String xlsPath) {
+        CachedWorkbook cachedWorkbook = xlsCache.computeIfAbsent(xlsPath, XLSCache::load);
+        cachedWorkbook.lastAccess = clock.incrementAndGet();
+        evict(cachedWorkbook);
+        return cachedWorkbook;
+    }
 
-    public static synchronized Workbook getWorkbook(String xlsPath) {
-        if (!xlsCache.keySet().contains(xlsPath)) {
-            Workbook wb;
+    private static CachedWorkbook load(String xlsPath) {
+        Workbook wb;
+        try {
+            URL url = ClassLoader.getSystemResource(xlsPath);
+            InputStream is = url.openStream();
             try {
-                InputStream is = ClassLoader.getSystemResourceAsStream(xlsPath);
-                try {
-                    wb = WorkbookFactory.create(is);
-                } finally {
-                    // [VD] code cleanup based on Sonar 
-                    is.close();
-                    // if (is != null) {
-                    //    is.close();
-                    // }
+                wb = WorkbookFactory.create(is);
+            } finally {
+                // [VD] code cleanup based on Sonar 
+                is.close();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Can't read xls: " + xlsPath);
+        }
+        xlsPaths.put(wb, xlsPath);
+        return new CachedWorkbook(wb, estimateSize(wb));
+    }
+
+    /**
+     * Estimate heap size of loaded workbook by the number of its cells. Empty workbook is counted as one cell.
+     *
+     * @param wb Workbook
+     * @return size in bytes
+     */
+    static long estimateSize(Workbook wb) {
+        long cells = 0;
+        for (Sheet sheet : wb) {
+            for (Row row : sheet) {
+                cells += row.getPhysicalNumberOfCells();
+            }
+        }
+        return Math.max(cells, 1) * ESTIMATED_CELL_SIZE;
+    }
+
+    private static synchronized void evict(CachedWorkbook recent) {
+        long maxSize = getMaxSize();
+        long size = 0;
+        for (CachedWorkbook cachedWorkbook : xlsCache.values()) {
+            size += cachedWorkbook.size;
+        }
+
+        while (size > maxSize) {
+            Entry<String, CachedWorkbook> eldest = null;
+            for (Entry<String, CachedWorkbook> entry : xlsCache.entrySet()) {
+                if (entry.getValue() != recent && (eldest == null || entry.getValue().lastAccess < eldest.getValue().lastAccess)) {
+                    eldest = entry;
                 }
-            } catch (Exception e) {
-                throw new RuntimeException("Can't read xls: " + xlsPath);
             }
-            xlsCache.put(xlsPath, wb);
+            if (eldest == null) {
+                // the only workbook is bigger than the limit
+                return;
+            }
+            LOGGER.debug("Evicting xls from cache: " + eldest.getKey());
+            xlsCache.remove(eldest.getKey());
+            size -= eldest.getValue().size;
         }
-        return xlsCache.get(xlsPath);
     }
 
-    public static synchronized String getWorkbookPath(Workbook book) {
-        for (Entry<String, Workbook> entry : xlsCache.entrySet()) {
-            if (entry.getValue() == book)
-                return entry.getKey();
+    private static long getMaxSize() {
+        String maxSize = Configuration.get(Parameter.XLS_CACHE_SIZE);
+        long megabytes = maxSize.isEmpty() ? DEFAULT_MAX_SIZE : Long.parseLong(maxSize.trim());
+        return megabytes > 0 ? megabytes * 1024 * 1024 : Long.MAX_VALUE;
+    }
+
+    private static class CachedWorkbook {
+        private final Workbook workbook;
+        private final long size;
+        private final FormulaEvaluator evaluator;
+        private final Map<String, Map<String, String>> keyValues = new ConcurrentHashMap<String, Map<String, String>>();
+        private volatile long lastAccess;
+
+        private CachedWorkbook(Workbook workbook, long size) {
+            this.workbook = workbook;
+            this.size = size;
+            this.evaluator = workbook.getCreationHelper().createFormulaEvaluator();
         }
-        return null;
     }
 }
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
@@ -40,12 +41,8 @@ import com.qaprosoft.carina.core.foundation.exception.InvalidArgsException;
 
 public class XLSParser extends AbstractXLSParser {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private static DataFormatter df;
-    private static FormulaEvaluator evaluator;
-
-    static {
-        df = new DataFormatter();
-    }
+    // DataFormatter caches formats and isn't thread-safe
+    private static final ThreadLocal<DataFormatter> df = ThreadLocal.withInitial(DataFormatter::new);
 
     public static String parseValue(String locatorKey, String xlsPath, Locale locale) {
         String value;
@@ -94,29 +91,11 @@ public class XLSParser extends AbstractXLSParser {
     }
 
     public static String parseValue(String xls, String sheetName, String key) {
-        String value = null;
-
-        Workbook wb = XLSCache.getWorkbook(xls);
-
-        Sheet sheet = wb.getSheet(sheetName);
-        if (sheet == null) {
-            throw new InvalidArgsException(String.format("No sheet: '%s' in excel file: '%s'!", sheetName, xls));
-        }
-
-        boolean isKeyFound = false;
-        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-            if (key.equals(getCellValue(sheet.getRow(i).getCell(0)))) {
-                value = getCellValue(sheet.getRow(i).getCell(1));
-                isKeyFound = true;
-                break;
-            }
-        }
-
-        if (!isKeyFound) {
+        Map<String, String> values = XLSCache.getKeyValues(xls, sheetName);
+        if (!values.containsKey(key)) {
             throw new InvalidArgsException(String.format("No key: '%s' on sheet '%s' in excel file: '%s'!", key, sheetName, xls));
         }
-
-        return value;
+        return values.get(key);
     }
 
     public static XLSTable parseSpreadSheet(String xls, String sheetName) {
@@ -127,7 +106,6 @@ public class XLSParser extends AbstractXLSParser {
         XLSTable dataTable = prepareDataTable(executeColumn, executeValue);
 
         Workbook wb = XLSCache.getWorkbook(xls);
-        evaluator = wb.getCreationHelper().createFormulaEvaluator();
 
         Sheet sheet = wb.getSheet(sheetName);
         if (sheet == null) {
@@ -154,13 +132,19 @@ public class XLSParser extends AbstractXLSParser {
 
         switch (cell.getCellType()) {
         case STRING:
-            return df.formatCellValue(cell).trim();
+            return df.get().formatCellValue(cell).trim();
         case NUMERIC:
-            return df.formatCellValue(cell).trim();
+            return df.get().formatCellValue(cell).trim();
         case BOOLEAN:
-            return df.formatCellValue(cell).trim();
+            return df.get().formatCellValue(cell).trim();
         case FORMULA:
-            return (cell.getCellFormula().contains("[") && cell.getCellFormula().contains("]")) ? null : df.formatCellValue(cell, evaluator).trim();
+            if (cell.getCellFormula().contains("[") && cell.getCellFormula().contains("]")) {
+                return null;
+            }
+            FormulaEvaluator evaluator = XLSCache.getFormulaEvaluator(cell.getSheet().getWorkbook());
+            synchronized (evaluator) {
+                return df.get().formatCellValue(cell, evaluator).trim();
+            }
         case BLANK:
             return "";
         default:
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import com.qaprosoft.carina.core.foundation.exception.InvalidArgsException;
+
+/**
+ * Event based parser of .xlsx sheets. Rows are read by SAX directly from the file so neither workbook DOM nor other
+ * sheets are loaded into memory. Formula cells provide their cached results and cell links (FK_LINK_ columns) are
+ * not supported.
+ */
+public class XLSStreamingParser extends AbstractXLSParser {
+
+    public static XLSTable parseSpreadSheet(String xls, String sheetName) {
+        return parseSpreadSheet(xls, sheetName, null, null);
+    }
+
+    public static XLSTable parseSpreadSheet(String xls, String sheetName, String executeColumn, String executeValue) {
+        XLSTable dataTable = prepareDataTable(executeColumn, executeValue);
+
+        OPCPackage pkg = open(xls);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    if (sheetName.equals(sheets.getSheetName())) {
+                        XMLReader parser = SAXHelper.newXMLReader();
+                        parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, new RowHandler(dataTable), new DataFormatter(), false));
+                        parser.parse(new InputSource(sheet));
+                        return dataTable;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Can't read xls: " + xls, e);
+        } finally {
+            // package is opened in read only mode so nothing should be saved
+            pkg.revert();
+        }
+
+        throw new InvalidArgsException(String.format("No sheet: '%s' in excel file: '%s'!", sheetName, xls));
+    }
+
+    private static OPCPackage open(String xls) {
+        URL url = ClassLoader.getSystemResource(xls);
+        if (url == null) {
+            throw new RuntimeException("Can't read xls: " + xls);
+        }
+        try {
+            if ("file".equals(url.getProtocol())) {
+                // zip entries are read on demand from the file
+                return OPCPackage.open(new File(url.toURI()), PackageAccess.READ);
+            }
+            try (InputStream is = url.openStream()) {
+                return OPCPackage.open(is);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Can't read xls: " + xls, e);
+        }
+    }
+
+    /**
+     * Collects cells of each row, 1st row is used as headers.
+     */
+    private static class RowHandler implements SheetContentsHandler {
+        private final XLSTable dataTable;
+        private final List<String> row = new ArrayList<String>();
+        private boolean headers = true;
+        private int width;
+
+        private RowHandler(XLSTable dataTable) {
+            this.dataTable = dataTable;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            row.clear();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : row.size();
+            // missing cells are empty
+            while (row.size() < column) {
+                row.add("");
+            }
+            row.add(formattedValue != null ? formattedValue.trim() : "");
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (headers) {
+                headers = false;
+                width = row.size();
+                dataTable.setHeaders(row);
+                return;
+            }
+            while (row.size() < width) {
+                row.add("");
+            }
+            dataTable.addDataRow(new ArrayList<String>(row));
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+            // not used by data provider
+        }
+    }
+}
@@ -16,6 +16,10 @@
 package com.qaprosoft.carina.core.foundation.utils;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,97 +32,120 @@ import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSParser;
 import com.qaprosoft.carina.core.foundation.exception.InvalidArgsException;
 import com.qaprosoft.carina.core.foundation.utils.resources.L10N;
 
+/**
+ * Resolves placeholders ({generate:N}, {generatean:N}, {generaten:N}, {generate_uuid}, {env:key}, {testdata:key},
+ * {excel:file#sheet#key}, {L10N:key}) in data provider and test parameters. Every distinct value is parsed once into
+ * a template of literal and placeholder parts so repeated cells are only evaluated. Only the first placeholder type
+ * found in the value is resolved.
+ */
 public class ParameterGenerator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private static Pattern GENERATE_UUID_PATTERN = Pattern.compile(SpecialKeywords.GENERATE_UUID);
-    private static Pattern GENERATE_PATTERN = Pattern.compile(SpecialKeywords.GENERATE);
-    private static Pattern GENERATEAN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEAN);
-    private static Pattern GENERATEN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEN);
-    private static Pattern TESTDATA_PATTERN = Pattern.compile(SpecialKeywords.TESTDATA);
-    private static Pattern ENV_PATTERN = Pattern.compile(SpecialKeywords.ENV);
-    private static Pattern L10N_PATTERN = Pattern.compile(SpecialKeywords.L10N_PATTERN);
-    private static Pattern EXCEL_PATTERN = Pattern.compile(SpecialKeywords.EXCEL);
+    private static final Pattern GENERATE_UUID_PATTERN = Pattern.compile(SpecialKeywords.GENERATE_UUID);
+    private static final Pattern GENERATE_PATTERN = Pattern.compile(SpecialKeywords.GENERATE);
+    private static final Pattern GENERATEAN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEAN);
+    private static final Pattern GENERATEN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEN);
+    private static final Pattern TESTDATA_PATTERN = Pattern.compile(SpecialKeywords.TESTDATA);
+    private static final Pattern ENV_PATTERN = Pattern.compile(SpecialKeywords.ENV);
+    private static final Pattern L10N_PATTERN = Pattern.compile(SpecialKeywords.L10N_PATTERN);
+    private static final Pattern EXCEL_PATTERN = Pattern.compile(SpecialKeywords.EXCEL);
 
-    private static Matcher matcher;
+    static final int MAX_CACHED_TEMPLATES = 10000;
 
-    private static String UUID;
+    private static final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    private static volatile String UUID;
 
     public static Object process(String param) {
+        if (param == null || param.equalsIgnoreCase("nil")) {
+            return null;
+        }
+        if (param.indexOf('{') < 0) {
+            // there is no any placeholder
+            return param;
+        }
+
         try {
-            if (param == null || param.toLowerCase().equals("nil")) {
-                return null;
-            }
+            return getTemplate(param).evaluate();
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage());
+        }
+        return param;
+    }
 
-            matcher = GENERATE_UUID_PATTERN.matcher(param);
-            if (matcher.find()) {
-                return StringUtils.replace(param, matcher.group(), UUID);
-            }
-            matcher = GENERATE_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                int size = Integer.valueOf(param.substring(start, end));
-                return StringUtils.replace(param, matcher.group(), StringGenerator.generateWord(size));
+    private static Template getTemplate(String param) {
+        Template template = templates.get(param);
+        if (template == null) {
+            template = compile(param);
+            if (templates.size() < MAX_CACHED_TEMPLATES) {
+                templates.putIfAbsent(param, template);
             }
+        }
+        return template;
+    }
 
-            matcher = GENERATEAN_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                int size = Integer.valueOf(param.substring(start, end));
-                return StringUtils.replace(param, matcher.group(), StringGenerator.generateWordAN(size));
-            }
+    static Template compile(String param) {
+        Matcher matcher = GENERATE_UUID_PATTERN.matcher(param);
+        if (matcher.find()) {
+            return Template.of(param, matcher.group(), ParameterGenerator::getUUID);
+        }
 
-            matcher = GENERATEN_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                int size = Integer.valueOf(param.substring(start, end));
-                return StringUtils.replace(param, matcher.group(), StringGenerator.generateNumeric(size));
-            }
+        matcher = GENERATE_PATTERN.matcher(param);
+        if (matcher.find()) {
+            int size = Integer.valueOf(getKey(param));
+            return Template.of(param, matcher.group(), () -> StringGenerator.generateWord(size));
+        }
 
-            matcher = ENV_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                String key = param.substring(start, end);
-                return StringUtils.replace(param, matcher.group(), Configuration.getEnvArg(key));
-            }
+        matcher = GENERATEAN_PATTERN.matcher(param);
+        if (matcher.find()) {
+            int size = Integer.valueOf(getKey(param));
+            return Template.of(param, matcher.group(), () -> StringGenerator.generateWordAN(size));
+        }
 
-            matcher = TESTDATA_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                String key = param.substring(start, end);
-                return StringUtils.replace(param, matcher.group(), R.TESTDATA.get(key));
-            }
+        matcher = GENERATEN_PATTERN.matcher(param);
+        if (matcher.find()) {
+            int size = Integer.valueOf(getKey(param));
+            return Template.of(param, matcher.group(), () -> StringGenerator.generateNumeric(size));
+        }
 
-            matcher = EXCEL_PATTERN.matcher(param);
-            if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                String key = param.substring(start, end);
-                return StringUtils.replace(param, matcher.group(), getValueFromXLS(key));
-            }
+        matcher = ENV_PATTERN.matcher(param);
+        if (matcher.find()) {
+            String key = getKey(param);
+            return Template.of(param, matcher.group(), () -> Configuration.getEnvArg(key));
+        }
 
-            matcher = L10N_PATTERN.matcher(param);
-            String initStrL10N = param;
-            while (matcher.find()) {
-                int start = param.indexOf(SpecialKeywords.L10N + ":") + 5;
-                int end = param.indexOf("}");
-                String key = param.substring(start, end);
-                param = StringUtils.replace(param, matcher.group(), L10N.getText(key));
-            }
-            // in case if L10N pattern was applied
-            if (!initStrL10N.equalsIgnoreCase(param)) {
-                return param;
-            }
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage());
+        matcher = TESTDATA_PATTERN.matcher(param);
+        if (matcher.find()) {
+            String key = getKey(param);
+            return Template.of(param, matcher.group(), () -> R.TESTDATA.get(key));
         }
-        return param;
+
+        matcher = EXCEL_PATTERN.matcher(param);
+        if (matcher.find()) {
+            String key = getKey(param);
+            return Template.of(param, matcher.group(), () -> getValueFromXLS(key));
+        }
+
+        matcher = L10N_PATTERN.matcher(param);
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        int last = 0;
+        while (matcher.find()) {
+            int start = matcher.start(1) + SpecialKeywords.L10N.length() + 1;
+            String key = param.substring(start, param.indexOf("}", start));
+            literals.add(param.substring(last, matcher.start()));
+            placeholders.add(new Placeholder(matcher.group(), () -> L10N.getText(key)));
+            last = matcher.end();
+        }
+        literals.add(param.substring(last));
+        return new Template(param, literals, placeholders);
+    }
+
+    private static String getKey(String param) {
+        int start = param.indexOf(":") + 1;
+        int end = param.indexOf("}");
+        return param.substring(start, end);
     }
 
     private static String getValueFromXLS(String xlsSheetKey) {
@@ -140,4 +167,73 @@ public class ParameterGenerator {
     public static void setUUID(String uUID) {
         UUID = uUID;
     }
+
+    /**
+     * Placeholder value source, evaluated on every parameter processing.
+     */
+    private interface ValueSupplier {
+        String get();
+    }
+
+    private static final class Placeholder {
+        private final String text;
+        private final ValueSupplier value;
+
+        Placeholder(String text, ValueSupplier value) {
+            this.text = text;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Parsed parameter: literals.get(i) is followed by placeholders.get(i), the last literal has no placeholder.
+     * All occurrences of the same placeholder share one value per evaluation.
+     */
+    static final class Template {
+        private final String param;
+        private final String[] literals;
+        private final Placeholder[] placeholders;
+
+        private Template(String param, List<String> literals, List<Placeholder> placeholders) {
+            this.param = param;
+            this.literals = literals.toArray(new String[0]);
+            this.placeholders = placeholders.toArray(new Placeholder[0]);
+        }
+
+        private static Template of(String param, String text, ValueSupplier value) {
+            Placeholder placeholder = new Placeholder(text, value);
+            List<String> literals = new ArrayList<>();
+            List<Placeholder> placeholders = new ArrayList<>();
+            int last = 0;
+            int index;
+            while ((index = param.indexOf(text, last)) >= 0) {
+                literals.add(param.substring(last, index));
+                placeholders.add(placeholder);
+                last = index + text.length();
+            }
+            literals.add(param.substring(last));
+            return new Template(param, literals, placeholders);
+        }
+
+        String evaluate() {
+            if (placeholders.length == 0) {
+                return param;
+            }
+            StringBuilder sb = new StringBuilder(param.length() + 16);
+            Placeholder previous = null;
+            String value = null;
+            for (int i = 0; i < placeholders.length; i++) {
+                sb.append(literals[i]);
+                Placeholder placeholder = placeholders[i];
+                if (placeholder != previous) {
+                    previous = placeholder;
+                    value = placeholder.value.get();
+                }
+                // unresolved placeholder is kept as is
+                sb.append(value != null ? value : placeholder.text);
+            }
+            sb.append(literals[literals.length - 1]);
+            return sb.toString();
+        }
+    }
 }
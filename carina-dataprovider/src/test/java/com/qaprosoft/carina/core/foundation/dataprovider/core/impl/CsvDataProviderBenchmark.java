@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.core.impl;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testng.ITestContext;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.qaprosoft.carina.core.foundation.dataprovider.annotations.CsvDataSourceParameters;
+import com.qaprosoft.carina.core.foundation.utils.ParameterGenerator;
+
+/**
+ * Loads generated CSV (10k rows x 30 columns, part of cells with placeholders) through {@link CsvDataProvider}.
+ * Placeholder processing dominates the load time so compare results with the previous {@link ParameterGenerator}
+ * implementation. Iterator variant shows the cost of rows produced on demand, without keeping all of them in memory.
+ * Run from the module directory: build test classes and execute {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvDataProviderBenchmark {
+    private static final String CSV_FILE = "benchmark_large.csv";
+    private static final int ROWS = 10000;
+    private static final int COLUMNS = 30;
+
+    private CsvDataSourceParameters parameters;
+    private ITestContext context;
+
+    @Setup
+    public void setup() throws IOException, URISyntaxException, NoSuchMethodException {
+        // data provider reads CSV as system resource so it is generated into the test classes folder
+        File csv = new File(new File(CsvDataProviderBenchmark.class.getResource("/").toURI()), CSV_FILE);
+        try (BufferedWriter writer = Files.newBufferedWriter(csv.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("Execute");
+            for (int column = 0; column < COLUMNS; column++) {
+                writer.write(",column" + column);
+            }
+            writer.newLine();
+            for (int row = 0; row < ROWS; row++) {
+                writer.write("y");
+                for (int column = 0; column < COLUMNS; column++) {
+                    writer.write(",");
+                    writer.write(getCell(row, column));
+                }
+                writer.newLine();
+            }
+        }
+
+        ParameterGenerator.setUUID("benchmark");
+        parameters = CsvDataProviderBenchmark.class.getDeclaredMethod("dataSource").getAnnotation(CsvDataSourceParameters.class);
+        XmlTest xmlTest = new XmlTest(new XmlSuite());
+        context = (ITestContext) Proxy.newProxyInstance(ITestContext.class.getClassLoader(), new Class<?>[] { ITestContext.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getCurrentXmlTest":
+                        return xmlTest;
+                    case "getName":
+                        return "benchmark";
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    private static String getCell(int row, int column) {
+        switch (column % 6) {
+        case 0:
+            return "{generate:10}";
+        case 1:
+            return "user_{generate_uuid}@example.com";
+        case 2:
+            return "{generaten:5}";
+        default:
+            return "value_" + row + "_" + column;
+        }
+    }
+
+    @CsvDataSourceParameters(path = CSV_FILE)
+    private void dataSource() {
+        // annotation holder
+    }
+
+    @Benchmark
+    public Object[][] csvDataProvider() {
+        return new CsvDataProvider().getDataProvider(parameters, context, null);
+    }
+
+    @Benchmark
+    public void csvDataProviderIterator(Blackhole blackhole) {
+        new CsvDataProvider().getDataProviderIterator(parameters, context, null).forEachRemaining(blackhole::consume);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CsvDataProviderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
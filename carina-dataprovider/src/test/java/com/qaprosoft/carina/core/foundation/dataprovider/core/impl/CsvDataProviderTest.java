@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.core.impl;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.qaprosoft.carina.core.foundation.dataprovider.annotations.CsvDataSourceParameters;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.DataProviderFactory;
+
+public class CsvDataProviderTest {
+
+    private ITestContext context;
+
+    @BeforeClass(alwaysRun = true)
+    public void createContext() {
+        XmlTest xmlTest = new XmlTest(new XmlSuite());
+        context = (ITestContext) Proxy.newProxyInstance(ITestContext.class.getClassLoader(), new Class<?>[] { ITestContext.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getCurrentXmlTest":
+                        return xmlTest;
+                    case "getName":
+                        return "csv";
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    @CsvDataSourceParameters(path = "csv_data/users.csv", dsUid = "TUID", dsArgs = "name,email", testMethodOwnerColumn = "owner")
+    private void argsDataSource() {
+        // annotation holder
+    }
+
+    @CsvDataSourceParameters(path = "csv_data/users.csv", dsUid = "TUID")
+    private void dynamicDataSource() {
+        // annotation holder
+    }
+
+    @Test()
+    public void testRowsAreFilteredAndProcessed() throws Exception {
+        CsvDataProvider provider = new CsvDataProvider();
+        Object[][] rows = provider.getDataProvider(getParameters("argsDataSource"), context, null);
+
+        Assert.assertEquals(rows.length, 2, "Rows with other execute value should be filtered!");
+        Assert.assertEquals(rows[0][0], "admin");
+        Assert.assertTrue(((String) rows[0][1]).matches("admin_.{3}@example.com"), "Placeholder wasn't processed: " + rows[0][1]);
+        Assert.assertEquals(rows[1][0], "guest");
+
+        String hashCode = String.valueOf(Arrays.hashCode(rows[0]));
+        Assert.assertEquals(provider.getTestMethodOwnerArgsMap().get(hashCode), "qa1");
+        Assert.assertFalse(provider.getTestMethodOwnerArgsMap().containsKey(String.valueOf(Arrays.hashCode(rows[1]))),
+                "Empty owner shouldn't be registered!");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test()
+    public void testRowsAreProducedOnDemand() throws Exception {
+        CsvDataProvider provider = new CsvDataProvider();
+        Iterator<Object[]> rows = provider.getDataProviderIterator(getParameters("dynamicDataSource"), context, null);
+        Assert.assertTrue(provider.getTestNameArgsMap().isEmpty(), "Rows shouldn't be read before iteration!");
+
+        Assert.assertTrue(rows.hasNext());
+        Object[] row = rows.next();
+        Map<String, String> first = (Map<String, String>) row[0];
+        Assert.assertEquals(first.get("name"), "admin");
+        Assert.assertEquals(first.get("owner"), "qa1");
+        Assert.assertEquals(provider.getTestNameArgsMap().size(), 1);
+        Assert.assertEquals(provider.getTestNameArgsMap().get(String.valueOf(Arrays.hashCode(row))), "TC1 - csv [TUID=TC1]");
+
+        Map<String, String> second = (Map<String, String>) rows.next()[0];
+        Assert.assertEquals(second.get("name"), "guest");
+        Assert.assertEquals(second.get("email"), "guest@example.com");
+        Assert.assertFalse(rows.hasNext());
+    }
+
+    @Test()
+    public void testIteratorIsClosedBeforeEnd() throws Exception {
+        CsvDataProvider provider = new CsvDataProvider();
+        Iterator<Object[]> rows = provider.getDataProviderIterator(getParameters("dynamicDataSource"), context, null);
+        Assert.assertTrue(rows instanceof AutoCloseable, "Iterator should be closeable!");
+
+        rows.next();
+        ((AutoCloseable) rows).close();
+        Assert.assertFalse(rows.hasNext(), "Rows shouldn't be read after close!");
+    }
+
+    @Test()
+    public void testIteratorsAreClosedOnContextFinish() throws Exception {
+        Iterator<Object[]> rows = DataProviderFactory.getDataProviderIterator(
+                new CsvDataSourceParameters[] { getParameters("dynamicDataSource") }, context, null);
+        rows.next();
+
+        DataProviderFactory.closeDataProviderIterators(context);
+        Assert.assertFalse(rows.hasNext(), "Rows shouldn't be read after context finish!");
+    }
+
+    private static CsvDataSourceParameters getParameters(String method) throws NoSuchMethodException {
+        return CsvDataProviderTest.class.getDeclaredMethod(method).getAnnotation(CsvDataSourceParameters.class);
+    }
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class XLSCacheTest {
+
+    @Test()
+    public void testSizeIsEstimatedByCells() throws Exception {
+        try (Workbook wb = new XSSFWorkbook()) {
+            Sheet first = wb.createSheet("first");
+            for (int i = 0; i < 10; i++) {
+                Row row = first.createRow(i);
+                for (int j = 0; j < 5; j++) {
+                    row.createCell(j).setCellValue(i * j);
+                }
+            }
+            wb.createSheet("second").createRow(3).createCell(7).setCellValue("value");
+
+            Assert.assertEquals(XLSCache.estimateSize(wb), 51 * XLSCache.ESTIMATED_CELL_SIZE, "Incorrect workbook size estimation!");
+        }
+    }
+
+    @Test()
+    public void testEmptyWorkbookIsCounted() throws Exception {
+        try (Workbook wb = new XSSFWorkbook()) {
+            wb.createSheet("empty");
+            Assert.assertTrue(XLSCache.estimateSize(wb) > 0, "Empty workbook should be counted against the limit!");
+        }
+    }
+
+    @Test()
+    public void testWorkbookIsCached() {
+        Workbook wb = XLSCache.getWorkbook("xlsx_data/ParentTest.xlsx");
+        Assert.assertSame(XLSCache.getWorkbook("xlsx_data/ParentTest.xlsx"), wb, "Workbook should be cached!");
+        Assert.assertEquals(XLSCache.getWorkbookPath(wb), "xlsx_data/ParentTest.xlsx");
+    }
+}
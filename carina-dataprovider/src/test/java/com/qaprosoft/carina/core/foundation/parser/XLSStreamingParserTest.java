@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.parser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSParser;
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSStreamingParser;
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSTable;
+import com.qaprosoft.carina.core.foundation.exception.InvalidArgsException;
+
+public class XLSStreamingParserTest {
+    private static final String XLS_FILE = "streaming_test.xlsx";
+
+    @BeforeClass(alwaysRun = true)
+    public void createWorkbook() throws Exception {
+        // parsers read xls as system resource so it is generated into the test classes folder
+        File xls = new File(new File(XLSStreamingParserTest.class.getResource("/").toURI()), XLS_FILE);
+        try (XSSFWorkbook wb = new XSSFWorkbook(); OutputStream os = new FileOutputStream(xls)) {
+            Sheet data = wb.createSheet("Data");
+            addRow(data, 0, "TUID", "Execute", "a", "b", "sum");
+            addRow(data, 1, "TC1", "y", "1", "2");
+            data.getRow(1).createCell(4).setCellFormula("C2+D2");
+            addRow(data, 2, "TC2", "n", "3", "4", "7");
+            // gaps in the middle and at the end of the row
+            Row row = data.createRow(4);
+            row.createCell(0).setCellValue("TC3");
+            row.createCell(1).setCellValue("Y");
+            row.createCell(3).setCellValue("5");
+
+            Sheet keys = wb.createSheet("Keys");
+            addRow(keys, 0, "key", "value");
+            addRow(keys, 1, "first", "1");
+            addRow(keys, 2, "second", "2");
+            addRow(keys, 3, "first", "duplicate");
+
+            wb.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            wb.write(os);
+        }
+    }
+
+    @Test
+    public void testStreamingRowsEqualWorkbookRows() {
+        XLSTable expected = XLSParser.parseSpreadSheet(XLS_FILE, "Data", "Execute", "y");
+        XLSTable actual = XLSStreamingParser.parseSpreadSheet(XLS_FILE, "Data", "Execute", "y");
+
+        Assert.assertEquals(actual.getHeaders(), expected.getHeaders());
+        Assert.assertEquals(actual.getDataRows().size(), 2, "Rows with other execute value should be filtered!");
+        Assert.assertEquals(actual.getDataRows(), expected.getDataRows());
+        Assert.assertEquals(actual.getDataRows().get(0).get("sum"), "3");
+        Assert.assertEquals(actual.getDataRows().get(1).get("a"), "");
+    }
+
+    @Test(expectedExceptions = InvalidArgsException.class)
+    public void testStreamingMissingSheet() {
+        XLSStreamingParser.parseSpreadSheet(XLS_FILE, "Unknown");
+    }
+
+    @Test
+    public void testParseValueByKey() {
+        Assert.assertEquals(XLSParser.parseValue(XLS_FILE, "Keys", "second"), "2");
+        Assert.assertEquals(XLSParser.parseValue(XLS_FILE, "Keys", "first"), "1", "The first row with the key should be used!");
+    }
+
+    @Test(expectedExceptions = InvalidArgsException.class)
+    public void testParseValueMissingKey() {
+        XLSParser.parseValue(XLS_FILE, "Keys", "unknown");
+    }
+
+    private static void addRow(Sheet sheet, int index, String... values) {
+        Row row = sheet.createRow(index);
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ParameterGeneratorTest {
+
+    @Test()
+    public void testNil() {
+        Assert.assertNull(ParameterGenerator.process(null));
+        Assert.assertNull(ParameterGenerator.process("NIL"));
+    }
+
+    @Test()
+    public void testWithoutPlaceholders() {
+        Assert.assertEquals(ParameterGenerator.process("plain value"), "plain value");
+        Assert.assertEquals(ParameterGenerator.process("{unknown}"), "{unknown}");
+    }
+
+    @Test()
+    public void testUUID() {
+        ParameterGenerator.setUUID("uuid");
+        Assert.assertEquals(ParameterGenerator.process("a_{generate_uuid}_b_{generate_uuid}"), "a_uuid_b_uuid");
+        ParameterGenerator.setUUID("another");
+        Assert.assertEquals(ParameterGenerator.process("a_{generate_uuid}_b_{generate_uuid}"), "a_another_b_another",
+                "UUID should be resolved on each processing!");
+    }
+
+    @Test()
+    public void testGenerate() {
+        String first = (String) ParameterGenerator.process("user_{generaten:8}");
+        String second = (String) ParameterGenerator.process("user_{generaten:8}");
+        Assert.assertTrue(first.matches("user_\\d{8}"), "Incorrect generated value: " + first);
+        Assert.assertTrue(second.matches("user_\\d{8}"), "Incorrect generated value: " + second);
+    }
+
+    @Test()
+    public void testSameValueForRepeatedPlaceholder() {
+        String[] values = ((String) ParameterGenerator.process("{generate:6}|{generate:6}")).split("\\|");
+        Assert.assertEquals(values[0].length(), 6);
+        Assert.assertEquals(values[0], values[1], "All occurrences of the placeholder should be replaced by the same value!");
+    }
+
+    @Test()
+    public void testInvalidPlaceholder() {
+        Assert.assertEquals(ParameterGenerator.process("{generate:}"), "{generate:}");
+    }
+
+    @Test()
+    public void testParallelProcessing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                final int thread = i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        String value = (String) ParameterGenerator.process(thread + "_{generaten:4}_" + j);
+                        if (!value.matches(thread + "_\\d{4}_" + j)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                Assert.assertTrue(future.get(), "Parameter was resolved incorrectly in parallel processing!");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
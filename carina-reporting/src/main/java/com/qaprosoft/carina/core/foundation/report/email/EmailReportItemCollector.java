@@ -16,11 +16,13 @@
 package com.qaprosoft.carina.core.foundation.report.email;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.testng.ITestResult;
 
@@ -33,28 +35,91 @@ import com.zebrunner.agent.testng.core.testname.TestNameResolverRegistry;
  * @author Alex Khursevich
  */
 public class EmailReportItemCollector {
-    private static LinkedHashMap<String, TestResultItem> emailResultsMap = new LinkedHashMap<String, TestResultItem>();
-    private static Map<String, TestResultItem> testResultsMap = Collections.synchronizedMap(new HashMap<String, TestResultItem>());
-    private static List<String> createdItems = new ArrayList<String>();
+    // the latest result of each test by TestResultItem.hash()
+    private static final Map<String, Item> emailResultsMap = new ConcurrentHashMap<String, Item>();
+    private static final Map<String, TestResultItem> testResultsMap = new ConcurrentHashMap<String, TestResultItem>();
+    private static final List<String> createdItems = new CopyOnWriteArrayList<String>();
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final EmailReportRowWriter reportRows = new EmailReportRowWriter();
+    // report row and collected result of the same test are updated together
+    private static final Object lock = new Object();
+    // full result of the test which was pushed by current thread the last, it is available for listeners via pull
+    private static final ThreadLocal<TestResultItem> currentItem = new ThreadLocal<TestResultItem>();
 
-    public static synchronized void push(TestResultItem emailItem) {
-        emailResultsMap.put(emailItem.hash(), emailItem);
-        testResultsMap.put(emailItem.getTest(), emailItem);
+    /**
+     * Collects test result. Description, failure reason and video links are rendered into report row at once and are
+     * not kept for the whole run: collected results contain package, test name, result and links to log and
+     * screenshots only. Full item stays available via {@link #pull(ITestResult)} for the test finished by current
+     * thread.
+     * 
+     * @param emailItem TestResultItem
+     */
+    public static void push(TestResultItem emailItem) {
+        TestResultItem result = new TestResultItem(emailItem.getPack(), emailItem.getTest(), null, emailItem.getResult(),
+                emailItem.getLinkToScreenshots(), emailItem.getLinkToLog(), null, null);
+        synchronized (lock) {
+            reportRows.append(emailItem);
+            // the same test keeps its original position like in insertion ordered map
+            emailResultsMap.compute(emailItem.hash(),
+                    (hash, item) -> new Item(item != null ? item.sequence : sequence.getAndIncrement(), result));
+            testResultsMap.put(emailItem.getTest(), result);
+        }
+        currentItem.set(emailItem);
     }
 
-    public static synchronized void push(String itemToDelete) {
+    public static void push(String itemToDelete) {
         createdItems.add(itemToDelete);
     }
 
-    public static synchronized TestResultItem pull(ITestResult result) {
-        return testResultsMap.get(TestNameResolverRegistry.get().resolve(result));
+    /**
+     * Returns collected result of the test. Full item is returned for the test pushed by current thread the last,
+     * summary without description, failure reason and video links is returned for other tests.
+     * 
+     * @param result ITestResult
+     * @return TestResultItem or null if test result wasn't collected
+     */
+    public static TestResultItem pull(ITestResult result) {
+        String test = TestNameResolverRegistry.get().resolve(result);
+        TestResultItem item = currentItem.get();
+        if (item != null && item.getTest().equals(test)) {
+            return item;
+        }
+        return testResultsMap.get(test);
     }
 
+    /**
+     * Returns summary of collected results in order of the first push of each test: package, test name, result and
+     * links to log and screenshots. Description, failure reason and video links are kept in report rows only.
+     * 
+     * @return list of TestResultItem
+     */
     public static List<TestResultItem> getTestResults() {
-        return new ArrayList<TestResultItem>(emailResultsMap.values());
+        return emailResultsMap.values().stream()
+                .sorted(Comparator.comparingLong((Item item) -> item.sequence))
+                .map(item -> item.testResultItem)
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
     public static List<String> getCreatedItems() {
         return createdItems;
     }
+
+    /**
+     * Returns rows of the emailable report rendered as soon as test results were pushed.
+     * 
+     * @return EmailReportRowWriter
+     */
+    public static EmailReportRowWriter getReportRows() {
+        return reportRows;
+    }
+
+    private static class Item {
+        private final long sequence;
+        private final TestResultItem testResultItem;
+
+        private Item(long sequence, TestResultItem testResultItem) {
+            this.sequence = sequence;
+            this.testResultItem = testResultItem;
+        }
+    }
 }
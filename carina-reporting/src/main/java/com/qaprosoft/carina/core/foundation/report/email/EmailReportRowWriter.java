@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report.email;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.report.TestResultItem;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+/**
+ * Renders email report rows as soon as test results are collected and appends them to temporary file. Only row
+ * positions are kept in memory, so the final report is built by copying rows into the report between header and
+ * footer. Rows file stream is closed after rows are written into the report and reopened on the next append.
+ */
+public class EmailReportRowWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String PACKAGE_NAME_PLACEHOLDER = "${package_name}";
+    public static final String TEST_NAME_PLACEHOLDER = "${test_name}";
+    public static final String FAIL_REASON_PLACEHOLDER = "${fail_reason}";
+    public static final String SKIP_REASON_PLACEHOLDER = "${skip_reason}";
+    public static final String FAIL_CONFIG_REASON_PLACEHOLDER = "${fail_config_reason}";
+    public static final String SCREENSHOTS_URL_PLACEHOLDER = "${screenshots_url}";
+    public static final String VIDEO_URL_PLACEHOLDER = "${video_url_html}";
+    public static final String LOG_URL_PLACEHOLDER = "${log_url}";
+
+    private static final EmailReportTemplate PACKAGE_TR = new EmailReportTemplate(R.EMAIL.get("package_tr"));
+    private static final EmailReportTemplate PASS_TEST_LOG_DEMO_TR = new EmailReportTemplate(R.EMAIL.get("pass_test_log_demo_tr"));
+    private static final EmailReportTemplate FAIL_TEST_LOG_DEMO_TR = new EmailReportTemplate(R.EMAIL.get("fail_test_log_demo_tr"));
+    private static final EmailReportTemplate SKIP_TEST_LOG_DEMO_TR = new EmailReportTemplate(R.EMAIL.get("skip_test_log_demo_tr"));
+    private static final EmailReportTemplate FAIL_CONFIG_LOG_DEMO_TR = new EmailReportTemplate(R.EMAIL.get("fail_config_log_demo_tr"));
+    private static final EmailReportTemplate PASS_TEST_LOG_TR = new EmailReportTemplate(R.EMAIL.get("pass_test_log_tr"));
+    private static final EmailReportTemplate FAIL_TEST_LOG_TR = new EmailReportTemplate(R.EMAIL.get("fail_test_log_tr"));
+    private static final EmailReportTemplate SKIP_TEST_LOG_TR = new EmailReportTemplate(R.EMAIL.get("skip_test_log_tr"));
+    private static final EmailReportTemplate FAIL_CONFIG_LOG_TR = new EmailReportTemplate(R.EMAIL.get("fail_config_log_tr"));
+    private static final int MESSAGE_LIMIT = NumberUtils.toInt(R.EMAIL.get("fail_description_limit"), 2048);
+
+    private static final boolean INCLUDE_PASS = R.EMAIL.getBoolean("include_pass");
+    private static final boolean INCLUDE_FAIL = R.EMAIL.getBoolean("include_fail");
+    private static final boolean INCLUDE_SKIP = R.EMAIL.getBoolean("include_skip");
+
+    private static final Comparator<Row> ROW_COMPARATOR = Comparator.comparing((Row row) -> row.pack).thenComparing(row -> row.test);
+
+    // the latest row of each test by TestResultItem.hash()
+    private final Map<String, Row> rows = new ConcurrentHashMap<String, Row>();
+
+    private File file;
+    private OutputStream out;
+    private long size;
+    private long sequence;
+    // rows are kept in memory after the first write failure
+    private boolean failed;
+
+    /**
+     * Renders row of the item and appends it to the rows file. Row of the same test pushed before is replaced.
+     * 
+     * @param item TestResultItem
+     */
+    public void append(TestResultItem item) {
+        byte[] data = renderRow(item).getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            Row previous = rows.get(item.hash());
+            Row row = new Row(item, previous != null ? previous.sequence : sequence++);
+            if (write(data)) {
+                row.offset = size;
+                size += data.length;
+            } else {
+                // row is kept in memory if file can't be written
+                row.data = data;
+            }
+            row.length = data.length;
+            rows.put(item.hash(), row);
+        }
+    }
+
+    /**
+     * Writes package and test rows in collecting order or sorted by package and test name.
+     * 
+     * @param os OutputStream
+     * @param sort boolean
+     * @throws IOException on report or rows file failure
+     */
+    public synchronized void writeRows(OutputStream os, boolean sort) throws IOException {
+        List<Row> sortedRows = new ArrayList<Row>(rows.values());
+        sortedRows.sort(Comparator.comparingLong(row -> row.sequence));
+        if (sort) {
+            sortedRows.sort(ROW_COMPARATOR);
+        }
+        if (out != null) {
+            try {
+                out.close();
+            } finally {
+                out = null;
+            }
+        }
+
+        RandomAccessFile raf = file != null ? new RandomAccessFile(file, "r") : null;
+        try {
+            String packageName = "";
+            for (Row row : sortedRows) {
+                if (!row.config && !packageName.equals(row.pack)) {
+                    packageName = row.pack;
+                    os.write(renderPackageRow(packageName).getBytes(StandardCharsets.UTF_8));
+                }
+                byte[] data = row.data;
+                if (data == null) {
+                    data = new byte[row.length];
+                    raf.seek(row.offset);
+                    raf.readFully(data);
+                }
+                os.write(data);
+            }
+        } finally {
+            if (raf != null) {
+                raf.close();
+            }
+        }
+    }
+
+    public int getPassCount() {
+        int count = 0;
+        for (Row row : rows.values()) {
+            if (!row.config && "PASS".equalsIgnoreCase(row.result)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getFailCount() {
+        int count = 0;
+        for (Row row : rows.values()) {
+            if ("FAIL".equalsIgnoreCase(row.result)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getSkipCount() {
+        int count = 0;
+        for (Row row : rows.values()) {
+            if (!row.config && "SKIP".equalsIgnoreCase(row.result)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean write(byte[] data) {
+        if (failed) {
+            return false;
+        }
+        try {
+            if (file == null) {
+                file = File.createTempFile("emailable-report", ".rows");
+                file.deleteOnExit();
+            }
+            if (out == null) {
+                out = new BufferedOutputStream(new FileOutputStream(file, true));
+            }
+            out.write(data);
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Unable to write email report row into " + file, e);
+            // rows which were already written are still read from file
+            failed = true;
+            closeQuietly();
+        }
+        return false;
+    }
+
+    private void closeQuietly() {
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(e.getMessage(), e);
+        }
+        out = null;
+    }
+
+    public static String renderPackageRow(String packageName) {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put(PACKAGE_NAME_PLACEHOLDER, packageName);
+        return PACKAGE_TR.render(values);
+    }
+
+    public static String renderRow(TestResultItem testResultItem) {
+        Map<String, String> values = new HashMap<String, String>();
+        EmailReportTemplate template = null;
+        boolean demo = testResultItem.getLinkToScreenshots() != null && !"".equals(testResultItem.getLinkToScreenshots());
+        String failReason = testResultItem.getFailReason();
+        String result = testResultItem.getResult().name();
+
+        if ("FAIL".equalsIgnoreCase(result) && INCLUDE_FAIL) {
+            String reasonPlaceholder;
+            if (testResultItem.isConfig()) {
+                template = demo ? FAIL_CONFIG_LOG_DEMO_TR : FAIL_CONFIG_LOG_TR;
+                reasonPlaceholder = FAIL_CONFIG_REASON_PLACEHOLDER;
+            } else {
+                template = demo ? FAIL_TEST_LOG_DEMO_TR : FAIL_TEST_LOG_TR;
+                reasonPlaceholder = FAIL_REASON_PLACEHOLDER;
+            }
+            values.put(reasonPlaceholder, !StringUtils.isEmpty(failReason) ? formatFailReasonAsHtml(limit(failReason))
+                    : "Undefined failure: contact qa engineer!");
+        } else if ("SKIP".equalsIgnoreCase(result) && !testResultItem.isConfig() && INCLUDE_SKIP) {
+            template = demo ? SKIP_TEST_LOG_DEMO_TR : SKIP_TEST_LOG_TR;
+            values.put(SKIP_REASON_PLACEHOLDER, !StringUtils.isEmpty(failReason) ? formatFailReasonAsHtml(limit(failReason))
+                    : "Analyze SYSTEM ISSUE log for details or check dependency settings for the test.");
+        } else if ("PASS".equalsIgnoreCase(result) && !testResultItem.isConfig() && INCLUDE_PASS) {
+            template = demo ? PASS_TEST_LOG_DEMO_TR : PASS_TEST_LOG_TR;
+        }
+
+        if (template == null) {
+            return "";
+        }
+
+        values.put(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
+        values.put(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
+        values.put(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
+
+        // putting of video URLs
+        StringBuilder videoHTML = new StringBuilder();
+        List<String> videoLinks = testResultItem.getLinksToVideo();
+        if (videoLinks != null) {
+            for (int i = 0; i < videoLinks.size(); i++) {
+                videoHTML.append(String.format("<span> | </span><a target='_blank' href='%s' style='color: white'>%s</a>", videoLinks.get(i),
+                        (videoLinks.size() > 1) ? "Video_" + (i + 1) : "Video"));
+            }
+        }
+        values.put(VIDEO_URL_PLACEHOLDER, videoHTML.toString());
+        return template.render(values);
+    }
+
+    private static String limit(String failReason) {
+        // Make description more compact for email report
+        return failReason.length() > MESSAGE_LIMIT ? (failReason.substring(0, MESSAGE_LIMIT) + "...") : failReason;
+    }
+
+    public static String formatFailReasonAsHtml(String reasonText) {
+        if (!StringUtils.isEmpty(reasonText)) {
+            reasonText = StringEscapeUtils.escapeHtml4(reasonText);
+            reasonText = reasonText.replace("\n", "<br/>");
+        }
+        return reasonText;
+    }
+
+    /**
+     * Position of rendered row in rows file and data required to order and count rows.
+     */
+    private static class Row {
+        private final String pack;
+        private final String test;
+        private final String result;
+        private final boolean config;
+        private final long sequence;
+        private long offset;
+        private int length;
+        private byte[] data;
+
+        private Row(TestResultItem item, long sequence) {
+            this.pack = item.getPack();
+            this.test = item.getTest();
+            this.result = item.getResult().name();
+            this.config = item.isConfig();
+            this.sequence = sequence;
+        }
+    }
+}
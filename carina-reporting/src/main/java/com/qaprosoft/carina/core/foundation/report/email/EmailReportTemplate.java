@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report.email;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email report template with ${name} placeholders parsed once, so rendering is a single pass over literal parts
+ * instead of String.replace per placeholder.
+ */
+public class EmailReportTemplate {
+    private static final String PLACEHOLDER_START = "${";
+    private static final String PLACEHOLDER_END = "}";
+
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int length;
+
+    public EmailReportTemplate(String template) {
+        List<String> literals = new ArrayList<String>();
+        List<String> placeholders = new ArrayList<String>();
+        int position = 0;
+        int start;
+        while ((start = template.indexOf(PLACEHOLDER_START, position)) >= 0) {
+            int end = template.indexOf(PLACEHOLDER_END, start);
+            if (end < 0) {
+                break;
+            }
+            literals.add(template.substring(position, start));
+            placeholders.add(template.substring(start, end + 1));
+            position = end + 1;
+        }
+        literals.add(template.substring(position));
+        this.literals = literals.toArray(new String[0]);
+        this.placeholders = placeholders.toArray(new String[0]);
+        this.length = template.length();
+    }
+
+    /**
+     * Renders template, placeholders without value are kept as is.
+     * 
+     * @param values values by placeholder, e.g. "${test_name}"
+     * @return rendered text
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder sb = new StringBuilder(length);
+        render(values, sb);
+        return sb.toString();
+    }
+
+    public void render(Map<String, String> values, Appendable out) {
+        try {
+            for (int i = 0; i < placeholders.length; i++) {
+                out.append(literals[i]);
+                String value = values.get(placeholders[i]);
+                out.append(value != null ? value : placeholders[i]);
+            }
+            out.append(literals[literals.length - 1]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
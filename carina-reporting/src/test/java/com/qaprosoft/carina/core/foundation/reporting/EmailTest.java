@@ -4,11 +4,17 @@ import com.qaprosoft.carina.core.foundation.report.TestResultItem;
 import com.qaprosoft.carina.core.foundation.report.TestResultType;
 import com.qaprosoft.carina.core.foundation.report.email.EmailReportItemCollector;
 import com.qaprosoft.carina.core.foundation.report.email.EmailReportItemComparator;
+import com.qaprosoft.carina.core.foundation.report.email.EmailReportRowWriter;
+import com.qaprosoft.carina.core.foundation.report.email.EmailReportTemplate;
 import com.qaprosoft.carina.core.foundation.report.email.EmailValidator;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 public class EmailTest {
 
@@ -40,12 +46,55 @@ public class EmailTest {
         EmailReportItemCollector.push(TEST_RESULT_ITEM2);
         EmailReportItemCollector.push(TEST_RESULT_ITEM3);
 
-        Assert.assertTrue(EmailReportItemCollector.getTestResults().contains(TEST_RESULT_ITEM1),
-                TEST_RESULT_ITEM1.getTest() + " wasn't added to email report results map");
-        Assert.assertTrue(EmailReportItemCollector.getTestResults().contains(TEST_RESULT_ITEM2),
-                TEST_RESULT_ITEM2.getTest() + " wasn't added to email report results map");
-        Assert.assertTrue(EmailReportItemCollector.getTestResults().contains(TEST_RESULT_ITEM3),
-                TEST_RESULT_ITEM3.getTest() + " wasn't added to email report results map");
+        Assert.assertTrue(isCollected(TEST_RESULT_ITEM1), TEST_RESULT_ITEM1.getTest() + " wasn't added to email report results map");
+        Assert.assertTrue(isCollected(TEST_RESULT_ITEM2), TEST_RESULT_ITEM2.getTest() + " wasn't added to email report results map");
+        Assert.assertTrue(isCollected(TEST_RESULT_ITEM3), TEST_RESULT_ITEM3.getTest() + " wasn't added to email report results map");
+    }
+
+    @Test
+    public void testEmailReportCollectorKeepsRowAndResultConsistent() throws Exception {
+        EmailReportRowWriter rows = EmailReportItemCollector.getReportRows();
+        int passCount = rows.getPassCount();
+        int failCount = rows.getFailCount();
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            TestResultType type = i % 2 == 0 ? TestResultType.PASS : TestResultType.FAIL;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 500; j++) {
+                    EmailReportItemCollector.push(new TestResultItem("carina-concurrency", "Test api 5", "", type, "", "",
+                            new ArrayList<>(), ""));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        TestResultType result = EmailReportItemCollector.getTestResults().stream()
+                .filter(i -> "carina-concurrency".equals(i.getPack()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Test api 5 wasn't added to email report results map"))
+                .getResult();
+        Assert.assertEquals(rows.getPassCount() - passCount, result == TestResultType.PASS ? 1 : 0, "Report row differs from result");
+        Assert.assertEquals(rows.getFailCount() - failCount, result == TestResultType.FAIL ? 1 : 0, "Report row differs from result");
+    }
+
+    @Test
+    public void testEmailReportCollectorKeepsSummaryOnly() {
+        EmailReportItemCollector.push(new TestResultItem("carina-reporting", "Test api 4", "description", TestResultType.FAIL,
+                "screenshots", "log", new ArrayList<>(), "failure reason"));
+
+        TestResultItem item = EmailReportItemCollector.getTestResults().stream()
+                .filter(i -> "Test api 4".equals(i.getTest()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Test api 4 wasn't added to email report results map"));
+        Assert.assertEquals(item.getResult(), TestResultType.FAIL);
+        Assert.assertEquals(item.getLinkToLog(), "log");
+        Assert.assertEquals(item.getLinkToScreenshots(), "screenshots");
+        Assert.assertNull(item.getFailReason(), "Failure reason should be kept in report row only");
+        Assert.assertNull(item.getDescription(), "Description should be kept in report row only");
     }
 
     @Test
@@ -72,6 +121,55 @@ public class EmailTest {
                 TEST_RESULT_ITEM1.getTest() + " is different than " + TEST_RESULT_ITEM1_1.getTest());
     }
 
+    @Test
+    public void testEmailReportTemplate() {
+        EmailReportTemplate template = new EmailReportTemplate("<tr><td>${test_name}</td><td>${log_url}</td></tr>${test_name}");
+        Map<String, String> values = new HashMap<>();
+        values.put("${test_name}", "Test api 1");
+
+        Assert.assertEquals(template.render(values), "<tr><td>Test api 1</td><td>${log_url}</td></tr>Test api 1",
+                "Placeholders weren't rendered correctly");
+    }
+
+    @Test
+    public void testEmailReportRowWriter() throws IOException {
+        EmailReportRowWriter rows = new EmailReportRowWriter();
+        rows.append(TEST_RESULT_ITEM2);
+        rows.append(new TestResultItem("carina-api", "Test api 3", "", TestResultType.SKIP, "", "", new ArrayList<>(), "<skip>"));
+        rows.append(TEST_RESULT_ITEM1);
+        // the latest result of the same test replaces previous one
+        rows.append(new TestResultItem("carina-reporting", "Test api 1", "", TestResultType.FAIL, "", "", new ArrayList<>(),
+                "very long failure reason"));
+
+        Assert.assertEquals(rows.getPassCount(), 1, "Incorrect number of passed tests");
+        Assert.assertEquals(rows.getFailCount(), 1, "Incorrect number of failed tests");
+        Assert.assertEquals(rows.getSkipCount(), 1, "Incorrect number of skipped tests");
+
+        ByteArrayOutputStream sorted = new ByteArrayOutputStream();
+        rows.writeRows(sorted, true);
+        Assert.assertEquals(sorted.toString("UTF-8"), "<pack>carina-api</pack><skip>Test api 3: &lt;skip&gt;</skip>"
+                + "<pack>carina-reporting</pack><fail>Test api 1: very long failur...</fail><pass>Test api 2</pass>", "Incorrect sorted rows");
+
+        ByteArrayOutputStream unsorted = new ByteArrayOutputStream();
+        rows.writeRows(unsorted, false);
+        Assert.assertEquals(unsorted.toString("UTF-8"), "<pack>carina-reporting</pack><pass>Test api 2</pass>"
+                + "<pack>carina-api</pack><skip>Test api 3: &lt;skip&gt;</skip>"
+                + "<pack>carina-reporting</pack><fail>Test api 1: very long failur...</fail>", "Incorrect rows order");
+
+        // rows file is reopened after report writing
+        rows.append(new TestResultItem("carina-reporting", "Test api 4", "", TestResultType.PASS, "", "", new ArrayList<>(), ""));
+        ByteArrayOutputStream appended = new ByteArrayOutputStream();
+        rows.writeRows(appended, false);
+        Assert.assertEquals(appended.toString("UTF-8"), "<pack>carina-reporting</pack><pass>Test api 2</pass>"
+                + "<pack>carina-api</pack><skip>Test api 3: &lt;skip&gt;</skip>"
+                + "<pack>carina-reporting</pack><fail>Test api 1: very long failur...</fail><pass>Test api 4</pass>",
+                "Row appended after report writing is lost");
+    }
+
+    private boolean isCollected(TestResultItem testResultItem) {
+        return EmailReportItemCollector.getTestResults().stream()
+                .anyMatch(item -> item.hash().equals(testResultItem.hash()) && item.getResult() == testResultItem.getResult());
+    }
 
     private boolean isEqual(TestResultItem testResultItem1, TestResultItem testResultItem2) {
         EmailReportItemComparator comparator = new EmailReportItemComparator();
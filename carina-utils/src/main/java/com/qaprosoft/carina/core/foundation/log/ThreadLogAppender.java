@@ -19,93 +19,116 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.lang.invoke.MethodHandles;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.log4j.AppenderSkeleton;
 import org.apache.log4j.MDC;
+import org.apache.log4j.spi.Filter;
 import org.apache.log4j.spi.LoggingEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
-import com.qaprosoft.carina.core.foundation.utils.Configuration;
-import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 
 /*
  * This appender log groups test outputs by test method/test thread so they don't mess up each other even they runs in parallel.
+ * Formatted lines are put into bounded buffer of the thread and written by background writer in batches, test thread
+ * writes its buffer itself only when it is full. close() writes everything of current thread synchronously so test.log
+ * is complete before test dir is renamed or published.
  */
 public class ThreadLogAppender extends AppenderSkeleton {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss") // 2016-05-26 04:39:16
+            .withZone(ZoneId.systemDefault());
+
+    // all test logs which are not closed yet
+    private static final Set<TestLog> openLogs = ConcurrentHashMap.newKeySet();
+    // test logs with not written lines
+    private static final BlockingQueue<TestLog> pendingLogs = new LinkedBlockingQueue<>();
+
+    static {
+        Thread writer = new Thread(ThreadLogAppender::writeLoop, "thread-log-appender-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> openLogs.forEach(TestLog::flush)));
+    }
+
     // single buffer for each thread test.log file
-    private final ThreadLocal<BufferedWriter> testLogBuffer = new ThreadLocal<BufferedWriter>();
-    private final String MAX_LOG_FILE_SIZE = "1024";
-    private long bytesWritten;
-    @Override
-    public void append(LoggingEvent event) {
-        // TODO: [VD] OBLIGATORY double check and create separate unit test for this case
-        /*
-         * if (!ReportContext.isBaseDireCreated()) {
-         * System.out.println(event.getMessage().toString());
-         * return;
-         * }
-         */
+    private final ThreadLocal<TestLog> testLogBuffer = new ThreadLocal<TestLog>();
 
-        try {
+    // last formatted second, timestamp is formatted only once per second
+    private volatile FormattedTime lastTime = new FormattedTime(Long.MIN_VALUE, "");
 
-            BufferedWriter fw = testLogBuffer.get();
-            if (fw == null) {
-                // 1st request to log something for this thread/test
-                File testLogFile = new File(ReportContext.getTestDir() + "/test.log");
-                if (!testLogFile.exists()){
-                    testLogFile.createNewFile();
-                    bytesWritten = 0;
-                }
+    private int bufferSize = 1024;
+    private long maxFileSize = 1024;
+    private boolean locationInfo;
 
-                fw = new BufferedWriter(new FileWriter(testLogFile, true));
-                testLogBuffer.set(fw);
+    /**
+     * Appender is thread-safe so the lock of AppenderSkeleton.doAppend is not needed.
+     */
+    @Override
+    public void doAppend(LoggingEvent event) {
+        if (closed || event == null || !isAsSevereAsThreshold(event.getLevel())) {
+            return;
+        }
 
+        Filter f = this.headFilter;
+        while (f != null) {
+            switch (f.decide(event)) {
+            case Filter.DENY:
+                return;
+            case Filter.ACCEPT:
+                f = null;
+                break;
+            case Filter.NEUTRAL:
+                f = f.getNext();
+                break;
+            }
+        }
+        append(event);
+    }
+
+    @Override
+    public void append(LoggingEvent event) {
+        try {
+            TestLog testLog = testLogBuffer.get();
+            if (testLog == null) {
+                // 1st request to log something for this thread/test
+                testLog = new TestLog(getTestLogFile(), bufferSize, maxFileSize * 1024 * 1024);
+                testLogBuffer.set(testLog);
+                openLogs.add(testLog);
             }
 
             if (event != null) {
-                // append time, thread, class name and device name if any
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss"); // 2016-05-26 04:39:16
-                String time = dateFormat.format(event.getTimeStamp());
-                // System.out.println("time: " + time);
-
-                long threadId = Thread.currentThread().getId();
-                MDC.put("threadId", "-" + String.valueOf(threadId));
-                // System.out.println("thread: " + threadId);
-                String fileName = event.getLocationInformation().getFileName();
-                // System.out.println("fileName: " + fileName);
-
-                String logLevel = event.getLevel().toString();
-
-                String message = "[%s] [%s] [%s] [%s] %s";
-                String eventMessage = "";
-                if (event != null && event.getMessage() != null) {
-                    eventMessage = event.getMessage().toString();
-                }
-                
-                message = String.format(message, time, fileName, threadId, logLevel, eventMessage);
-                ensureCapacity(message.length());
-                fw.write(message);
+                testLog.add(format(event));
             } else {
-                fw.write("null");
+                testLog.add("null");
             }
-            fw.write("\n");
-            fw.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
         } catch (Exception e) {
             e.printStackTrace();
         }
-
     }
 
     @Override
     public void close() {
         try {
-            BufferedWriter fw = testLogBuffer.get();
-            if (fw != null) {
-                fw.close();
+            TestLog testLog = testLogBuffer.get();
+            if (testLog != null) {
                 testLogBuffer.remove();
+                openLogs.remove(testLog);
+                testLog.close();
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -117,12 +140,179 @@ public class ThreadLogAppender extends AppenderSkeleton {
         return false;
     }
 
-    private void ensureCapacity(int len) throws IOException {
-        long newBytesWritten = this.bytesWritten + len;
-        long maxMegaBytes = Long.parseLong(MAX_LOG_FILE_SIZE) * 1024 * 1024;
+    /**
+     * Max number of not written lines per thread.
+     *
+     * @param bufferSize int
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Max size of each test.log in megabytes.
+     *
+     * @param maxFileSize long
+     */
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Write source file name of the event instead of logger name. It is slow because stack of the caller is analyzed
+     * for each event.
+     *
+     * @param locationInfo boolean
+     */
+    public void setLocationInfo(boolean locationInfo) {
+        this.locationInfo = locationInfo;
+    }
+
+    public boolean getLocationInfo() {
+        return locationInfo;
+    }
+
+    protected File getTestLogFile() {
+        return new File(ReportContext.getTestDir() + "/test.log");
+    }
+
+    private String format(LoggingEvent event) {
+        // append time, thread, class name and device name if any
+        long threadId = Thread.currentThread().getId();
+        MDC.put("threadId", "-" + threadId);
+
+        String source;
+        if (locationInfo) {
+            source = event.getLocationInformation().getFileName();
+        } else {
+            String loggerName = event.getLoggerName();
+            source = loggerName == null ? "" : loggerName.substring(loggerName.lastIndexOf('.') + 1);
+        }
+
+        Object eventMessage = event.getMessage();
+
+        StringBuilder message = new StringBuilder(128);
+        message.append('[').append(formatTime(event.getTimeStamp())).append("] [")
+                .append(source).append("] [")
+                .append(threadId).append("] [")
+                .append(event.getLevel()).append("] ")
+                .append(eventMessage != null ? eventMessage.toString() : "");
+        return message.toString();
+    }
+
+    private String formatTime(long timeStamp) {
+        long second = Math.floorDiv(timeStamp, 1000L);
+        FormattedTime time = lastTime;
+        if (time.second != second) {
+            time = new FormattedTime(second, DATE_FORMAT.format(Instant.ofEpochSecond(second)));
+            lastTime = time;
+        }
+        return time.value;
+    }
+
+    private static void writeLoop() {
+        while (true) {
+            try {
+                pendingLogs.take().flush();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static final class FormattedTime {
+        private final long second;
+        private final String value;
+
+        private FormattedTime(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Buffered test.log of single thread. Lines are added by owner thread only, written by owner or writer thread.
+     */
+    private static final class TestLog {
+        private final File file;
+        private final BlockingQueue<String> lines;
+        private final long maxBytes;
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private final List<String> batch = new ArrayList<>();
 
-        if (newBytesWritten > maxMegaBytes)
-            throw new IOException("test Log file size exceeded core limit: " + newBytesWritten + " > " + maxMegaBytes);
-        this.bytesWritten = newBytesWritten;
+        // accessed by owner thread only
+        private long bytesWritten;
+        private boolean limitExceeded;
+
+        private BufferedWriter writer;
+        private boolean closed;
+
+        private TestLog(File file, int bufferSize, long maxBytes) throws IOException {
+            this.file = file;
+            this.lines = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+            this.maxBytes = maxBytes;
+            // test.log is created at once, only lines are written asynchronously
+            this.bytesWritten = file.length();
+            this.writer = new BufferedWriter(new FileWriter(file, true));
+        }
+
+        private void add(String line) {
+            if (limitExceeded) {
+                return;
+            }
+            bytesWritten += line.length() + 1;
+            if (bytesWritten > maxBytes) {
+                limitExceeded = true;
+                line = "test Log file size exceeded core limit: " + bytesWritten + " > " + maxBytes;
+                // limit is already exceeded so the message goes to the other appenders only
+                LOGGER.warn(line + " (" + file + ")");
+            }
+
+            while (!lines.offer(line)) {
+                // buffer is full so owner thread writes it itself instead of growing memory
+                flush();
+            }
+            if (pending.compareAndSet(false, true)) {
+                pendingLogs.offer(this);
+            }
+        }
+
+        private synchronized void flush() {
+            pending.set(false);
+            if (closed) {
+                return;
+            }
+            lines.drainTo(batch);
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                for (String line : batch) {
+                    writer.write(line);
+                    writer.write("\n");
+                }
+                writer.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                batch.clear();
+            }
+        }
+
+        private synchronized void close() throws IOException {
+            flush();
+            closed = true;
+            writer.close();
+        }
     }
 }
@@ -17,6 +17,7 @@ package com.qaprosoft.carina.core.foundation.report;
 
 import java.awt.image.BufferedImage;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -39,8 +40,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -95,7 +99,29 @@ public class ReportContext {
     private static final ThreadLocal<File> testDirectory = new ThreadLocal<File>();
     private static final ThreadLocal<Boolean> isCustomTestDirName = new ThreadLocal<Boolean>();
 
-    private static final ExecutorService executor = Executors.newCachedThreadPool();
+    // bounded pool for screenshot resize/encode: when the queue is full the capturing thread saves image itself
+    private static final ExecutorService executor = new ThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),
+            Runtime.getRuntime().availableProcessors(), 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(256),
+            runnable -> {
+                Thread thread = new Thread(runnable, "carina-image-saver");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    private static final long IMAGE_SAVER_TIMEOUT = 60;
+    // screenshots which are queued or being saved
+    private static final AtomicInteger pendingImages = new AtomicInteger();
+
+    static {
+        // screenshots of the last tests are still saved when suite is finished
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(IMAGE_SAVER_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "carina-image-saver-shutdown"));
+    }
 
     // Collects screenshot comments. Screenshot comments are associated using screenshot file name.
     private static Map<String, String> screenSteps = Collections.synchronizedMap(new HashMap<String, String>());
@@ -599,6 +625,26 @@ public class ReportContext {
         }
     }
 
+    /**
+     * Stores already generated report file under emailable-report.html without loading it into memory.
+     *
+     * @param report - generated report file
+     */
+    public static void generateHtmlReport(File report) {
+        String emailableReport = SpecialKeywords.HTML_REPORT;
+
+        try {
+            File reportFile = new File(String.format("%s/%s/%s", System.getProperty("user.dir"),
+                    Configuration.get(Parameter.PROJECT_REPORT_DIRECTORY), emailableReport));
+            FileUtils.copyFile(report, reportFile);
+
+            File reportFileToBase = new File(String.format("%s/%s", getBaseDir(), emailableReport));
+            FileUtils.copyFile(report, reportFileToBase);
+        } catch (IOException e) {
+            LOGGER.error("generateHtmlReport failure", e);
+        }
+    }
+
     /**
      * Returns URL for test artifacts folder.
      * 
@@ -657,8 +703,10 @@ public class ReportContext {
         for (String sessionId : sessionIds) {
             String videoFileName = String.format(SpecialKeywords.DEFAULT_VIDEO_FILENAME, sessionId);
             File videoFile = new File(ReportContext.getArtifactsFolder() + File.separator + videoFileName);
-            if (!videoFile.exists()) {
-                // no video file at all
+            File tempVideoFile = new File(ReportContext.getArtifactsFolder() + File.separator
+                    + String.format(SpecialKeywords.TEMP_VIDEO_FILENAME, sessionId));
+            if (!videoFile.exists() && !tempVideoFile.exists()) {
+                // no video file at all, temporary one means that video is still being saved
                 continue;
             }
 
@@ -727,17 +775,72 @@ public class ReportContext {
     public static String saveScreenshot(BufferedImage screenshot) {
         long now = System.currentTimeMillis();
 
-        executor.execute(new ImageSaverTask(screenshot, String.format("%s/%d.png", getTestDir().getAbsolutePath(), now),
+        saveAsync(new ImageSaverTask(screenshot, String.format("%s/%d.png", getTestDir().getAbsolutePath(), now),
                 Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT)));
 
         return String.format("%d.png", now);
     }
 
+    /**
+     * Saves PNG screenshot bytes as is when no resize is configured, otherwise resize is done asynchronously.
+     * 
+     * @param screenshot - PNG encoded screenshot
+     * @param path - absolute path to screenshot file
+     * 
+     * @throws IOException - when screenshot can't be written
+     */
+    public static void saveScreenshot(byte[] screenshot, String path) throws IOException {
+        int width = Configuration.getInt(Parameter.BIG_SCREEN_WIDTH);
+        int height = Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT);
+        if (width > 0 && height > 0) {
+            saveAsync(new ImageSaverTask(screenshot, path, width, height));
+        } else {
+            FileUtils.writeByteArrayToFile(new File(path), screenshot);
+        }
+    }
+
+    /**
+     * Waits until all queued screenshots are saved, so report doesn't refer to missing files.
+     */
+    public static void waitForScreenshots() {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(IMAGE_SAVER_TIMEOUT);
+        synchronized (pendingImages) {
+            long timeout;
+            while (pendingImages.get() > 0 && (timeout = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    pendingImages.wait(timeout);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        if (pendingImages.get() > 0) {
+            LOGGER.warn("Screenshots are still being saved after " + IMAGE_SAVER_TIMEOUT + "sec: " + pendingImages.get());
+        }
+    }
+
+    private static void saveAsync(ImageSaverTask task) {
+        pendingImages.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                if (pendingImages.decrementAndGet() == 0) {
+                    synchronized (pendingImages) {
+                        pendingImages.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
     /**
      * Asynchronous image saver task.
      */
     private static class ImageSaverTask implements Runnable {
         private BufferedImage image;
+        private byte[] bytes;
         private String path;
         private Integer width;
         private Integer height;
@@ -749,9 +852,19 @@ public class ReportContext {
             this.height = height;
         }
 
+        public ImageSaverTask(byte[] bytes, String path, Integer width, Integer height) {
+            this.bytes = bytes;
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+
         @Override
         public void run() {
             try {
+                if (image == null) {
+                    image = ImageIO.read(new ByteArrayInputStream(bytes));
+                }
                 if (width > 0 && height > 0) {
                     BufferedImage resizedImage = Scalr.resize(image, Scalr.Method.BALANCED, Scalr.Mode.FIT_TO_WIDTH, width, height,
                             Scalr.OP_ANTIALIAS);
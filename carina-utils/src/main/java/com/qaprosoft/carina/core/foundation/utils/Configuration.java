@@ -19,6 +19,7 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openqa.selenium.remote.DesiredCapabilities;
@@ -75,10 +76,22 @@ public class Configuration {
         SELENIUM_HOST("selenium_host"),
 
         DRIVER_RECORDER("driver_recorder"),
+
+        DRIVER_LOGS_ASYNC("driver_logs_async"),
+
+        DRIVER_LOGS_TIMEOUT("driver_logs_timeout"),
         
         DRIVER_EVENT_LISTENERS("driver_event_listeners"),
 
         MAX_DRIVER_COUNT("max_driver_count"),
+
+        WARM_POOL_SIZE("warm_pool_size"),
+
+        WARM_POOL_IDLE_TIMEOUT("warm_pool_idle_timeout"),
+
+        DRIVER_RECYCLING("driver_recycling"),
+
+        DRIVER_MAX_REUSE("driver_max_reuse"),
         
         FORCIBLY_DISABLE_DRIVER_QUIT("forcibly_disable_driver_quit"),
 
@@ -122,6 +135,14 @@ public class Configuration {
 
         EXPLICIT_TIMEOUT("explicit_timeout"),
 
+        ELEMENT_CACHE("element_cache"),
+
+        ELEMENT_CACHE_DOM_TRACKING("element_cache_dom_tracking"),
+
+        ELEMENT_JS_CONDITIONS("element_js_conditions"),
+
+        ELEMENT_LIST_SNAPSHOT("element_list_snapshot"),
+
         AUTO_DOWNLOAD("auto_download"),
 
         AUTO_DOWNLOAD_APPS("auto_download_apps"),
@@ -154,6 +175,8 @@ public class Configuration {
 
         DATA_PROVIDER_THREAD_COUNT("data_provider_thread_count"),
 
+        XLS_CACHE_SIZE("xls_cache_size"),
+
         CORE_LOG_LEVEL("core_log_level"),
 
         CORE_LOG_PACKAGES("core_log_packages"),
@@ -211,6 +234,8 @@ public class Configuration {
 
         UNINSTALL_RELATED_APPS("uninstall_related_apps"),
 
+        ADB_PERSISTENT_SHELL("adb_persistent_shell"),
+
         // For Device default timezone and language
         DEFAULT_DEVICE_TIMEZONE("default_device_timezone"),
 
@@ -233,6 +258,8 @@ public class Configuration {
 
         SCREEN_RECORD_DURATION("screen_record_duration"),
 
+        SCREEN_RECORD_UPLOAD_PATH("screen_record_upload_path"),
+
         VIDEO_SCALE("video_scale"),
 
         // Ignore SSL
@@ -266,23 +293,33 @@ public class Configuration {
     }
 
     public static int getInt(Parameter param) {
-        return Integer.valueOf(get(param).trim());
+        return getTyped(param, ConfigurationSnapshot.Type.INT, value -> Integer.valueOf(value.trim()));
     }
 
     public static long getLong(Parameter param) {
-        return Long.valueOf(get(param).trim());
+        return getTyped(param, ConfigurationSnapshot.Type.LONG, value -> Long.valueOf(value.trim()));
     }
 
     public static double getDouble(Parameter param) {
-        return Double.valueOf(get(param).trim());
+        return getTyped(param, ConfigurationSnapshot.Type.DOUBLE, value -> Double.valueOf(value.trim()));
     }
 
     public static boolean getBoolean(Parameter param) {
-        String value = get(param).trim();
-        if (value == null || value.equalsIgnoreCase(SpecialKeywords.NULL)) {
-            return false;
+        return getTyped(param, ConfigurationSnapshot.Type.BOOLEAN, value -> {
+            value = value.trim();
+            if (value.equalsIgnoreCase(SpecialKeywords.NULL)) {
+                return false;
+            }
+            return Boolean.valueOf(value);
+        });
+    }
+
+    private static <T> T getTyped(Parameter param, ConfigurationSnapshot.Type type, Function<String, T> parser) {
+        if (R.CONFIG.isTestProperty(param.getKey())) {
+            // values overridden for current test are not cached
+            return parser.apply(get(param));
         }
-        return Boolean.valueOf(value);
+        return R.CONFIG.getSnapshot().getTyped(param, type, parser);
     }
 
     public static String asString() {
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils;
+
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Immutable view of {@link R} properties at some version. Placeholders of each key are resolved once and parsed
+ * values of {@link Parameter} are kept per type, so repeated reads of the same configuration are map/array lookups.
+ * New snapshot is created by {@link R} after any change of global properties.
+ */
+final class ConfigurationSnapshot {
+
+    enum Type {
+        INT, LONG, DOUBLE, BOOLEAN
+    }
+
+    private static final int TYPES = Type.values().length;
+
+    private final long version;
+
+    // private copy which is never modified
+    private final Properties properties;
+
+    private final boolean resolvePlaceholders;
+
+    private final ConcurrentMap<String, String> values = new ConcurrentHashMap<String, String>();
+
+    // values are immutable boxed objects so plain array is safe to share between threads, parsing may just be repeated
+    private final Object[] typedValues = new Object[Parameter.values().length * TYPES];
+
+    ConfigurationSnapshot(long version, Properties properties, boolean resolvePlaceholders) {
+        this.version = version;
+        this.properties = (Properties) properties.clone();
+        this.resolvePlaceholders = resolvePlaceholders;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param key property key
+     * @return value with resolved placeholders or empty string if key is missing
+     */
+    String get(String key) {
+        String value = values.get(key);
+        if (value == null) {
+            value = resolvePlaceholders ? PlaceholderResolver.resolve(properties, key) : properties.getProperty(key);
+            if (value == null) {
+                value = StringUtils.EMPTY;
+            }
+            values.putIfAbsent(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns parsed parameter value, parser is called once per parameter and type. Parsing errors are not cached.
+     * 
+     * @param param Parameter
+     * @param type value type
+     * @param parser converts {@link Configuration#get(Parameter)} value
+     * @return parsed value
+     */
+    @SuppressWarnings("unchecked")
+    <T> T getTyped(Parameter param, Type type, Function<String, T> parser) {
+        int index = param.ordinal() * TYPES + type.ordinal();
+        Object value = typedValues[index];
+        if (value == null) {
+            String stringValue = get(param.getKey());
+            value = parser.apply(stringValue.equalsIgnoreCase(SpecialKeywords.NULL) ? StringUtils.EMPTY : stringValue);
+            typedValues[index] = value;
+        }
+        return (T) value;
+    }
+}
@@ -20,6 +20,7 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
@@ -27,7 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
-import com.qaprosoft.carina.core.foundation.crypto.CryptoTool;
+import com.qaprosoft.carina.core.foundation.crypto.CryptoEngine;
 import com.qaprosoft.carina.core.foundation.exception.InvalidConfigurationException;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 
@@ -63,6 +64,12 @@ public enum R {
 
     private String resourceFile;
 
+    // snapshot of global properties which is replaced when version is changed
+    private volatile ConfigurationSnapshot snapshot;
+
+    // incremented after each change of global properties
+    private static final AtomicLong version = new AtomicLong();
+
     // temporary thread/test properties which is cleaned on afterTest phase for current thread. It can override any value from below R enum maps
     private static ThreadLocal<Properties> testProperties = new ThreadLocal<>();
 
@@ -133,6 +140,7 @@ public enum R {
                 throw new InvalidConfigurationException("Invalid config in '" + resource + "': " + e.getMessage());
             }
         }
+        version.incrementAndGet();
     }
 
     private boolean isInit(Parameter parameter, Properties properties){
@@ -169,6 +177,7 @@ public enum R {
         } else {
             // override globally configuration map property 
             propertiesHolder.get(resourceFile).put(key, value);
+            version.incrementAndGet();
         }
     }
     
@@ -197,13 +206,38 @@ public enum R {
             return value;
         }
         
-        value = CONFIG.resourceFile.equals(resourceFile) ? PlaceholderResolver.resolve(propertiesHolder.get(resourceFile), key)
-                : propertiesHolder.get(resourceFile).getProperty(key);
-
         // [VD] Decryption is prohibited here otherwise we have plain sensitive information in logs! 
 
         // [VD] as designed empty MUST be returned
-        return value != null ? value : StringUtils.EMPTY;
+        return getSnapshot().get(key);
+    }
+
+    /**
+     * Returns snapshot of global properties, new one is created after any change of them.
+     * Temporary test properties are not included.
+     * 
+     * @return ConfigurationSnapshot
+     */
+    ConfigurationSnapshot getSnapshot() {
+        // version is read before properties are copied so concurrent change causes one more copying only
+        long currentVersion = version.get();
+        ConfigurationSnapshot current = snapshot;
+        if (current == null || current.getVersion() != currentVersion) {
+            current = new ConfigurationSnapshot(currentVersion, propertiesHolder.get(resourceFile), CONFIG.resourceFile.equals(resourceFile));
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * Verify if key is overridden for current test.
+     * 
+     * @param key name to verify
+     * @return boolean
+     */
+    boolean isTestProperty(String key) {
+        Properties properties = testProperties.get();
+        return properties != null && properties.getProperty(key) != null;
     }
     
     /**
@@ -287,6 +321,8 @@ public enum R {
 				globalProp.setProperty(i, (String) testProp.get(i));
 			});
 		}
+		// returned properties can be changed by caller
+		version.incrementAndGet();
 		return globalProp;
 	}
     
@@ -307,8 +343,8 @@ public enum R {
     private String decrypt(String content, Pattern pattern) {
         try {
             // keep constructor with parametrized CRYPTO_KEY_PATH to run unit tests successfully!
-            CryptoTool cryptoTool = new CryptoTool(Configuration.get(Configuration.Parameter.CRYPTO_KEY_PATH));
-            return cryptoTool.decryptByPattern(content, pattern);
+            CryptoEngine cryptoEngine = CryptoEngine.getInstance(Configuration.get(Configuration.Parameter.CRYPTO_KEY_PATH));
+            return cryptoEngine.decryptByPattern(content, pattern);
         } catch (Exception e) {
             LOGGER.error("Error during decrypting '" + content + "'. Please check error: ", e);
             return content;
@@ -17,12 +17,21 @@ package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
 
 import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +50,9 @@ public class AdbExecutor {
     // private static final String REMOTE_ADB_EXECUTION_CMD = "ssh %s@%s %s";
     private static String[] cmdInit;
 
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(daemon("adb-watchdog"));
+    private static final ExecutorService DRAINERS = Executors.newCachedThreadPool(daemon("adb-stream-drainer"));
+
     public AdbExecutor() {
         cmdInit = "adb".split(" ");
     }
@@ -55,32 +67,83 @@ public class AdbExecutor {
     }
 
     public List<String> execute(String[] cmd) {
+        List<String> output = new ArrayList<String>();
+        execute(cmd, output::add);
+        return output;
+    }
+
+    /**
+     * Execute command and pass every stdout line to the consumer as soon as it is read. Stderr is drained in parallel
+     * so process never stalls on full pipe buffer.
+     *
+     * @param cmd String[]
+     * @param lineConsumer Consumer of stdout lines
+     */
+    public void execute(String[] cmd, Consumer<String> lineConsumer) {
         ProcessBuilderExecutor executor = null;
         BufferedReader in = null;
-        List<String> output = new ArrayList<String>();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = null;
 
         try {
             executor = new ProcessBuilderExecutor(cmd);
 
             Process process = executor.start();
-            if (!process.waitFor(Configuration.getAdbExecTimeout(), TimeUnit.MILLISECONDS)) {
-                throw new TimeoutException("Waiting time elapsed before the adb execution command has exited");
-            }
+            drain(process.getErrorStream(), line -> LOGGER.debug("stderr: " + line));
+            watchdog = WATCHDOG.schedule(() -> {
+                if (process.isAlive()) {
+                    timedOut.set(true);
+                    process.destroy();
+                }
+            }, Configuration.getAdbExecTimeout(), TimeUnit.MILLISECONDS);
+
             in = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String line = null;
 
             while ((line = in.readLine()) != null) {
-                output.add(line);
                 LOGGER.debug(line);
+                lineConsumer.accept(line);
+            }
+            process.waitFor();
+            if (timedOut.get()) {
+                throw new TimeoutException("Waiting time elapsed before the adb execution command has exited");
             }
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         } finally {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
             closeQuietly(in);
             ProcessBuilderExecutor.gcNullSafe(executor);
         }
+    }
 
-        return output;
+    /**
+     * Read the stream till the end in background.
+     *
+     * @param stream InputStream
+     * @param lineConsumer Consumer of lines
+     */
+    static void drain(InputStream stream, Consumer<String> lineConsumer) {
+        DRAINERS.execute(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineConsumer.accept(line);
+                }
+            } catch (IOException e) {
+                // stream is closed on process destroy
+            }
+        });
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     public static void closeQuietly(Closeable closeable) {
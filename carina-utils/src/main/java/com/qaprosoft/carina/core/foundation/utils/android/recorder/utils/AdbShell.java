@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Persistent "adb -s UDID shell" session of the device. Many short shell commands are written into the same process
+ * instead of starting new adb process per command. Command output is finished by unique marker with exit code.
+ * Session is closed and recreated on the next command if command fails or exceeds adb execution timeout. As for
+ * separate adb process only stdout is passed to the consumer, stderr is logged.
+ */
+public final class AdbShell {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final Map<String, AdbShell> shells = new ConcurrentHashMap<>();
+
+    private static final String EOF = "\u0000";
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(AdbShell::closeAll));
+    }
+
+    private final String udid;
+    private final String marker = "__CARINA_ADB_END_" + UUID.randomUUID().toString().replace("-", "") + "_";
+    private final ProcessBuilderExecutor executor;
+    private final OutputStream stdin;
+    private final BlockingQueue<String> stdout = new ArrayBlockingQueue<>(1024);
+
+    private AdbShell(String udid) {
+        this(udid, new ProcessBuilderExecutor(CmdLine.insertCommandsAfter(new AdbExecutor().getDefaultCmd(), "-s", udid, "shell")));
+    }
+
+    AdbShell(String udid, ProcessBuilderExecutor executor) {
+        this.udid = udid;
+        this.executor = executor;
+        Process process;
+        try {
+            process = executor.start();
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to start adb shell for " + udid + ": " + e.getMessage(), e);
+        }
+        this.stdin = process.getOutputStream();
+        AdbExecutor.drain(process.getErrorStream(), line -> LOGGER.debug(udid + " stderr: " + line));
+
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    stdout.put(line);
+                }
+            } catch (IOException | InterruptedException e) {
+                // shell is closed
+            } finally {
+                stdout.offer(EOF);
+            }
+        }, "adb-shell-" + udid);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public static boolean isEnabled() {
+        return Configuration.getBoolean(Parameter.ADB_PERSISTENT_SHELL);
+    }
+
+    /**
+     * Execute shell command in persistent session of the device.
+     *
+     * @param udid device adb name
+     * @param command shell command without "adb -s UDID shell" prefix
+     * @param lineConsumer Consumer of stdout lines
+     * @return exit code of the command
+     */
+    public static int execute(String udid, String command, Consumer<String> lineConsumer) {
+        return execute(udid, command, lineConsumer, AdbShell::new);
+    }
+
+    static int execute(String udid, String command, Consumer<String> lineConsumer, Function<String, AdbShell> factory) {
+        AdbShell shell = shells.computeIfAbsent(udid, factory);
+        try {
+            return shell.run(command, lineConsumer);
+        } catch (Exception e) {
+            // session state is unknown after failure so it is never reused
+            close(udid);
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Close persistent session of the device if any.
+     *
+     * @param udid device adb name
+     */
+    public static void close(String udid) {
+        AdbShell shell = shells.remove(udid);
+        if (shell != null) {
+            LOGGER.debug("Closing persistent adb shell for " + udid);
+            AdbExecutor.closeQuietly(shell.stdin);
+            ProcessBuilderExecutor.gcNullSafe(shell.executor);
+        }
+    }
+
+    public static void closeAll() {
+        shells.keySet().forEach(AdbShell::close);
+    }
+
+    private synchronized int run(String command, Consumer<String> lineConsumer) throws IOException, InterruptedException, TimeoutException {
+        LOGGER.debug("adb -s " + udid + " shell " + command);
+        String script = command + "\necho \"" + marker + "$?\"\n";
+        stdin.write(script.getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+
+        long deadline = System.currentTimeMillis() + Configuration.getAdbExecTimeout();
+        while (true) {
+            String line = stdout.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            if (line == null) {
+                throw new TimeoutException("Waiting time elapsed before the adb shell command has finished: " + command);
+            }
+            if (EOF.equals(line)) {
+                throw new IOException("adb shell session is closed for " + udid);
+            }
+            // old adb versions return CRLF line endings
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            int end = line.indexOf(marker);
+            if (end != -1) {
+                if (end > 0) {
+                    // output without trailing new line
+                    lineConsumer.accept(line.substring(0, end));
+                }
+                int exitCode = Integer.parseInt(line.substring(end + marker.length()).trim());
+                LOGGER.debug("exit code: " + exitCode);
+                return exitCode;
+            }
+            lineConsumer.accept(line);
+        }
+    }
+
+}
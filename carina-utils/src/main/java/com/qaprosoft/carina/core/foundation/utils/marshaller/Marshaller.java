@@ -15,28 +15,36 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.utils.marshaller;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.invoke.MethodHandles;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 class Marshaller {
 
-    private static Marshaller instance;
+    private static final Marshaller instance = new Marshaller();
 
-    private final Map<Class<?>, JAXBContext> contextCache;
+    private final ConcurrentMap<Class<?>, Pool> contextCache;
+
+    private final XMLInputFactory xmlInputFactory;
 
     /**
      * Class Logger
@@ -44,99 +52,69 @@ class Marshaller {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private Marshaller() {
-
-        contextCache = new HashMap<Class<?>, JAXBContext>();
+        contextCache = new ConcurrentHashMap<Class<?>, Pool>();
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
     }
 
     /**
      * Get instance for Marshaller
      */
     static Marshaller getInstance() {
-        if (null == instance) {
-            instance = new Marshaller();
-        }
         return instance;
     }
 
     /**
-     * Returns cached JAXBContext for specified class
+     * Returns cached JAXBContext with marshallers for specified class
      * 
      * @param clazz
      *            - Class
-     * @return - JAXBContext for specified class
+     * @return - Pool for specified class
      */
-    private JAXBContext getJAXBContext(Class<?> clazz) {
-        try {
-            if (!contextCache.containsKey(clazz)) {
-                JAXBContext context = JAXBContext.newInstance(clazz);
-                contextCache.put(clazz, context);
-                return context;
-
+    private Pool getPool(Class<?> clazz) {
+        Pool pool = contextCache.get(clazz);
+        if (pool == null) {
+            try {
+                pool = new Pool(JAXBContext.newInstance(clazz));
+            } catch (JAXBException e) {
+                LOGGER.error(e.getMessage(), e);
+                throw new RuntimeException(e);
+            }
+            Pool cached = contextCache.putIfAbsent(clazz, pool);
+            if (cached != null) {
+                pool = cached;
             }
-            return contextCache.get(clazz);
-        } catch (JAXBException e) {
-            LOGGER.error(e.getMessage(), e);
-            throw new RuntimeException(e);
-        }
-    }
-
-    /**
-     * Returns Marshaller from JAXBContext for specified class
-     * 
-     * @param clazz
-     *            - Class
-     * @return - Marshaller
-     */
-    private javax.xml.bind.Marshaller getMarshaller(Class<?> clazz) {
-        try {
-
-            javax.xml.bind.Marshaller marshaller = getJAXBContext(clazz)
-                    .createMarshaller();
-            return marshaller;
-
-        } catch (JAXBException e) {
-            LOGGER.error(e.getMessage(), e);
-            throw new RuntimeException(e);
-        }
-    }
-
-    /**
-     * Returns Unmarshaller from JAXBContext for specified class
-     * 
-     * @param clazz
-     *            - Class
-     * @return - Unmarshaller
-     */
-    private javax.xml.bind.Unmarshaller getUnmarshaller(Class<?> clazz) {
-        try {
-
-            javax.xml.bind.Unmarshaller unmarshaller = getJAXBContext(clazz)
-                    .createUnmarshaller();
-
-            return unmarshaller;
-
-        } catch (JAXBException e) {
-            LOGGER.error(e.getMessage(), e);
-            throw new RuntimeException(e);
         }
+        return pool;
     }
 
     @SuppressWarnings("unchecked")
     public <T> T unmarshall(Source source, Class<T> resultClazz) {
+        Pool pool = getPool(resultClazz);
+        javax.xml.bind.Unmarshaller unmarshaller = pool.borrowUnmarshaller();
         try {
-
-            return (T) getUnmarshaller(resultClazz).unmarshal(source);
+            T result = (T) unmarshaller.unmarshal(source);
+            pool.returnUnmarshaller(unmarshaller);
+            return result;
         } catch (JAXBException e) {
             LOGGER.error(e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
 
-    @SuppressWarnings("unchecked")
     public <T> T unmarshall(String string, Class<T> resultClazz) {
-        try {
+        // string is parsed as is without encoding to bytes
+        return unmarshall(new StreamSource(new StringReader(string)), resultClazz);
+    }
 
-            return (T) getUnmarshaller(resultClazz).unmarshal(new ByteArrayInputStream(string.getBytes()));
+    @SuppressWarnings("unchecked")
+    public <T> T unmarshall(File file, Class<T> resultClazz) {
+        Pool pool = getPool(resultClazz);
+        javax.xml.bind.Unmarshaller unmarshaller = pool.borrowUnmarshaller();
+        try {
+            T result = (T) unmarshaller.unmarshal(file);
+            pool.returnUnmarshaller(unmarshaller);
+            return result;
         } catch (JAXBException e) {
             LOGGER.error(e.getMessage(), e);
             throw new RuntimeException(e);
@@ -144,29 +122,49 @@ class Marshaller {
     }
 
     @SuppressWarnings("unchecked")
-    public <T> T unmarshall(File file, Class<T> resultClazz) {
+    public <T> T unmarshall(InputStream is, Class<T> resultClazz) {
+        Pool pool = getPool(resultClazz);
+        javax.xml.bind.Unmarshaller unmarshaller = pool.borrowUnmarshaller();
         try {
-            return (T) getUnmarshaller(resultClazz).unmarshal(file);
+            T result = (T) unmarshaller.unmarshal(is);
+            pool.returnUnmarshaller(unmarshaller);
+            return result;
         } catch (JAXBException e) {
             LOGGER.error(e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public <T> T unmarshall(InputStream is, Class<T> resultClazz) {
+    /**
+     * Returns iterator over elements with specified name, document is read by StAX so only current element is kept in
+     * memory.
+     * 
+     * @param is
+     *            - InputStream
+     * @param elementName
+     *            - local name of repeated element
+     * @param resultClazz
+     *            - element class
+     * @return - UnmarshallingIterator
+     */
+    public <T> UnmarshallingIterator<T> unmarshall(InputStream is, String elementName, Class<T> resultClazz) {
+        Pool pool = getPool(resultClazz);
+        XMLStreamReader reader;
         try {
-            return (T) getUnmarshaller(resultClazz).unmarshal(is);
-        } catch (JAXBException e) {
+            reader = xmlInputFactory.createXMLStreamReader(is);
+        } catch (XMLStreamException e) {
             LOGGER.error(e.getMessage(), e);
             throw new RuntimeException(e);
         }
+        return new UnmarshallingIterator<T>(reader, elementName, resultClazz, pool.borrowUnmarshaller(), pool::returnUnmarshaller);
     }
 
     public void marshall(Object jaxbElement, Result paramResult) {
+        Pool pool = getPool(jaxbElement.getClass());
+        javax.xml.bind.Marshaller marshaller = pool.borrowMarshaller();
         try {
-            getMarshaller(jaxbElement.getClass()).marshal(jaxbElement,
-                    paramResult);
+            marshaller.marshal(jaxbElement, paramResult);
+            pool.returnMarshaller(marshaller);
         } catch (JAXBException e) {
             LOGGER.error(e.getMessage(), e);
             throw new RuntimeException(e);
@@ -175,8 +173,11 @@ class Marshaller {
     }
 
     public void marshall(Object jaxbElement, Writer writer) {
+        Pool pool = getPool(jaxbElement.getClass());
+        javax.xml.bind.Marshaller marshaller = pool.borrowMarshaller();
         try {
-            getMarshaller(jaxbElement.getClass()).marshal(jaxbElement, writer);
+            marshaller.marshal(jaxbElement, writer);
+            pool.returnMarshaller(marshaller);
         } catch (JAXBException e) {
             LOGGER.error(e.getMessage(), e);
             throw new RuntimeException(e);
@@ -185,14 +186,56 @@ class Marshaller {
     }
 
     public String marshall(Object jaxbElement) {
-        try {
-            final StringWriter w = new StringWriter();
-            getMarshaller(jaxbElement.getClass()).marshal(jaxbElement, w);
-            return w.toString();
-        } catch (JAXBException e) {
-            LOGGER.error(e.getMessage(), e);
-            throw new RuntimeException(e);
+        final StringWriter w = new StringWriter();
+        marshall(jaxbElement, w);
+        return w.toString();
+    }
+
+    /**
+     * JAXBContext is thread safe while marshallers and unmarshallers are not, so they are created on demand and
+     * reused by one thread at a time. Instances which failed are not returned to the pool as their state is unknown.
+     */
+    private static class Pool {
+        private final JAXBContext context;
+        private final Queue<javax.xml.bind.Marshaller> marshallers = new ConcurrentLinkedQueue<javax.xml.bind.Marshaller>();
+        private final Queue<javax.xml.bind.Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<javax.xml.bind.Unmarshaller>();
+
+        private Pool(JAXBContext context) {
+            this.context = context;
+        }
+
+        private javax.xml.bind.Marshaller borrowMarshaller() {
+            javax.xml.bind.Marshaller marshaller = marshallers.poll();
+            if (marshaller == null) {
+                try {
+                    marshaller = context.createMarshaller();
+                } catch (JAXBException e) {
+                    LOGGER.error(e.getMessage(), e);
+                    throw new RuntimeException(e);
+                }
+            }
+            return marshaller;
         }
 
+        private void returnMarshaller(javax.xml.bind.Marshaller marshaller) {
+            marshallers.offer(marshaller);
+        }
+
+        private javax.xml.bind.Unmarshaller borrowUnmarshaller() {
+            javax.xml.bind.Unmarshaller unmarshaller = unmarshallers.poll();
+            if (unmarshaller == null) {
+                try {
+                    unmarshaller = context.createUnmarshaller();
+                } catch (JAXBException e) {
+                    LOGGER.error(e.getMessage(), e);
+                    throw new RuntimeException(e);
+                }
+            }
+            return unmarshaller;
+        }
+
+        private void returnUnmarshaller(javax.xml.bind.Unmarshaller unmarshaller) {
+            unmarshallers.offer(unmarshaller);
+        }
     }
 }
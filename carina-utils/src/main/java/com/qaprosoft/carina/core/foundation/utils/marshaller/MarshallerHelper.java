@@ -108,6 +108,21 @@ public class MarshallerHelper {
         return marshaller.unmarshall(is, resultClazz);
     }
 
+    /**
+     * Create JAXBElements from repeated elements of large document. Elements are unmarshalled one by one while
+     * document is read.
+     * 
+     * @param <T> Generic
+     * @param is Input Stream
+     * @param elementName local name of repeated element
+     * @param resultClazz expected class of element
+     * 
+     * @return UnmarshallingIterator, should be closed if not all elements are read
+     */
+    public static <T> UnmarshallingIterator<T> unmarshall(InputStream is, String elementName, Class<T> resultClazz) {
+        return marshaller.unmarshall(is, elementName, resultClazz);
+    }
+
     public static <T> T unmarshall(String string, Class<T> resultClazz) {
         return marshaller.unmarshall(string, resultClazz);
     }
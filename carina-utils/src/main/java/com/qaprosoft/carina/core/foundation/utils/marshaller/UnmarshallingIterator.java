@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.marshaller;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterates over repeated elements of XML document and unmarshalls them one by one while the document is read, so
+ * memory usage does not depend on document size. Iterator is closed when all elements are read, close it explicitly
+ * (e.g. in try-with-resources) if iteration can be stopped earlier. Underlying stream is not closed.
+ * 
+ * @param <T> element class
+ */
+public class UnmarshallingIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final XMLStreamReader reader;
+    private final String elementName;
+    private final Class<T> elementClazz;
+    private final Consumer<Unmarshaller> release;
+    private Unmarshaller unmarshaller;
+
+    UnmarshallingIterator(XMLStreamReader reader, String elementName, Class<T> elementClazz, Unmarshaller unmarshaller,
+            Consumer<Unmarshaller> release) {
+        this.reader = reader;
+        this.elementName = elementName;
+        this.elementClazz = elementClazz;
+        this.unmarshaller = unmarshaller;
+        this.release = release;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (unmarshaller == null) {
+            return false;
+        }
+        try {
+            // unmarshaller leaves reader right after the previous element
+            while (!(reader.isStartElement() && elementName.equals(reader.getLocalName()))) {
+                if (!reader.hasNext()) {
+                    close();
+                    return false;
+                }
+                if (reader.next() == XMLStreamConstants.END_DOCUMENT) {
+                    close();
+                    return false;
+                }
+            }
+            return true;
+        } catch (XMLStreamException e) {
+            LOGGER.error(e.getMessage(), e);
+            closeQuietly();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return unmarshaller.unmarshal(reader, elementClazz).getValue();
+        } catch (JAXBException e) {
+            LOGGER.error(e.getMessage(), e);
+            closeQuietly();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (unmarshaller == null) {
+            return;
+        }
+        Unmarshaller released = unmarshaller;
+        closeQuietly();
+        release.accept(released);
+    }
+
+    private void closeQuietly() {
+        // unmarshaller is not reused after failure
+        unmarshaller = null;
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            LOGGER.debug(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.MDC;
+import org.apache.log4j.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Events/sec of the legacy appender (new SimpleDateFormat, location info and flush per line) vs buffered
+ * {@link ThreadLogAppender} at 1/16/64 threads, each thread writing its own test.log.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreadLogAppenderBenchmark {
+    private static final Logger LOGGER = Logger.getLogger(ThreadLogAppenderBenchmark.class);
+
+    @State(Scope.Benchmark)
+    public static class Appenders {
+        File dir;
+        AppenderSkeleton legacy;
+        ThreadLogAppender buffered;
+
+        @Setup
+        public void setup() throws IOException {
+            dir = Files.createTempDirectory("thread-log-appender").toFile();
+            legacy = new LegacyThreadLogAppender(dir);
+            buffered = new TempThreadLogAppender(dir);
+            // size limit must not drop lines during measurement
+            buffered.setMaxFileSize(1024 * 1024);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        // test.log of the thread is closed and removed after each iteration like after each test
+        @TearDown(org.openjdk.jmh.annotations.Level.Iteration)
+        public void tearDown(Appenders appenders) {
+            appenders.legacy.close();
+            appenders.buffered.close();
+            testLogFile(appenders.dir).delete();
+        }
+    }
+
+    private static File testLogFile(File dir) {
+        return new File(dir, Thread.currentThread().getName() + ".log");
+    }
+
+    private static LoggingEvent event() {
+        return new LoggingEvent(Logger.class.getName(), LOGGER, Level.INFO, "Click on 'login' button", null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void legacy1(Appenders appenders, Writer writer) {
+        appenders.legacy.doAppend(event());
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void legacy16(Appenders appenders, Writer writer) {
+        appenders.legacy.doAppend(event());
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void legacy64(Appenders appenders, Writer writer) {
+        appenders.legacy.doAppend(event());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void buffered1(Appenders appenders, Writer writer) {
+        appenders.buffered.doAppend(event());
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void buffered16(Appenders appenders, Writer writer) {
+        appenders.buffered.doAppend(event());
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void buffered64(Appenders appenders, Writer writer) {
+        appenders.buffered.doAppend(event());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ThreadLogAppenderBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static class TempThreadLogAppender extends ThreadLogAppender {
+        private final File dir;
+
+        TempThreadLogAppender(File dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected File getTestLogFile() {
+            return testLogFile(dir);
+        }
+    }
+
+    /**
+     * ThreadLogAppender before buffering, only test.log location is changed.
+     */
+    private static class LegacyThreadLogAppender extends AppenderSkeleton {
+        private final ThreadLocal<BufferedWriter> testLogBuffer = new ThreadLocal<BufferedWriter>();
+        private final String MAX_LOG_FILE_SIZE = "1024";
+        private final File dir;
+        private long bytesWritten;
+
+        LegacyThreadLogAppender(File dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        public void append(LoggingEvent event) {
+            try {
+                BufferedWriter fw = testLogBuffer.get();
+                if (fw == null) {
+                    File testLogFile = testLogFile(dir);
+                    if (!testLogFile.exists()) {
+                        testLogFile.createNewFile();
+                        bytesWritten = 0;
+                    }
+                    fw = new BufferedWriter(new FileWriter(testLogFile, true));
+                    testLogBuffer.set(fw);
+                }
+
+                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss");
+                String time = dateFormat.format(event.getTimeStamp());
+                long threadId = Thread.currentThread().getId();
+                MDC.put("threadId", "-" + String.valueOf(threadId));
+                String fileName = event.getLocationInformation().getFileName();
+                String logLevel = event.getLevel().toString();
+                String eventMessage = event.getMessage() != null ? event.getMessage().toString() : "";
+
+                String message = String.format("[%s] [%s] [%s] [%s] %s", time, fileName, threadId, logLevel, eventMessage);
+                ensureCapacity(message.length());
+                fw.write(message);
+                fw.write("\n");
+                fw.flush();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                BufferedWriter fw = testLogBuffer.get();
+                if (fw != null) {
+                    fw.close();
+                    testLogBuffer.remove();
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+
+        private void ensureCapacity(int len) throws IOException {
+            long newBytesWritten = this.bytesWritten + len;
+            long maxMegaBytes = Long.parseLong(MAX_LOG_FILE_SIZE) * 1024 * 1024;
+            if (newBytesWritten > maxMegaBytes)
+                throw new IOException("test Log file size exceeded core limit: " + newBytesWritten + " > " + maxMegaBytes);
+            this.bytesWritten = newBytesWritten;
+        }
+    }
+}
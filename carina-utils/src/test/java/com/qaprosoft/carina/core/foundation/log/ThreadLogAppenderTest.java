@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class ThreadLogAppenderTest {
+    private static final Logger LOGGER = Logger.getLogger(ThreadLogAppenderTest.class);
+
+    private static final ThreadLocal<String> testName = new ThreadLocal<>();
+
+    private File dir;
+
+    @BeforeClass(alwaysRun = true)
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("thread-log-appender").toFile();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void deleteDir() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test()
+    public void testLinesAreWrittenOnClose() throws Exception {
+        // small buffer is written by test threads themselves as well
+        ThreadLogAppender appender = new TempThreadLogAppender(dir);
+        appender.setBufferSize(16);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<File>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int test = i;
+                futures.add(executor.submit(() -> {
+                    testName.set("test" + test);
+                    for (int line = 0; line < 1000; line++) {
+                        appender.doAppend(event("test" + test + " line" + line));
+                    }
+                    File testLog = appender.getTestLogFile();
+                    appender.close();
+                    return testLog;
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                List<String> lines = Files.readAllLines(futures.get(i).get().toPath(), StandardCharsets.UTF_8);
+                Assert.assertEquals(lines.size(), 1000, "Incorrect number of lines in test.log!");
+                for (int line = 0; line < lines.size(); line++) {
+                    Assert.assertTrue(lines.get(line).contains("] [ThreadLogAppenderTest] ["), lines.get(line));
+                    Assert.assertTrue(lines.get(line).endsWith("] [INFO] test" + i + " line" + line), lines.get(line));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test()
+    public void testSizeLimitIsPerTest() throws Exception {
+        ThreadLogAppender appender = new TempThreadLogAppender(dir);
+        appender.setMaxFileSize(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // first test exceeds the limit, second one is not affected
+            Future<File> big = executor.submit(() -> {
+                testName.set("big");
+                String message = new String(new char[1024]).replace('\0', 'x');
+                for (int line = 0; line < 2048; line++) {
+                    appender.doAppend(event(message));
+                }
+                File testLog = appender.getTestLogFile();
+                appender.close();
+                return testLog;
+            });
+            big.get();
+            Future<File> small = executor.submit(() -> {
+                testName.set("small");
+                appender.doAppend(event("small"));
+                File testLog = appender.getTestLogFile();
+                appender.close();
+                return testLog;
+            });
+
+            List<String> bigLines = Files.readAllLines(big.get().toPath(), StandardCharsets.UTF_8);
+            Assert.assertTrue(big.get().length() <= 1024 * 1024 + 1024, "test.log size exceeded the limit: " + big.get().length());
+            Assert.assertTrue(bigLines.get(bigLines.size() - 1).startsWith("test Log file size exceeded core limit"));
+
+            List<String> smallLines = Files.readAllLines(small.get().toPath(), StandardCharsets.UTF_8);
+            Assert.assertEquals(smallLines.size(), 1);
+            Assert.assertTrue(smallLines.get(0).endsWith("small"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static LoggingEvent event(String message) {
+        return new LoggingEvent(Logger.class.getName(), LOGGER, Level.INFO, message, null);
+    }
+
+    private static class TempThreadLogAppender extends ThreadLogAppender {
+        private final File dir;
+
+        TempThreadLogAppender(File dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected File getTestLogFile() {
+            return new File(dir, testName.get() + ".log");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class AdbExecutorTest {
+
+    private final AdbExecutor executor = new AdbExecutor();
+
+    @BeforeClass(alwaysRun = true)
+    public void checkShell() {
+        if (Platform.IS_WINDOWS) {
+            throw new SkipException("Test requires unix shell");
+        }
+    }
+
+    @Test()
+    public void testLargeOutputIsDrained() {
+        // output of both streams is much bigger than pipe buffer
+        List<String> output = executor.execute(new String[] { "sh", "-c", "seq 1 200000; seq 1 200000 >&2" });
+        Assert.assertEquals(output.size(), 200000, "Incorrect number of lines!");
+        Assert.assertEquals(output.get(output.size() - 1), "200000");
+    }
+
+    @Test()
+    public void testStreaming() {
+        AtomicInteger lines = new AtomicInteger();
+        executor.execute(new String[] { "sh", "-c", "seq 1 1000" }, line -> lines.incrementAndGet());
+        Assert.assertEquals(lines.get(), 1000, "Incorrect number of streamed lines!");
+    }
+
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class AdbShellTest {
+
+    private static final String UDID = "fake-device";
+
+    private final AtomicInteger started = new AtomicInteger();
+
+    // local shell process emulates "adb -s UDID shell" session
+    private final Function<String, AdbShell> factory = udid -> {
+        started.incrementAndGet();
+        return new AdbShell(udid, new ProcessBuilderExecutor("sh"));
+    };
+
+    @BeforeClass(alwaysRun = true)
+    public void checkShell() {
+        if (Platform.IS_WINDOWS) {
+            throw new SkipException("Test requires unix shell");
+        }
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void close() {
+        AdbShell.close(UDID);
+    }
+
+    @Test()
+    public void testOutputIsFramedByMarker() {
+        int before = started.get();
+        List<String> lines = new ArrayList<>();
+        Assert.assertEquals(AdbShell.execute(UDID, "echo first; echo second", lines::add, factory), 0);
+        Assert.assertEquals(lines, Arrays.asList("first", "second"), "Incorrect command output!");
+
+        lines.clear();
+        // output without trailing new line shares the line with marker
+        AdbShell.execute(UDID, "printf third", lines::add, factory);
+        Assert.assertEquals(lines, Arrays.asList("third"), "Output without trailing new line wasn't returned!");
+        Assert.assertEquals(started.get() - before, 1, "Shell session wasn't reused!");
+    }
+
+    @Test()
+    public void testExitCode() {
+        Assert.assertEquals(AdbShell.execute(UDID, "false", line -> {
+        }, factory), 1, "Incorrect exit code!");
+        Assert.assertEquals(AdbShell.execute(UDID, "sh -c 'exit 42'", line -> {
+        }, factory), 42, "Incorrect exit code!");
+    }
+
+    @Test()
+    public void testStderrIsNotMerged() {
+        List<String> lines = new ArrayList<>();
+        AdbShell.execute(UDID, "echo out; echo err >&2", lines::add, factory);
+        Assert.assertEquals(lines, Arrays.asList("out"), "Stderr should be logged only as for adb process!");
+    }
+
+    @Test()
+    public void testRestartAfterDeadShell() {
+        int before = started.get();
+        Assert.assertThrows(RuntimeException.class, () -> AdbShell.execute(UDID, "exit", line -> {
+        }, factory));
+
+        List<String> lines = new ArrayList<>();
+        AdbShell.execute(UDID, "echo alive", lines::add, factory);
+        Assert.assertEquals(lines, Arrays.asList("alive"), "Command wasn't executed in new session!");
+        Assert.assertEquals(started.get() - before, 2, "Dead shell session wasn't recreated!");
+    }
+
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.utils;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.PlaceholderResolver;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+/**
+ * Cost of {@link Configuration#getInt(Parameter)}: legacy lookup (test properties, placeholders resolving and
+ * parsing on each call) vs configuration snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Config {
+        Properties properties;
+
+        @Setup
+        public void setup() {
+            R.CONFIG.put(Parameter.BIG_SCREEN_WIDTH.getKey(), "1920");
+            properties = R.CONFIG.getProperties();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int legacy1(Config config) {
+        return legacyGetInt(config.properties, Parameter.BIG_SCREEN_WIDTH);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int legacy16(Config config) {
+        return legacyGetInt(config.properties, Parameter.BIG_SCREEN_WIDTH);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int snapshot1(Config config) {
+        return Configuration.getInt(Parameter.BIG_SCREEN_WIDTH);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int snapshot16(Config config) {
+        return Configuration.getInt(Parameter.BIG_SCREEN_WIDTH);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConfigurationBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Configuration.getInt and R.get before snapshot.
+     */
+    private static int legacyGetInt(Properties properties, Parameter param) {
+        String value = R.CONFIG.getTestProperties().getProperty(param.getKey());
+        if (value == null) {
+            value = PlaceholderResolver.resolve(properties, param.getKey());
+        }
+        value = value != null ? value : StringUtils.EMPTY;
+        value = !value.equalsIgnoreCase(SpecialKeywords.NULL) ? value : StringUtils.EMPTY;
+        return Integer.valueOf(value.trim());
+    }
+}
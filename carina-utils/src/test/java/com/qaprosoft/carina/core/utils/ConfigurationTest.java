@@ -67,6 +67,38 @@ public class ConfigurationTest {
         Assert.assertEquals(Configuration.get(Parameter.URL), "http://localhost:8081");
     }
 
+    @Test
+    public void testTypedValueIsUpdated() {
+        R.CONFIG.put(Parameter.BIG_SCREEN_WIDTH.getKey(), "1920");
+        Assert.assertEquals(Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), 1920);
+        Assert.assertEquals(Configuration.getLong(Parameter.BIG_SCREEN_WIDTH), 1920L);
+
+        R.CONFIG.put(Parameter.BIG_SCREEN_WIDTH.getKey(), " 1280 ");
+        Assert.assertEquals(Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), 1280, "Global change wasn't applied!");
+    }
+
+    @Test
+    public void testTypedValueOverriddenForTest() {
+        R.CONFIG.put(Parameter.BIG_SCREEN_HEIGHT.getKey(), "1080");
+        Assert.assertEquals(Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), 1080);
+        try {
+            R.CONFIG.put(Parameter.BIG_SCREEN_HEIGHT.getKey(), "720", true);
+            Assert.assertEquals(Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), 720, "Test value wasn't applied!");
+        } finally {
+            R.CONFIG.clearTestProperties();
+        }
+        Assert.assertEquals(Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), 1080);
+    }
+
+    @Test
+    public void testTypedValueWithPlaceholder() {
+        R.CONFIG.put("default_retry_interval", "1000");
+        R.CONFIG.put(Parameter.RETRY_INTERVAL.getKey(), "${default_retry_interval}");
+        Assert.assertEquals(Configuration.getInt(Parameter.RETRY_INTERVAL), 1000);
+        R.CONFIG.put("default_retry_interval", "2000");
+        Assert.assertEquals(Configuration.getInt(Parameter.RETRY_INTERVAL), 2000, "Placeholder wasn't resolved again!");
+    }
+
     @Test
     public void testAdbExecTimeout() {
         R.CONFIG.put(SpecialKeywords.ADB_EXEC_TIMEOUT, "30000");
@@ -2,6 +2,7 @@ package com.qaprosoft.carina.core.utils;
 
 import com.qaprosoft.carina.core.foundation.utils.XmlFormatter;
 import com.qaprosoft.carina.core.foundation.utils.marshaller.MarshallerHelper;
+import com.qaprosoft.carina.core.foundation.utils.marshaller.UnmarshallingIterator;
 import com.qaprosoft.carina.core.foundation.utils.marshaller.exception.ParserException;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -14,9 +15,13 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class XmlUtilsTest {
 
@@ -97,6 +102,36 @@ public class XmlUtilsTest {
         Assert.assertEquals(actualCity, CITY, actualCity.getName() + " is different than " + CITY.getName());
     }
 
+    @Test
+    public void testMarshallUnmarshallInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<City>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> MarshallerHelper.unmarshall(MarshallerHelper.marshall(CITY), City.class)));
+            }
+            for (Future<City> future : futures) {
+                Assert.assertEquals(future.get(), CITY);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUnmarshallRepeatedElements() {
+        String cityXmlStr = MarshallerHelper.marshall(CITY);
+        InputStream is = new ByteArrayInputStream(cityXmlStr.getBytes(StandardCharsets.UTF_8));
+
+        List<Member> members = new ArrayList<>();
+        try (UnmarshallingIterator<Member> iterator = MarshallerHelper.unmarshall(is, "member", Member.class)) {
+            iterator.forEachRemaining(members::add);
+            Assert.assertFalse(iterator.hasNext());
+        }
+
+        Assert.assertEquals(members, Arrays.asList(MEMBER1, MEMBER2, MEMBER3));
+    }
+
     @Test(expectedExceptions = RuntimeException.class)
     public void testUnmarshallThrowRuntimeException() {
         String cityXmlStr = MarshallerHelper.marshall(CITY);
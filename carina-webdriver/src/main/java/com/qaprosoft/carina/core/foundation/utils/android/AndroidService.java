@@ -27,7 +27,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.qaprosoft.carina.core.foundation.utils.android.DeviceTimeZone.TimeFormat;
-import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.CmdLine;
 import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
 import com.qaprosoft.carina.core.foundation.utils.factory.DeviceType;
 import com.qaprosoft.carina.core.foundation.utils.mobile.notifications.android.Notification;
@@ -250,45 +249,34 @@ public class AndroidService implements IDriverPool, IAndroidUtils {
      * @return List of Notification
      */
     public List<Notification> getNotifications(boolean withLogger) {
-        String[] getNotificationsCmd = null;
-        String deviceName = IDriverPool.getDefaultDevice().getAdbName();
-        if (!deviceName.isEmpty()) {
-            getNotificationsCmd = CmdLine.insertCommandsAfter(baseInitCmd, "-s", deviceName, "shell", "dumpsys", "notification");
-        } else {
-            getNotificationsCmd = CmdLine.insertCommandsAfter(baseInitCmd, "shell", "dumpsys", "notification");
-        }
-
-        LOGGER.info("getNotifications cmd was built: " + CmdLine.arrayToString(getNotificationsCmd));
+        LOGGER.info("getNotifications cmd was built: shell dumpsys notification");
 
-        // TODO: migrate to executeAbdCommand later
+        // output is parsed while it is read so the whole dump is never kept in memory
         List<Notification> resultList = new ArrayList<Notification>();
-        List<String> notificationsOutput = executor.execute(getNotificationsCmd);
-        Notification notification = new Notification();
-        for (String output : notificationsOutput) {
+        Notification[] notification = { new Notification() };
+        executeAdbCommand("shell dumpsys notification", output -> {
             boolean found = false;
 
             Matcher matcher = NOTIFICATION_PATTERN.matcher(output);
             while (matcher.find()) {
-                notification.setNotificationPkg(matcher.group(1));
+                notification[0].setNotificationPkg(matcher.group(1));
                 if (withLogger)
                     LOGGER.info(matcher.group(1));
             }
             Matcher matcher2 = NOTIFICATION_TEXT_PATTERN.matcher(output);
             while (matcher2.find()) {
-                notification.setNotificationText(matcher2.group(1));
+                notification[0].setNotificationText(matcher2.group(1));
                 if (withLogger)
                     LOGGER.info(matcher2.group(1));
                 found = true;
             }
             if (found) {
-                resultList.add(notification);
+                resultList.add(notification[0]);
                 if (withLogger)
-                    LOGGER.info(notification.getNotificationText());
-                notification = new Notification();
-                found = false;
+                    LOGGER.info(notification[0].getNotificationText());
+                notification[0] = new Notification();
             }
-
-        }
+        });
         if (withLogger)
             LOGGER.info("Found: " + resultList.size() + " notifications.");
         return resultList;
@@ -690,21 +678,30 @@ public class AndroidService implements IDriverPool, IAndroidUtils {
                      // thread
         DeviceTimeZone dt = new DeviceTimeZone();
 
-        String value = executeAdbCommand("shell settings get global auto_time");
+        // all settings are read by single adb command, every command prints exactly one line
+        List<String> values = new ArrayList<String>();
+        try {
+            executeAdbCommand("shell settings get global auto_time; settings get global auto_time_zone;"
+                    + " settings get system time_12_24; getprop persist.sys.timezone", values::add);
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+
+        String value = getLine(values, 0);
         if (value.contains("0")) {
             dt.setAutoTime(false);
         } else {
             dt.setAutoTime(true);
         }
 
-        value = executeAdbCommand("shell settings get global auto_time_zone");
+        value = getLine(values, 1);
         if (value.contains("0")) {
             dt.setAutoTimezone(false);
         } else {
             dt.setAutoTimezone(true);
         }
 
-        value = executeAdbCommand("shell settings get system time_12_24");
+        value = getLine(values, 2);
         if (value.contains("12")) {
             dt.setTimeFormat(TimeFormat.FORMAT_12);
         } else {
@@ -712,7 +709,7 @@ public class AndroidService implements IDriverPool, IAndroidUtils {
         }
 
         if (defaultTZ.isEmpty()) {
-            value = executeAdbCommand("shell getprop persist.sys.timezone");
+            value = getLine(values, 3);
             if (!value.isEmpty()) {
                 dt.setTimezone(value);
             }
@@ -736,6 +733,10 @@ public class AndroidService implements IDriverPool, IAndroidUtils {
         return dt;
     }
 
+    private String getLine(List<String> lines, int index) {
+        return index < lines.size() ? lines.get(index).trim() : "";
+    }
+
     /**
      * get Device Actual TimeZone
      *
@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -44,6 +45,7 @@ import com.qaprosoft.carina.core.foundation.utils.android.Permissions.Permission
 import com.qaprosoft.carina.core.foundation.utils.android.Permissions.PermissionAction;
 import com.qaprosoft.carina.core.foundation.utils.android.Permissions.PermissionType;
 import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.AdbExecutor;
+import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.AdbShell;
 import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.CmdLine;
 import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
 import com.qaprosoft.carina.core.foundation.utils.mobile.IMobileUtils;
@@ -690,7 +692,39 @@ public interface IAndroidUtils extends IMobileUtils {
      * @return String command output in one line
      */
     default public String executeAdbCommand(String command) {
+        StringBuilder result = new StringBuilder();
+        try {
+            executeAdbCommand(command, line -> {
+                if (result.length() > 0) {
+                    result.append(' ');
+                }
+                result.append(line);
+            });
+        } catch (Exception e) {
+            UTILS_LOGGER.error(e.getMessage(), e);
+        }
+
+        UTILS_LOGGER.info("Returning Output: " + result.toString().trim());
+        return result.toString().trim();
+    }
+
+    /**
+     * Execute adb command and pass output to the consumer line by line. When adb_persistent_shell is enabled "shell"
+     * commands are executed in persistent shell session of the device.
+     *
+     * @param command
+     *            String adb command without "adb -s UDID" prefix
+     * @param lineConsumer
+     *            Consumer of output lines
+     */
+    default public void executeAdbCommand(String command, Consumer<String> lineConsumer) {
         String deviceName = getDevice().getAdbName();
+        if (!deviceName.isEmpty() && command.startsWith("shell ") && AdbShell.isEnabled()) {
+            UTILS_LOGGER.info("Try to execute following cmd in persistent shell of " + deviceName + ": " + command);
+            AdbShell.execute(deviceName, command.substring("shell ".length()), lineConsumer);
+            return;
+        }
+
         if (!deviceName.isEmpty()) {
             // add remoteURL/udid reference
             command = "-s " + deviceName + " " + command;
@@ -698,25 +732,13 @@ public interface IAndroidUtils extends IMobileUtils {
             UTILS_LOGGER.warn("nullDevice detected fot current thread!");
         }
 
-        String result = "";
         UTILS_LOGGER.info("Command: " + command);
         String[] listOfCommands = command.split(" ");
 
         String[] execCmd = CmdLine.insertCommandsAfter(baseInitCmd, listOfCommands);
 
-        try {
-            UTILS_LOGGER.info("Try to execute following cmd: " + CmdLine.arrayToString(execCmd));
-            List<String> execOutput = executor.execute(execCmd);
-            UTILS_LOGGER.info("Output after execution ADB command: " + execOutput);
-
-            result = execOutput.toString().replaceAll("\\[|\\]", "").replaceAll(", ", " ").trim();
-
-            UTILS_LOGGER.info("Returning Output: " + result);
-        } catch (Exception e) {
-            UTILS_LOGGER.error(e.getMessage(), e);
-        }
-
-        return result;
+        UTILS_LOGGER.info("Try to execute following cmd: " + CmdLine.arrayToString(execCmd));
+        executor.execute(execCmd, lineConsumer);
     }
 
     /**
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.factory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Compile time index of pages annotated by {@link DeviceType}. Every "parentClass=pageClass" pair is written into
+ * {@link PageClassResolver#INDEX} so the page factory doesn't have to scan the whole classpath. Processor is registered
+ * via META-INF/services and runs automatically for every project which has carina-webdriver on compile classpath.
+ */
+@SupportedAnnotationTypes("com.qaprosoft.carina.core.foundation.utils.factory.DeviceType")
+public class DeviceTypeIndexProcessor extends AbstractProcessor {
+
+    private final Set<String> entries = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(DeviceType.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            TypeElement page = (TypeElement) element;
+            String parentClass = getParentClass(page);
+            if (parentClass != null) {
+                entries.add(parentClass + PageClassResolver.INDEX_SEPARATOR
+                        + processingEnv.getElementUtils().getBinaryName(page));
+            }
+        }
+        return false;
+    }
+
+    private String getParentClass(TypeElement page) {
+        try {
+            // class values aren't available during compilation, exception always provides the type
+            return page.getAnnotation(DeviceType.class).parentClass().getName();
+        } catch (MirroredTypeException e) {
+            TypeMirror type = e.getTypeMirror();
+            if (type.getKind() == TypeKind.DECLARED) {
+                TypeElement parent = (TypeElement) ((DeclaredType) type).asElement();
+                return processingEnv.getElementUtils().getBinaryName(parent).toString();
+            }
+        }
+        return null;
+    }
+
+    private void writeIndex() {
+        if (entries.isEmpty()) {
+            return;
+        }
+        // keep entries of classes which are not recompiled in this round (incremental compilation)
+        readExistingIndex();
+
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", PageClassResolver.INDEX);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Unable to write " + PageClassResolver.INDEX + ": " + e.getMessage());
+        }
+    }
+
+    private void readExistingIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", PageClassResolver.INDEX);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        entries.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // there is no index yet
+        }
+    }
+
+}
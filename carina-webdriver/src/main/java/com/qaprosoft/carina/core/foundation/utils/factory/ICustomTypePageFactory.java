@@ -6,10 +6,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 import org.openqa.selenium.WebDriver;
-import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,8 +31,6 @@ public interface ICustomTypePageFactory extends IDriverPool {
     String DOUBLE_OBJ_STR = "class java.lang.Double";
     String DOUBLE_STR = "double";
 
-    Reflections REFLECTIONS = new Reflections("");
-
     public default <T extends AbstractPage> T initPage(Class<T> parentClass, Object... parameters) {
         return initPage(getDriver(), parentClass, parameters);
     }
@@ -46,9 +42,6 @@ public interface ICustomTypePageFactory extends IDriverPool {
             throw new RuntimeException("Page isn't created. Driver isn't initialized.");
         }
 
-        Set<Class<? extends T>> setClasses = REFLECTIONS.getSubTypesOf(parentClass);
-        PAGEFACTORY_LOGGER.debug("Relatives classes count:" + setClasses.size());
-        Class<? extends T> versionClass = null, majorVersionClass = null, deviceClass = null, familyClass = null, requiredClass = null;
         Type screenType = IDriverPool.getDefaultDevice().getDeviceType();
 
         Device device = IDriverPool.getDefaultDevice();
@@ -57,66 +50,18 @@ public interface ICustomTypePageFactory extends IDriverPool {
         if (!device.getOsVersion().isEmpty()) {
             deviceVersion = device.getOsVersion();
         }
-        String majorVersionNumber = deviceVersion.split(VERSION_SPLITTER)[0];
-        PAGEFACTORY_LOGGER.debug("Major version of device OS: " + majorVersionNumber);
-        for (Class<? extends T> clazz : setClasses) {
-            if (clazz.getAnnotation(DeviceType.class) == null || clazz.getAnnotation(DeviceType.class).parentClass() != parentClass) {
-                PAGEFACTORY_LOGGER.debug(String.format("Removing as parentClass (%s) is not satisfied or due to absence of @DeviceType annotation on class: %s",
-                        parentClass.getName(), clazz.getName()));
-                continue;
-            }
-            DeviceType dt = clazz.getAnnotation(DeviceType.class);
-
-            PAGEFACTORY_LOGGER.debug(String.format("Expected screenType: %s, Actual screenType: %s", screenType, dt.pageType()));
-            if (dt.pageType().equals(screenType)) {
-                if (Arrays.asList(dt.version()).contains(deviceVersion)) {
-                    PAGEFACTORY_LOGGER.debug("Expected version: " + deviceVersion);
-                    PAGEFACTORY_LOGGER.debug("Actual versions: " + dt.version());
-                    versionClass = clazz;
-                    break;
-                }
-
-                for (String version : dt.version()) {
-                    if (version.split(VERSION_SPLITTER)[0].equals(majorVersionNumber)) {
-                        majorVersionClass = clazz;
-                        PAGEFACTORY_LOGGER.debug("Class was chosen by major version number of device");
-                        break;
-                    }
-                }
-
-                deviceClass = clazz;
-                continue;
-            }
-            if (dt.pageType().getFamily().equals(screenType.getFamily())) {
-                PAGEFACTORY_LOGGER.debug(String.format("Family class '%s' correspond to required page.", screenType.getFamily()));
-                familyClass = clazz;
-            }
-
-        }
         try {
-            if (versionClass != null) {
-                PAGEFACTORY_LOGGER.debug("Instance by version and platform will be created.");
-                requiredClass = versionClass;
-            } else if (majorVersionClass != null) {
-                PAGEFACTORY_LOGGER.debug("Instance by major version and platform will be created.");
-                requiredClass = majorVersionClass;
-            } else if (deviceClass != null) {
-                PAGEFACTORY_LOGGER.debug("Instance by platform will be created.");
-                requiredClass = deviceClass;
-            } else if (familyClass != null) {
-                PAGEFACTORY_LOGGER.debug("Instance by family will be created.");
-                requiredClass = familyClass;
-            } else {
-                throw new RuntimeException(
-                        String.format("There is no any class that satisfy to required conditions: [parent class - %s], [device type - %s]",
-                                parentClass.getName(), screenType));
-            }
+            Class<? extends T> requiredClass = PageClassResolver.resolve(parentClass, screenType, deviceVersion);
             // handle cases where we have only WebDriver as ctor parameter
             if (parameters.length == 0) {
                 parameters = new Object[] { driver };
             }
             PAGEFACTORY_LOGGER.debug("Invoking constructor for " + requiredClass);
-            Constructor<? extends T> requiredCtor = getConstructorByParams(requiredClass, parameters);
+            Constructor<? extends T> requiredCtor = PageClassResolver.getConstructor(requiredClass, parameters);
+            if (requiredCtor == null) {
+                requiredCtor = getConstructorByParams(requiredClass, parameters);
+                PageClassResolver.putConstructor(requiredClass, parameters, requiredCtor);
+            }
 
             return requiredCtor.newInstance(parameters);
         } catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException | SecurityException e) {
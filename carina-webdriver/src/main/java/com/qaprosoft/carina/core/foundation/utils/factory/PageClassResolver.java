@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.factory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.reflections.Reflections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.factory.DeviceType.Type;
+import com.qaprosoft.carina.core.gui.AbstractPage;
+
+/**
+ * Resolves page implementation for the parent page class, device type and OS version. Candidates are taken from
+ * the compile time index generated by {@link DeviceTypeIndexProcessor}. Parent classes absent in the index are
+ * searched by the classpath scan. Chosen classes and constructors are memoized.
+ */
+public final class PageClassResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String INDEX = "META-INF/carina/device-type.index";
+    static final String INDEX_SEPARATOR = "=";
+
+    private static final String VERSION_SPLITTER = "\\.";
+
+    private static volatile Map<String, List<String>> index;
+
+    private static final Map<String, Class<?>> pageClasses = new ConcurrentHashMap<>();
+    private static final Map<String, Constructor<?>> constructors = new ConcurrentHashMap<>();
+
+    private PageClassResolver() {
+        // hide default constructor
+    }
+
+    /**
+     * Choose page implementation by exact OS version, major OS version, device type and device family in that order.
+     *
+     * @param <T> page type
+     * @param parentClass Class
+     * @param screenType device type
+     * @param deviceVersion OS version
+     * @return page implementation class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends AbstractPage> Class<? extends T> resolve(Class<T> parentClass, Type screenType, String deviceVersion) {
+        String key = parentClass.getName() + "|" + screenType + "|" + deviceVersion;
+        Class<?> pageClass = pageClasses.get(key);
+        if (pageClass == null) {
+            pageClass = choose(parentClass, screenType, deviceVersion);
+            pageClasses.put(key, pageClass);
+        }
+        return (Class<? extends T>) pageClass;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends AbstractPage> Constructor<? extends T> getConstructor(Class<? extends T> pageClass, Object... parameters) {
+        return (Constructor<? extends T>) constructors.get(getConstructorKey(pageClass, parameters));
+    }
+
+    static void putConstructor(Class<?> pageClass, Object[] parameters, Constructor<?> constructor) {
+        constructors.put(getConstructorKey(pageClass, parameters), constructor);
+    }
+
+    private static String getConstructorKey(Class<?> pageClass, Object... parameters) {
+        StringBuilder key = new StringBuilder(pageClass.getName());
+        for (Object parameter : parameters) {
+            key.append('|').append(parameter.getClass().getName());
+        }
+        return key.toString();
+    }
+
+    private static <T extends AbstractPage> Class<? extends T> choose(Class<T> parentClass, Type screenType, String deviceVersion) {
+        Set<Class<? extends T>> setClasses = getCandidates(parentClass);
+        LOGGER.debug("Relatives classes count:" + setClasses.size());
+        Class<? extends T> versionClass = null, majorVersionClass = null, deviceClass = null, familyClass = null;
+
+        String majorVersionNumber = deviceVersion.split(VERSION_SPLITTER)[0];
+        LOGGER.debug("Major version of device OS: " + majorVersionNumber);
+        for (Class<? extends T> clazz : setClasses) {
+            if (clazz.getAnnotation(DeviceType.class) == null || clazz.getAnnotation(DeviceType.class).parentClass() != parentClass) {
+                LOGGER.debug(String.format("Removing as parentClass (%s) is not satisfied or due to absence of @DeviceType annotation on class: %s",
+                        parentClass.getName(), clazz.getName()));
+                continue;
+            }
+            DeviceType dt = clazz.getAnnotation(DeviceType.class);
+
+            LOGGER.debug(String.format("Expected screenType: %s, Actual screenType: %s", screenType, dt.pageType()));
+            if (dt.pageType().equals(screenType)) {
+                if (Arrays.asList(dt.version()).contains(deviceVersion)) {
+                    LOGGER.debug("Expected version: " + deviceVersion);
+                    LOGGER.debug("Actual versions: " + dt.version());
+                    versionClass = clazz;
+                    break;
+                }
+
+                for (String version : dt.version()) {
+                    if (version.split(VERSION_SPLITTER)[0].equals(majorVersionNumber)) {
+                        majorVersionClass = clazz;
+                        LOGGER.debug("Class was chosen by major version number of device");
+                        break;
+                    }
+                }
+
+                deviceClass = clazz;
+                continue;
+            }
+            if (dt.pageType().getFamily().equals(screenType.getFamily())) {
+                LOGGER.debug(String.format("Family class '%s' correspond to required page.", screenType.getFamily()));
+                familyClass = clazz;
+            }
+        }
+
+        if (versionClass != null) {
+            LOGGER.debug("Instance by version and platform will be created.");
+            return versionClass;
+        } else if (majorVersionClass != null) {
+            LOGGER.debug("Instance by major version and platform will be created.");
+            return majorVersionClass;
+        } else if (deviceClass != null) {
+            LOGGER.debug("Instance by platform will be created.");
+            return deviceClass;
+        } else if (familyClass != null) {
+            LOGGER.debug("Instance by family will be created.");
+            return familyClass;
+        }
+        throw new RuntimeException(String.format("There is no any class that satisfy to required conditions: [parent class - %s], [device type - %s]",
+                parentClass.getName(), screenType));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Set<Class<? extends T>> getCandidates(Class<T> parentClass) {
+        List<String> classNames = getIndex().get(parentClass.getName());
+        if (classNames == null) {
+            LOGGER.debug("There is no indexed pages for " + parentClass.getName() + ", classpath will be scanned.");
+            return ReflectionsHolder.REFLECTIONS.getSubTypesOf(parentClass);
+        }
+
+        Set<Class<? extends T>> classes = new LinkedHashSet<>();
+        for (String className : classNames) {
+            try {
+                Class<?> clazz = Class.forName(className, false, getClassLoader());
+                if (parentClass.isAssignableFrom(clazz)) {
+                    classes.add((Class<? extends T>) clazz);
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                // index can contain classes removed after previous incremental compilation
+                LOGGER.debug("Indexed page class is not available: " + className);
+            }
+        }
+        return classes;
+    }
+
+    private static Map<String, List<String>> getIndex() {
+        if (index == null) {
+            synchronized (PageClassResolver.class) {
+                if (index == null) {
+                    index = loadIndex();
+                }
+            }
+        }
+        return index;
+    }
+
+    private static Map<String, List<String>> loadIndex() {
+        Map<String, List<String>> pages = new HashMap<>();
+        try {
+            Enumeration<URL> resources = getClassLoader().getResources(INDEX);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                LOGGER.debug("Loading page index: " + resource);
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] entry = line.trim().split(INDEX_SEPARATOR);
+                        if (entry.length == 2) {
+                            pages.computeIfAbsent(entry[0], k -> new ArrayList<>()).add(entry[1]);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to load page index, classpath will be scanned: " + e.getMessage());
+            LOGGER.debug(e.getMessage(), e);
+        }
+        return pages;
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : PageClassResolver.class.getClassLoader();
+    }
+
+    private static class ReflectionsHolder {
+        // full classpath scan is done only once and only if some parent class is not indexed
+        private static final Reflections REFLECTIONS = new Reflections("");
+    }
+
+}
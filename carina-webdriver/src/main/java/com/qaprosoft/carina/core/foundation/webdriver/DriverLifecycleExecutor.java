@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ElementCache;
+
+/**
+ * Shared executor for driver lifecycle operations (close/quit). Threads are daemon and bounded, hung tasks are cancelled
+ * on timeout. When the pool and its queue are full the operation is executed by a small overflow pool, so the timeout
+ * is still enforced. Only when the overflow pool is saturated too the caller runs close/quit itself.
+ */
+public final class DriverLifecycleExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    static final int MAX_THREADS = 64;
+    static final int MAX_QUEUED = 256;
+    static final int OVERFLOW_THREADS = 8;
+    static final int OVERFLOW_QUEUED = 64;
+    static final long DEFAULT_QUIT_TIMEOUT = 30;
+
+    private static final ThreadPoolExecutor executor = createExecutor();
+    private static final ThreadPoolExecutor overflowExecutor = createOverflowExecutor();
+
+    private static final AtomicInteger inFlightQuits = new AtomicInteger();
+    private static final LongAdder quits = new LongAdder();
+    private static final LongAdder quitTimeouts = new LongAdder();
+    private static final LongAdder quitLatency = new LongAdder();
+
+    private DriverLifecycleExecutor() {
+        // hide default constructor
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED), runnable -> newThread(runnable, "carina-driver-lifecycle"),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadPoolExecutor createOverflowExecutor() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(OVERFLOW_THREADS, OVERFLOW_THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(OVERFLOW_QUEUED), runnable -> newThread(runnable, "carina-driver-lifecycle-overflow"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Submit lifecycle operation to the pool or to the overflow pool when the pool is saturated.
+     *
+     * @param operation Callable
+     * @return Future to wait for and cancel the operation
+     */
+    private static Future<?> submit(Callable<?> operation) {
+        inFlightQuits.incrementAndGet();
+        Callable<?> tracked = () -> {
+            try {
+                return operation.call();
+            } finally {
+                inFlightQuits.decrementAndGet();
+            }
+        };
+        try {
+            return executor.submit(tracked);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Driver lifecycle pool is saturated, driver is quit by overflow pool.");
+            return overflowExecutor.submit(tracked);
+        }
+    }
+
+    /**
+     * Close and quit driver waiting no more than DEFAULT_QUIT_TIMEOUT seconds.
+     *
+     * @param driver WebDriver
+     */
+    public static void quit(WebDriver driver) {
+        quit(driver, DEFAULT_QUIT_TIMEOUT);
+    }
+
+    /**
+     * Close and quit driver. Hung operation is cancelled after timeout.
+     *
+     * @param driver WebDriver
+     * @param timeout long timeout in seconds
+     */
+    public static void quit(WebDriver driver, long timeout) {
+        long start = System.currentTimeMillis();
+        ElementCache.invalidate(driver);
+        Future<?> future = submit(() -> {
+            driver.close();
+            driver.quit();
+            return null;
+        });
+
+        try {
+            future.get(timeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            quitTimeouts.increment();
+            future.cancel(true);
+            LOGGER.error("Unable to quit driver for " + timeout + "sec!", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            LOGGER.error("Unable to quit driver for " + timeout + "sec!", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.warn("ExecutionException error on driver quit detected! Enable DEBUG log level for details.");
+            LOGGER.debug(e.getMessage(), e);
+        } catch (Exception e) {
+            LOGGER.warn("Undefined error on driver quit detected!");
+            LOGGER.debug(e.getMessage(), e);
+        } finally {
+            quits.increment();
+            quitLatency.add(System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Quit driver in background without waiting for the result. Used to release sessions from failed driver
+     * initialization attempts.
+     *
+     * @param driver WebDriver
+     */
+    public static void quitAsync(WebDriver driver) {
+        ElementCache.invalidate(driver);
+        submit(() -> {
+            try {
+                driver.quit();
+            } catch (Exception e) {
+                LOGGER.debug("Unable to quit driver in background: " + e.getMessage(), e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return number of close/quit operations which are executing right now
+     */
+    public static int getInFlightQuits() {
+        return inFlightQuits.get();
+    }
+
+    /**
+     * @return number of close/quit operations cancelled by timeout
+     */
+    public static long getQuitTimeouts() {
+        return quitTimeouts.sum();
+    }
+
+    /**
+     * @return average close/quit latency in milliseconds
+     */
+    public static long getAverageQuitLatency() {
+        long count = quits.sum();
+        return count == 0 ? 0 : quitLatency.sum() / count;
+    }
+
+}
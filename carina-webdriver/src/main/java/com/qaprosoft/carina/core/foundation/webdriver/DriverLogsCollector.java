@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogEntries;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.remote.SessionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.report.ReportContext;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Collects driver logs (logcat, server, client, syslog etc) as artifacts before the driver quit.
+ * Entries are streamed into the artifact files, in async mode every log type is fetched in parallel
+ * within driver_logs_timeout.
+ */
+public final class DriverLogsCollector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "carina-driver-logs");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DriverLogsCollector() {
+        // hide default constructor
+    }
+
+    /**
+     * Save driver logs of provided types into the artifacts folder.
+     *
+     * @param driver WebDriver
+     * @param sessionId SessionId used as log file name
+     * @param logTypes log types to collect
+     */
+    public static void collect(WebDriver driver, SessionId sessionId, Collection<String> logTypes) {
+        if (!Configuration.getBoolean(Parameter.DRIVER_LOGS_ASYNC)) {
+            for (String logType : logTypes) {
+                saveLog(driver, sessionId, logType);
+            }
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (String logType : logTypes) {
+            futures.add(executor.submit(() -> saveLog(driver, sessionId, logType)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Configuration.getLong(Parameter.DRIVER_LOGS_TIMEOUT));
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                LOGGER.warn("Unable to collect driver logs in " + Configuration.get(Parameter.DRIVER_LOGS_TIMEOUT) + " sec!");
+                future.cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+            } catch (ExecutionException e) {
+                LOGGER.debug("Unable to collect driver logs.", e);
+            }
+        }
+    }
+
+    private static void saveLog(WebDriver driver, SessionId sessionId, String logType) {
+        Iterator<LogEntry> entries = getDriverLogs(driver, logType).iterator();
+        if (!entries.hasNext()) {
+            //don't write something to file and don't register appropriate artifact
+            return;
+        }
+
+        String fileName = ReportContext.getArtifactsFolder().getAbsolutePath() + File.separator + logType + File.separator
+                + sessionId.toString() + ".log";
+        File file = new File(fileName);
+        LOGGER.debug("Saving log artifact: " + fileName);
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), Charset.defaultCharset())) {
+                while (entries.hasNext()) {
+                    writer.write(entries.next().toString());
+                    writer.newLine();
+                }
+            }
+            LOGGER.debug("Saved log artifact: " + fileName);
+        } catch (IOException e) {
+            LOGGER.warn("Error has been occured during attempt to extract " + logType + " log.", e);
+        }
+    }
+
+    /**
+     * Get driver logs by type.
+     * Android: logcat, bugreport, server, client;
+     * iOS: syslog, crashlog, performance, server, safariConsole, safariNetwork, client
+     *
+     * @param driver WebDriver
+     * @param logType String
+     *
+     * @return LogEntries entries
+     */
+    private static LogEntries getDriverLogs(WebDriver driver, String logType) {
+        LogEntries logEntries = new LogEntries(Collections.emptyList());
+        LOGGER.debug("start getting driver logs: " + logType);
+        try {
+            if (driver.manage() != null) {
+                LOGGER.debug("Getting log artifact: " + logType);
+                logEntries = driver.manage().logs().get(logType);
+                LOGGER.debug("Got log artifact: " + logType);
+            } else {
+                LOGGER.error("driver.manage() is null!");
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Unable to get webdriver server logs.");
+            LOGGER.debug("Unable to get webdriver server logs.", e);
+        }
+        LOGGER.debug("finish getting driver logs");
+        return logEntries;
+    }
+
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.qaprosoft.carina.core.foundation.webdriver.TestPhase.Phase;
+
+/**
+ * Set of registered Carina drivers indexed by thread id and driver name. Before suite drivers are shared across all
+ * threads so they are indexed by name only. Registration, removal and lookup are O(1) while iteration still goes over
+ * the whole set.
+ */
+public final class DriverPoolIndex extends AbstractSet<CarinaDriver> {
+
+    private final ConcurrentHashMap<CarinaDriver, Integer> drivers;
+
+    private final Map<Long, Map<String, CarinaDriver>> threadDrivers = new ConcurrentHashMap<>();
+    private final Map<String, CarinaDriver> beforeSuiteDrivers = new ConcurrentHashMap<>();
+
+    public DriverPoolIndex(ConcurrentHashMap<CarinaDriver, Integer> drivers) {
+        this.drivers = drivers;
+        for (CarinaDriver carinaDriver : drivers.keySet()) {
+            index(carinaDriver);
+        }
+    }
+
+    @Override
+    public boolean add(CarinaDriver carinaDriver) {
+        if (drivers.putIfAbsent(carinaDriver, 0) != null) {
+            return false;
+        }
+        index(carinaDriver);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (drivers.remove(o) == null) {
+            return false;
+        }
+        unindex((CarinaDriver) o);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return drivers.containsKey(o);
+    }
+
+    @Override
+    public int size() {
+        return drivers.size();
+    }
+
+    @Override
+    public Iterator<CarinaDriver> iterator() {
+        Iterator<CarinaDriver> iterator = drivers.keySet().iterator();
+        return new Iterator<CarinaDriver>() {
+            private CarinaDriver current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public CarinaDriver next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                unindex(current);
+            }
+        };
+    }
+
+    /**
+     * Find driver visible for the thread: driver registered by this thread or before suite driver.
+     *
+     * @param threadId long
+     * @param name String driver name
+     * @return CarinaDriver or null
+     */
+    public CarinaDriver get(long threadId, String name) {
+        Map<String, CarinaDriver> current = threadDrivers.get(threadId);
+        CarinaDriver carinaDriver = current == null ? null : current.get(name);
+        return carinaDriver != null ? carinaDriver : beforeSuiteDrivers.get(name);
+    }
+
+    /**
+     * @param threadId long
+     * @return drivers visible for the thread by name including before suite ones
+     */
+    public ConcurrentHashMap<String, CarinaDriver> getDrivers(long threadId) {
+        ConcurrentHashMap<String, CarinaDriver> currentDrivers = new ConcurrentHashMap<>(beforeSuiteDrivers);
+        Map<String, CarinaDriver> current = threadDrivers.get(threadId);
+        if (current != null) {
+            currentDrivers.putAll(current);
+        }
+        return currentDrivers;
+    }
+
+    /**
+     * @param threadId long
+     * @return number of drivers visible for the thread including before suite ones
+     */
+    public int count(long threadId) {
+        Map<String, CarinaDriver> current = threadDrivers.get(threadId);
+        if (current == null || current.isEmpty()) {
+            return beforeSuiteDrivers.size();
+        }
+        int count = current.size();
+        for (String name : beforeSuiteDrivers.keySet()) {
+            if (!current.containsKey(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void index(CarinaDriver carinaDriver) {
+        if (Phase.BEFORE_SUITE.equals(carinaDriver.getPhase())) {
+            beforeSuiteDrivers.put(carinaDriver.getName(), carinaDriver);
+        } else {
+            threadDrivers.computeIfAbsent(carinaDriver.getThreadId(), k -> new ConcurrentHashMap<>())
+                    .put(carinaDriver.getName(), carinaDriver);
+        }
+    }
+
+    private void unindex(CarinaDriver carinaDriver) {
+        if (Phase.BEFORE_SUITE.equals(carinaDriver.getPhase())) {
+            beforeSuiteDrivers.remove(carinaDriver.getName(), carinaDriver);
+            return;
+        }
+        Map<String, CarinaDriver> current = threadDrivers.get(carinaDriver.getThreadId());
+        if (current != null && current.remove(carinaDriver.getName(), carinaDriver)) {
+            return;
+        }
+        // thread id was changed after registration
+        for (Map<String, CarinaDriver> byName : threadDrivers.values()) {
+            if (byName.remove(carinaDriver.getName(), carinaDriver)) {
+                return;
+            }
+        }
+    }
+
+}
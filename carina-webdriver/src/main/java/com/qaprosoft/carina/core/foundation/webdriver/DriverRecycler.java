@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ElementCache;
+
+/**
+ * Driver recycling between tests. When driver_recycling is enabled desktop driver is not quit at the end of the test:
+ * its state is reset (cookies, local/session storage, extra windows, about:blank) and the session is handed to the next
+ * test on any thread requesting the same capabilities. Session is quit after driver_max_reuse usages or when it fails
+ * the health probe.
+ * <p>
+ * WebDriver can clear cookies and storage of the current origin only, so state of other origins visited by the test
+ * (e.g. SSO domain) is handed to the next test. Recycling can be turned on or off for particular capabilities by
+ * {@link #RECYCLING_CAPABILITY} which takes precedence over driver_recycling.
+ */
+public final class DriverRecycler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String RECYCLING_CAPABILITY = "carina:driverRecycling";
+
+    private static final Map<WebDriver, RecycledSession> registered = new ConcurrentHashMap<>();
+    private static final Map<String, ConcurrentLinkedDeque<WebDriver>> idle = new ConcurrentHashMap<>();
+
+    private DriverRecycler() {
+        // hide default constructor
+    }
+
+    /**
+     * Register driver for recycling. Already registered (reused) driver keeps its usage counter.
+     *
+     * @param driver WebDriver
+     * @param capabilities DesiredCapabilities
+     * @param seleniumHost String
+     */
+    public static void register(WebDriver driver, DesiredCapabilities capabilities, String seleniumHost) {
+        if (!isEnabled(capabilities)) {
+            return;
+        }
+        registered.computeIfAbsent(driver, d -> new RecycledSession(WarmDriverPool.getSignature(capabilities, seleniumHost))).uses.incrementAndGet();
+    }
+
+    /**
+     * Forget driver which is quit instead of recycling.
+     *
+     * @param driver WebDriver
+     */
+    public static void unregister(WebDriver driver) {
+        if (driver != null) {
+            registered.remove(driver);
+        }
+    }
+
+    /**
+     * Take idle recycled driver with the same capabilities.
+     *
+     * @param capabilities DesiredCapabilities
+     * @param seleniumHost String
+     * @return WebDriver or null if recycling is disabled or there is no healthy idle session
+     */
+    public static WebDriver take(DesiredCapabilities capabilities, String seleniumHost) {
+        if (!isEnabled(capabilities)) {
+            return null;
+        }
+        ConcurrentLinkedDeque<WebDriver> drivers = idle.get(WarmDriverPool.getSignature(capabilities, seleniumHost));
+        if (drivers == null) {
+            return null;
+        }
+
+        WebDriver driver;
+        while ((driver = drivers.pollFirst()) != null) {
+            if (isHealthy(driver)) {
+                LOGGER.debug("Recycled driver session will be returned.");
+                return driver;
+            }
+            registered.remove(driver);
+            DriverLifecycleExecutor.quitAsync(driver);
+        }
+        return null;
+    }
+
+    /**
+     * Reset driver state and put it into the idle sessions instead of quit.
+     *
+     * @param driver WebDriver
+     * @return true if driver was recycled, false if it should be quit
+     */
+    public static boolean recycle(WebDriver driver) {
+        RecycledSession session = registered.get(driver);
+        if (session == null) {
+            return false;
+        }
+        if (session.uses.get() >= Configuration.getInt(Parameter.DRIVER_MAX_REUSE) || !reset(driver)) {
+            registered.remove(driver);
+            return false;
+        }
+        idle.computeIfAbsent(session.signature, k -> new ConcurrentLinkedDeque<>()).addLast(driver);
+        LOGGER.debug("Driver session recycled after " + session.uses.get() + " usage(s).");
+        return true;
+    }
+
+    /**
+     * Quit all idle recycled sessions.
+     */
+    public static void shutdown() {
+        for (ConcurrentLinkedDeque<WebDriver> drivers : idle.values()) {
+            WebDriver driver;
+            while ((driver = drivers.pollFirst()) != null) {
+                registered.remove(driver);
+                DriverLifecycleExecutor.quit(driver);
+            }
+        }
+    }
+
+    private static boolean isEnabled(DesiredCapabilities capabilities) {
+        if (!SpecialKeywords.DESKTOP.equals(Configuration.getDriverType(capabilities))) {
+            return false;
+        }
+        Object recycling = capabilities != null ? capabilities.getCapability(RECYCLING_CAPABILITY) : null;
+        if (recycling != null) {
+            return Boolean.parseBoolean(recycling.toString());
+        }
+        return Configuration.getBoolean(Parameter.DRIVER_RECYCLING);
+    }
+
+    private static boolean reset(WebDriver driver) {
+        ElementCache.invalidate(driver);
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            for (int i = 1; i < handles.size(); i++) {
+                driver.switchTo().window(handles.get(i));
+                driver.close();
+            }
+            driver.switchTo().window(handles.get(0));
+
+            // cookies and storage of the current origin only, other origins can't be reached by WebDriver
+            driver.manage().deleteAllCookies();
+            ((JavascriptExecutor) driver).executeScript("try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            driver.navigate().to("about:blank");
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Unable to reset driver session state: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private static boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Recycled driver session is not healthy: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static class RecycledSession {
+        private final String signature;
+        private final AtomicInteger uses = new AtomicInteger();
+
+        RecycledSession(String signature) {
+            this.signature = signature;
+        }
+    }
+
+}
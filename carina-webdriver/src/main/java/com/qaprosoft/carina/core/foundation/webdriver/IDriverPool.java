@@ -15,28 +15,18 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.webdriver;
 
-import java.io.File;
-import java.io.IOException;
 import java.lang.invoke.MethodHandles;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.log4j.MDC;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriverException;
-import org.openqa.selenium.logging.LogEntries;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.remote.SessionId;
@@ -49,7 +39,6 @@ import com.qaprosoft.carina.browsermobproxy.ProxyPool;
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.exception.DriverPoolException;
 import com.qaprosoft.carina.core.foundation.listeners.TestNamingService;
-import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.R;
@@ -65,8 +54,9 @@ public interface IDriverPool {
 
     // unified set of Carina WebDrivers
     static final ConcurrentHashMap<CarinaDriver, Integer> driversMap = new ConcurrentHashMap<>();
-    @SuppressWarnings("static-access")
-    static final Set<CarinaDriver> driversPool = driversMap.newKeySet();
+    // drivers indexed by thread and name to avoid scanning of the whole pool on each lookup
+    static final DriverPoolIndex driversIndex = new DriverPoolIndex(driversMap);
+    static final Set<CarinaDriver> driversPool = driversIndex;
     
     static final ConcurrentHashMap<SessionId, String> sessionsMap = new ConcurrentHashMap<>();
 
@@ -122,9 +112,8 @@ public interface IDriverPool {
     default public WebDriver getDriver(String name, DesiredCapabilities capabilities, String seleniumHost) {
         WebDriver drv = null;
 
-        ConcurrentHashMap<String, CarinaDriver> currentDrivers = getDrivers();
-        if (currentDrivers.containsKey(name)) {
-            CarinaDriver cdrv = currentDrivers.get(name);
+        CarinaDriver cdrv = driversIndex.get(Thread.currentThread().getId(), name);
+        if (cdrv != null) {
             drv = cdrv.getDriver();
             registerDriverSession(drv);
             if (Phase.BEFORE_SUITE.equals(cdrv.getPhase())) {
@@ -230,21 +219,10 @@ public interface IDriverPool {
      */
     default public void quitDriver(String name) {
 
-        WebDriver drv = null;
-        CarinaDriver carinaDrv = null;
-        Long threadId = Thread.currentThread().getId();
-
         POOL_LOGGER.debug("before quitDriver: " + driversPool);
-        for (CarinaDriver carinaDriver : driversPool) {
-            if ((Phase.BEFORE_SUITE.equals(carinaDriver.getPhase()) && name.equals(carinaDriver.getName()))
-                    || (threadId.equals(carinaDriver.getThreadId()) && name.equals(carinaDriver.getName()))) {
-                drv = carinaDriver.getDriver();
-                carinaDrv = carinaDriver;
-                break;
-            }
-        }
+        CarinaDriver carinaDrv = driversIndex.get(Thread.currentThread().getId(), name);
 
-        if (drv == null || carinaDrv == null) {
+        if (carinaDrv == null || carinaDrv.getDriver() == null) {
             throw new RuntimeException("Unable to find driver '" + name + "'!");
         }
         
@@ -270,7 +248,7 @@ public interface IDriverPool {
         for (CarinaDriver carinaDriver : driversPool) {
             if ((phases.contains(carinaDriver.getPhase()) && threadId.equals(carinaDriver.getThreadId()))
                     || phases.contains(Phase.ALL)) {
-                quitDriver(carinaDriver, false);
+                quitDriver(carinaDriver, false, true);
                 drivers4Remove.add(carinaDriver);
             }
         }
@@ -281,6 +259,10 @@ public interface IDriverPool {
     }
     
     private void quitDriver(CarinaDriver carinaDriver, boolean keepProxyDuring) {
+        quitDriver(carinaDriver, keepProxyDuring, false);
+    }
+
+    private void quitDriver(CarinaDriver carinaDriver, boolean keepProxyDuring, boolean recycle) {
         try {
             carinaDriver.getDevice().disconnectRemote();
             if (!keepProxyDuring) {
@@ -298,6 +280,7 @@ public interface IDriverPool {
             // https://github.com/qaprosoft/carina/issues/1174
             if (R.CONFIG.getBoolean(SpecialKeywords.ENABLE_LOG) && Configuration.getBoolean(Parameter.DRIVER_RECORDER)) {
                 try {
+                    Set<String> logTypes = new HashSet<>();
                     for (String logType : getAvailableDriverLogTypes(carinaDriver.getDriver())) {
                         if ("bugreport".equals(logType) || "performance".equals(logType)) {
                             // bugreport -  there is no sense to upload as it is too slow (~1 min) and doesn't return valuable info
@@ -308,26 +291,10 @@ public interface IDriverPool {
                             // unrecognized exception on this phase for iOS which block below execution
                             continue;
                         }
-                        String fileName = ReportContext.getArtifactsFolder().getAbsolutePath() + File.separator + logType + File.separator + sessionId.toString() + ".log";
-                        StringBuilder tempStr = new StringBuilder();
-                        LogEntries logcatEntries = getDriverLogs(carinaDriver.getDriver(), logType);
-                        logcatEntries.getAll().forEach((k) -> tempStr.append(k.toString().concat("\n")));
-                        
-                        if (tempStr.length() == 0) {
-                            //don't write something to file and don't register appropriate artifact
-                            continue;
-                        }
-        
-                        File file = null;
-                        try {
-                            POOL_LOGGER.debug("Saving log artifact: " + fileName);
-                            file = new File(fileName);
-                            FileUtils.writeStringToFile(file, tempStr.toString(), Charset.defaultCharset());
-                            POOL_LOGGER.debug("Saved log artifact: " + fileName);
-                        } catch (IOException e) {
-                            POOL_LOGGER.warn("Error has been occured during attempt to extract " + logType + " log.", e);
-                        }
+                        logTypes.add(logType);
                     }
+                    // logs should be collected before the quit as session is not available after that
+                    DriverLogsCollector.collect(carinaDriver.getDriver(), sessionId, logTypes);
                 } catch (Exception e) {
                     POOL_LOGGER.warn("Unable to extract webdriver server logs!");
                     POOL_LOGGER.debug(e.getMessage(), e);
@@ -337,29 +304,12 @@ public interface IDriverPool {
             WebDriver driver = carinaDriver.getDriver();
             POOL_LOGGER.debug("start driver quit: " + carinaDriver.getName());
             
-            Future<?> future = Executors.newSingleThreadExecutor().submit(new Callable<Void>() {
-                public Void call() throws Exception {
-                    driver.close();
-                    driver.quit();
-                    return null;
-                }
-            });
-            
-            long wait = 30;
-            try {
-                future.get(wait, TimeUnit.SECONDS);
-            } catch (java.util.concurrent.TimeoutException e) {
-                POOL_LOGGER.error("Unable to quit driver for " + wait + "sec!", e);
-            } catch (InterruptedException e) {
-                POOL_LOGGER.error("Unable to quit driver for " + wait + "sec!", e);
-                Thread.currentThread().interrupt();
-            } catch (ExecutionException e) {
-                POOL_LOGGER.warn("ExecutionException error on driver quit detected! Enable DEBUG log level for details.");
-                POOL_LOGGER.debug(e.getMessage(), e);
-            } catch (Exception e) {
-                POOL_LOGGER.warn("Undefined error on driver quit detected!");
-                POOL_LOGGER.debug(e.getMessage(), e);
+            if (recycle && DriverRecycler.recycle(driver)) {
+                POOL_LOGGER.debug("driver recycled instead of quit: " + carinaDriver.getName());
+                return;
             }
+            DriverRecycler.unregister(driver);
+            DriverLifecycleExecutor.quit(driver);
             
             POOL_LOGGER.debug("finished driver quit: " + carinaDriver.getName());
         } catch (WebDriverException e) {
@@ -386,36 +336,6 @@ public interface IDriverPool {
         return logTypes;
     }
     
-    /**
-     * Get driver logs by type. 
-     * Android: logcat, bugreport, server, client; 
-     * iOS: syslog, crashlog, performance, server, safariConsole, safariNetwork, client
-     * 
-     * @param driver WebDriver
-     * @param logType String
-     * 
-     * @return LogEntries entries
-     */
-    private LogEntries getDriverLogs(WebDriver driver, String logType) {
-        //TODO: make it async in parallel thread
-        LogEntries logEntries = new LogEntries(Collections.emptyList());
-        POOL_LOGGER.debug("start getting driver logs: " + logType);
-        try {
-            if (driver.manage() != null) {
-                POOL_LOGGER.debug("Getting log artifact: " + logType);
-                logEntries = driver.manage().logs().get(logType);
-                POOL_LOGGER.debug("Got log artifact: " + logType);
-            } else {
-                POOL_LOGGER.error("driver.manage() is null!");
-            }
-        } catch (Exception e) {
-            POOL_LOGGER.warn("Unable to get webdriver server logs.");
-            POOL_LOGGER.debug("Unable to get webdriver server logs.", e);
-        }
-        POOL_LOGGER.debug("finish getting driver logs");
-        return logEntries;
-    }
-    
     /**
      * Create driver with custom capabilities
      * 
@@ -439,23 +359,27 @@ public interface IDriverPool {
                 POOL_LOGGER.debug("initDriver start...");
                 
                 Long threadId = Thread.currentThread().getId();
-                ConcurrentHashMap<String, CarinaDriver> currentDrivers = getDrivers();
 
                 int maxDriverCount = Configuration.getInt(Parameter.MAX_DRIVER_COUNT);
 
-                if (currentDrivers.size() == maxDriverCount) {
+                if (driversIndex.count(threadId) == maxDriverCount) {
                     Assert.fail("Unable to create new driver as you reached max number of drivers per thread: " + maxDriverCount + "!" +
                             " Override max_driver_count to allow more drivers per test!");
                 }
 
                 // [VD] pay attention that similar piece of code is copied into the DriverPoolTest as registerDriver method!
-                if (currentDrivers.containsKey(name)) {
+                if (driversIndex.get(threadId, name) != null) {
                     // [VD] moved containsKey verification before the driver start
                     Assert.fail("Driver '" + name + "' is already registered for thread: " + threadId);
                 }
                 
-                drv = DriverFactory.create(name, capabilities, seleniumHost);
-
+                drv = DriverRecycler.take(capabilities, seleniumHost);
+                if (drv == null) {
+                    drv = WarmDriverPool.take(name, capabilities, seleniumHost);
+                }
+                if (drv == null) {
+                    drv = DriverFactory.create(name, capabilities, seleniumHost);
+                }
                 registerDriverSession(drv);
 
                 if (device.isNull()) {
@@ -488,9 +412,17 @@ public interface IDriverPool {
                 // new 6.0 approach to manipulate drivers via regular Set
                 CarinaDriver carinaDriver = new CarinaDriver(name, drv, device, TestPhase.getActivePhase(), threadId);
                 driversPool.add(carinaDriver);
+                // only successfully initialized driver can be recycled
+                DriverRecycler.register(drv, capabilities, seleniumHost);
                 POOL_LOGGER.debug("initDriver finish...");
             } catch (Exception e) {
                 device.disconnectRemote();
+                if (drv != null) {
+                    // release session started by the failed attempt in background and try again
+                    DriverRecycler.unregister(drv);
+                    DriverLifecycleExecutor.quitAsync(drv);
+                    drv = null;
+                }
                 //TODO: [VD] think about excluding device from pool for explicit reasons like out of space etc
                 // but initially try to implement it on selenium-hub level
                 String msg = String.format("Driver initialization '%s' FAILED! Retry %d of %d time - %s", name, count,
@@ -511,7 +443,8 @@ public interface IDriverPool {
     }
 
     /**
-     * Associates driver session id with test name and stores it in thread-safe map
+     * Associates driver session id with test name and stores it in thread-safe map.
+     * Reused (recycled or warm) session is remapped to the current test.
      * 
      * @param drv
      *            RemoteWebDriver instance of driver for session ID retrieving
@@ -525,9 +458,7 @@ public interface IDriverPool {
 
             @SuppressWarnings("deprecation")
             String testName = TestNamingService.getTestName();
-            if (!sessionsMap.containsKey(sessionId)) {
-                sessionsMap.put(sessionId, testName);
-            }
+            sessionsMap.put(sessionId, testName);
         } catch (Exception e) {
             POOL_LOGGER.debug("Exception during registering test session", e);
         }
@@ -542,7 +473,7 @@ public interface IDriverPool {
      * @return boolean
      */
     default boolean isDriverRegistered(String name) {
-        return getDrivers().containsKey(name);
+        return driversIndex.get(Thread.currentThread().getId(), name) != null;
     }
 
     /**
@@ -553,16 +484,7 @@ public interface IDriverPool {
      * 
      */
     default ConcurrentHashMap<String, CarinaDriver> getDrivers() {
-        Long threadId = Thread.currentThread().getId();
-        ConcurrentHashMap<String, CarinaDriver> currentDrivers = new ConcurrentHashMap<String, CarinaDriver>();
-        for (CarinaDriver carinaDriver : driversPool) {
-            if (Phase.BEFORE_SUITE.equals(carinaDriver.getPhase())) {
-                currentDrivers.put(carinaDriver.getName(), carinaDriver);
-            } else if (threadId.equals(carinaDriver.getThreadId())) {
-                currentDrivers.put(carinaDriver.getName(), carinaDriver);
-            }
-        }
-        return currentDrivers;
+        return driversIndex.getDrivers(Thread.currentThread().getId());
     }
 
     /**
@@ -606,8 +528,9 @@ public interface IDriverPool {
      * @return Device
      */
     default public Device getDevice(String name) {
-        if (isDriverRegistered(name)) {
-            return getDrivers().get(name).getDevice();
+        CarinaDriver carinaDriver = driversIndex.get(Thread.currentThread().getId(), name);
+        if (carinaDriver != null) {
+            return carinaDriver.getDevice();
         } else {
             return nullDevice;
         }
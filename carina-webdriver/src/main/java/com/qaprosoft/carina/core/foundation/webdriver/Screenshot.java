@@ -16,13 +16,13 @@
 package com.qaprosoft.carina.core.foundation.webdriver;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
-import java.nio.file.Files;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -31,7 +31,6 @@ import java.util.List;
 import javax.imageio.ImageIO;
 
 import org.apache.commons.io.FileUtils;
-import org.imgscalr.Scalr;
 import org.openqa.selenium.NoSuchWindowException;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
@@ -45,7 +44,6 @@ import org.slf4j.LoggerFactory;
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
-import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.webdriver.augmenter.DriverAugmenter;
 import com.qaprosoft.carina.core.foundation.webdriver.screenshot.IScreenshotRule;
 
@@ -229,21 +227,17 @@ public class Screenshot {
                 return null;
             }
 
-            if (Configuration.getInt(Parameter.BIG_SCREEN_WIDTH) != -1
-                    && Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT) != -1) {
-                resizeImg(screen, Configuration.getInt(Parameter.BIG_SCREEN_WIDTH),
-                        Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), screenPath);
-            }
-
-            File screenshot = new File(screenPath);
-
-            ImageIO.write(screen, "PNG", screenshot);
+            byte[] png = toPng(screen);
 
             // Uploading screenshot to Amazon S3
             if (artifact) {
+                // artifact is attached as file so it should be written synchronously
+                File screenshot = new File(screenPath);
+                FileUtils.writeByteArrayToFile(screenshot, png);
                 com.zebrunner.agent.core.registrar.Artifact.attachToTest(comment + ".png", screenshot);
             } else {
-                com.zebrunner.agent.core.registrar.Screenshot.upload(Files.readAllBytes(screenshot.toPath()), Instant.now().toEpochMilli());
+                ReportContext.saveScreenshot(png, screenPath);
+                com.zebrunner.agent.core.registrar.Screenshot.upload(png, Instant.now().toEpochMilli());
             }
             
             // add screenshot comment to collector
@@ -296,12 +290,10 @@ public class Screenshot {
                 augmentedDriver = new DriverAugmenter().augment(driver);
             }
 
-            BufferedImage screen;
-
             // Create screenshot
-            screen = takeVisibleScreenshot(augmentedDriver);
+            byte[] screen = takeVisibleScreenshot(augmentedDriver);
 
-            ImageIO.write(screen, "PNG", new File(screenPath));
+            FileUtils.writeByteArrayToFile(new File(screenPath), screen);
 
         } catch (IOException e) {
             LOGGER.error("Unable to capture screenshot due to the I/O issues!", e);
@@ -372,11 +364,11 @@ public class Screenshot {
                     augmentedDriver = new DriverAugmenter().augment(driver);
                 }
 
-                BufferedImage screen;
+                byte[] screen;
 
                 // Create screenshot
                 if (fullSize) {
-                    screen = takeFullScreenshot(driver, augmentedDriver);
+                    screen = toPng(takeFullScreenshot(driver, augmentedDriver));
                 } else {
                     screen = takeVisibleScreenshot(augmentedDriver);
                 }
@@ -386,17 +378,10 @@ public class Screenshot {
                 	return "";
                 }
 
-                if (Configuration.getInt(Parameter.BIG_SCREEN_WIDTH) != -1
-                        && Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT) != -1) {
-                    resizeImg(screen, Configuration.getInt(Parameter.BIG_SCREEN_WIDTH),
-                            Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), screenPath);
-                }
-
-                File screenshot = new File(screenPath);
-
-                ImageIO.write(screen, "PNG", screenshot);
+                // raw PNG is written as is, resize (if any) is done in background
+                ReportContext.saveScreenshot(screen, screenPath);
 
-                com.zebrunner.agent.core.registrar.Screenshot.upload(Files.readAllBytes(screenshot.toPath()), Instant.now().toEpochMilli());
+                com.zebrunner.agent.core.registrar.Screenshot.upload(screen, Instant.now().toEpochMilli());
 
                 // add screenshot comment to collector
                 ReportContext.addScreenshotComment(screenName, comment);
@@ -421,28 +406,21 @@ public class Screenshot {
     }
 
     /**
-     * Resizes image according to specified dimensions.
+     * Encodes image to PNG bytes once so the same buffer is written to disk and uploaded.
      *
      * @param bufferedImage
-     *            - image to resize.
-     * @param width
-     *            - new image width.
-     * @param height
-     *            - new image height.
-     * @param path
-     *            - path to screenshot file.
+     *            - image to encode.
+     * @exception IOException
+     *
+     * @return PNG bytes or null for empty image
      */
-    private static void resizeImg(BufferedImage bufferedImage, int width, int height, String path) {
-        try {
-            BufferedImage bufImage = Scalr.resize(bufferedImage, Scalr.Method.BALANCED, Scalr.Mode.FIT_TO_WIDTH, width, height,
-                    Scalr.OP_ANTIALIAS);
-            if (bufImage.getHeight() > height) {
-                bufImage = Scalr.crop(bufImage, bufImage.getWidth(), height);
-            }
-            ImageIO.write(bufImage, "png", new File(path));
-        } catch (Exception e) {
-            LOGGER.error("Image scaling problem!", e);
+    private static byte[] toPng(BufferedImage bufferedImage) throws IOException {
+        if (bufferedImage == null) {
+            return null;
         }
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ImageIO.write(bufferedImage, "PNG", os);
+        return os.toByteArray();
     }
 
     /**
@@ -514,10 +492,10 @@ public class Screenshot {
      *            - webDriver.
      * @exception IOException
      *
-     * @return screenshot image
+     * @return PNG screenshot bytes
      */
-    private static BufferedImage takeVisibleScreenshot(WebDriver augmentedDriver) throws Exception {
-    	return ImageIO.read(((TakesScreenshot) augmentedDriver).getScreenshotAs(OutputType.FILE));
+    private static byte[] takeVisibleScreenshot(WebDriver augmentedDriver) throws Exception {
+        return ((TakesScreenshot) augmentedDriver).getScreenshotAs(OutputType.BYTES);
     }
 
 
@@ -606,18 +584,11 @@ public class Screenshot {
                 screenName = comment + ".png";
                 String screenPath = testScreenRootDir.getAbsolutePath() + "/" + screenName;
 
-                if (Configuration.getInt(Parameter.BIG_SCREEN_WIDTH) != -1
-                        && Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT) != -1) {
-                    resizeImg(screen, Configuration.getInt(Parameter.BIG_SCREEN_WIDTH),
-                            Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), screenPath);
-                }
-
-                File screenshot = new File(screenPath);
-                FileUtils.touch(screenshot);
-                ImageIO.write(screen, "PNG", screenshot);
+                byte[] png = toPng(screen);
+                ReportContext.saveScreenshot(png, screenPath);
 
                 // Uploading comparative screenshot to Amazon S3
-                com.zebrunner.agent.core.registrar.Screenshot.upload(Files.readAllBytes(screenshot.toPath()), Instant.now().toEpochMilli());
+                com.zebrunner.agent.core.registrar.Screenshot.upload(png, Instant.now().toEpochMilli());
             }
             else {
                 LOGGER.info("Unable to create comparative screenshot, there is no difference between images!");
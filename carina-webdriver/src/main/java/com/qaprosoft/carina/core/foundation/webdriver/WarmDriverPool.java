@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.qaprosoft.carina.core.foundation.webdriver.core.factory.DriverFactory;
+
+/**
+ * Opt-in pool of pre-created desktop driver sessions. When warm_pool_size &gt; 0 sessions are started in background per
+ * driver name and capabilities signature (driver type, selenium host, capabilities and current test configuration
+ * overrides), handed out to IDriverPool on matching request and topped up asynchronously. Sessions are started with
+ * configuration overrides of the test which requested them. Idle sessions are health-checked in background and evicted after
+ * warm_pool_idle_timeout seconds.
+ *
+ * Mobile sessions are never pooled as device registration is bound to the thread which starts the session.
+ */
+public final class WarmDriverPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final long HEALTH_CHECK_INTERVAL = 30;
+    private static final long SHUTDOWN_TIMEOUT = 60;
+
+    private static final Map<String, ConcurrentLinkedDeque<WarmSession>> sessions = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    // browser version of session which is being created by warm up thread
+    private static final ThreadLocal<AtomicReference<String>> warmUpBrowserVersion = new ThreadLocal<>();
+
+    private static volatile ScheduledExecutorService executor;
+
+    private WarmDriverPool() {
+        // hide default constructor
+    }
+
+    /**
+     * Take pre-created driver matching driver name, capabilities and selenium host. Pool is topped up in background.
+     *
+     * @param name String driver name
+     * @param capabilities DesiredCapabilities
+     * @param seleniumHost String
+     * @return WebDriver or null if pool is disabled or there is no healthy session yet
+     */
+    public static WebDriver take(String name, DesiredCapabilities capabilities, String seleniumHost) {
+        if (!isEnabled(capabilities)) {
+            return null;
+        }
+
+        String key = name + "|" + getSignature(capabilities, seleniumHost);
+        ConcurrentLinkedDeque<WarmSession> queue = sessions.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+
+        WebDriver driver = null;
+        WarmSession session;
+        while (driver == null && (session = queue.pollFirst()) != null) {
+            // health is verified by background check, remote call is done only if it wasn't checked recently
+            if (session.isExpired() || (!session.isRecentlyChecked() && !session.isHealthy())) {
+                LOGGER.debug("Evicting stale warm driver session: " + key);
+                DriverLifecycleExecutor.quitAsync(session.driver);
+            } else {
+                driver = session.driver;
+                if (session.browserVersion != null) {
+                    R.CONFIG.put(SpecialKeywords.ACTUAL_BROWSER_VERSION, session.browserVersion);
+                }
+            }
+        }
+
+        topUp(key, name, capabilities, seleniumHost);
+
+        if (driver != null) {
+            LOGGER.debug("Warm driver session will be returned: " + key);
+        }
+        return driver;
+    }
+
+    /**
+     * Quit all idle sessions and stop background warm up.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            ScheduledExecutorService service = executor;
+            executor = null;
+            service.shutdownNow();
+            try {
+                // sessions created after this timeout are quit by warm up task itself
+                if (!service.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                    LOGGER.warn("Warm driver sessions are still being started after " + SHUTDOWN_TIMEOUT + "sec.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (ConcurrentLinkedDeque<WarmSession> queue : sessions.values()) {
+            WarmSession session;
+            while ((session = queue.pollFirst()) != null) {
+                DriverLifecycleExecutor.quit(session.driver);
+            }
+        }
+    }
+
+    /**
+     * Keep actual browser version of session started by warm up thread. Version is published to configuration by
+     * the test thread which takes the session.
+     *
+     * @param browserVersion String
+     * @return true if current thread starts warm session
+     */
+    public static boolean deferBrowserVersion(String browserVersion) {
+        AtomicReference<String> version = warmUpBrowserVersion.get();
+        if (version == null) {
+            return false;
+        }
+        version.set(browserVersion);
+        return true;
+    }
+
+    private static boolean isEnabled(DesiredCapabilities capabilities) {
+        return Configuration.getInt(Parameter.WARM_POOL_SIZE) > 0
+                && SpecialKeywords.DESKTOP.equals(Configuration.getDriverType(capabilities));
+    }
+
+    /**
+     * Get signature of session: sessions created with the same signature are interchangeable. Configuration overrides
+     * of current test are part of signature as factories read capabilities from configuration.
+     *
+     * @param capabilities DesiredCapabilities
+     * @param seleniumHost String
+     * @return signature String
+     */
+    static String getSignature(DesiredCapabilities capabilities, String seleniumHost) {
+        Map<String, ?> caps = capabilities == null ? null : new TreeMap<>(capabilities.asMap());
+        Map<Object, Object> overrides = new TreeMap<>(R.CONFIG.getTestProperties());
+        return Configuration.getDriverType(capabilities) + "|" + seleniumHost + "|" + caps + "|" + overrides;
+    }
+
+    private static void topUp(String key, String name, DesiredCapabilities capabilities, String seleniumHost) {
+        ScheduledExecutorService service = getExecutor();
+        int size = Configuration.getInt(Parameter.WARM_POOL_SIZE);
+        AtomicInteger inProgress = pending.computeIfAbsent(key, k -> new AtomicInteger());
+        ConcurrentLinkedDeque<WarmSession> queue = sessions.get(key);
+        // configuration overrides of requesting test are thread local so they are copied to warm up thread
+        Properties overrides = new Properties();
+        overrides.putAll(R.CONFIG.getTestProperties());
+
+        while (queue.size() + inProgress.get() < size) {
+            inProgress.incrementAndGet();
+            service.execute(() -> {
+                AtomicReference<String> browserVersion = new AtomicReference<>();
+                warmUpBrowserVersion.set(browserVersion);
+                R.CONFIG.getTestProperties().putAll(overrides);
+                try {
+                    LOGGER.debug("Starting warm driver session: " + key);
+                    WarmSession session = new WarmSession(DriverFactory.create(name, capabilities, seleniumHost),
+                            browserVersion.get());
+                    queue.addLast(session);
+                    // pool could be shut down while session was starting
+                    if (service.isShutdown() && queue.remove(session)) {
+                        LOGGER.debug("Warm driver session is quit as pool is shut down: " + key);
+                        DriverLifecycleExecutor.quit(session.driver);
+                    }
+                } catch (Exception e) {
+                    LOGGER.warn("Unable to start warm driver session: " + e.getMessage());
+                    LOGGER.debug(e.getMessage(), e);
+                } finally {
+                    R.CONFIG.clearTestProperties();
+                    warmUpBrowserVersion.remove();
+                    inProgress.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static void healthCheck() {
+        for (ConcurrentLinkedDeque<WarmSession> queue : sessions.values()) {
+            for (WarmSession session : queue) {
+                if ((session.isExpired() || !session.isHealthy()) && queue.remove(session)) {
+                    LOGGER.debug("Evicting idle warm driver session.");
+                    DriverLifecycleExecutor.quitAsync(session.driver);
+                }
+            }
+        }
+    }
+
+    private static ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (WarmDriverPool.class) {
+                if (executor == null) {
+                    ScheduledExecutorService service = Executors.newScheduledThreadPool(
+                            Configuration.getInt(Parameter.WARM_POOL_SIZE), runnable -> {
+                                Thread thread = new Thread(runnable, "carina-warm-pool");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    service.scheduleWithFixedDelay(WarmDriverPool::healthCheck, HEALTH_CHECK_INTERVAL, HEALTH_CHECK_INTERVAL,
+                            TimeUnit.SECONDS);
+                    executor = service;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static class WarmSession {
+        private final WebDriver driver;
+        private final String browserVersion;
+        private final long created = System.currentTimeMillis();
+        private volatile long checked = created;
+
+        WarmSession(WebDriver driver, String browserVersion) {
+            this.driver = driver;
+            this.browserVersion = browserVersion;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - created > TimeUnit.SECONDS.toMillis(Configuration.getLong(Parameter.WARM_POOL_IDLE_TIMEOUT));
+        }
+
+        boolean isRecentlyChecked() {
+            return System.currentTimeMillis() - checked <= TimeUnit.SECONDS.toMillis(HEALTH_CHECK_INTERVAL);
+        }
+
+        boolean isHealthy() {
+            try {
+                driver.getWindowHandle();
+                checked = System.currentTimeMillis();
+                return true;
+            } catch (Exception e) {
+                LOGGER.debug("Warm driver session is not healthy: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+}
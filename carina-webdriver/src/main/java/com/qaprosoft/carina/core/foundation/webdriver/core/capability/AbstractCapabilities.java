@@ -17,7 +17,6 @@ package com.qaprosoft.carina.core.foundation.webdriver.core.capability;
 
 import java.io.File;
 import java.lang.invoke.MethodHandles;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -28,7 +27,6 @@ import org.openqa.selenium.Proxy;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.firefox.FirefoxProfile;
-import org.openqa.selenium.net.PortProber;
 import org.openqa.selenium.remote.BrowserType;
 import org.openqa.selenium.remote.CapabilityType;
 import org.openqa.selenium.remote.DesiredCapabilities;
@@ -45,7 +43,6 @@ import com.qaprosoft.carina.proxy.SystemProxy;
 
 public abstract class AbstractCapabilities {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private static ArrayList<Integer> firefoxPorts = new ArrayList<Integer>();
 
     public abstract DesiredCapabilities getCapability(String testName);
 
@@ -278,8 +275,16 @@ public abstract class AbstractCapabilities {
 
 
     private DesiredCapabilities addFirefoxOptions(DesiredCapabilities caps) {
-        FirefoxProfile profile = getDefaultFirefoxProfile();
-        FirefoxOptions options = new FirefoxOptions().setProfile(profile);
+        FirefoxOptions options;
+        if (isDefaultFirefoxProfileOverridden()) {
+            options = new FirefoxOptions().setProfile(getDefaultFirefoxProfile());
+        } else {
+            // profile template is encoded once, port and custom preferences are sent next to it per session
+            options = FirefoxProfileCache.getOptions(getDefaultFirefoxProfileKey(), this::initDefaultFirefoxProfile);
+            int port = FirefoxProfileCache.allocatePort();
+            options.addPreference(FirefoxProfile.PORT_PREFERENCE, port);
+            LOGGER.debug("FireFox profile will use '" + port + "' port number.");
+        }
         caps.setCapability(FirefoxOptions.FIREFOX_OPTIONS, options);
 
         // add all custom firefox args
@@ -323,7 +328,15 @@ public abstract class AbstractCapabilities {
     // keep it public to be bale to get default and override on client layerI
     public FirefoxProfile getDefaultFirefoxProfile() {
         FirefoxProfile profile = new FirefoxProfile();
+        initDefaultFirefoxProfile(profile);
 
+        int newPort = FirefoxProfileCache.allocatePort();
+        profile.setPreference(FirefoxProfile.PORT_PREFERENCE, newPort);
+        LOGGER.debug("FireFox profile will use '" + newPort + "' port number.");
+        return profile;
+    }
+
+    private void initDefaultFirefoxProfile(FirefoxProfile profile) {
         // update browser language
         String browserLang = Configuration.get(Parameter.BROWSER_LANGUAGE);
         if (!browserLang.isEmpty()) {
@@ -331,23 +344,6 @@ public abstract class AbstractCapabilities {
             profile.setPreference("intl.accept_languages", browserLang);
         }
 
-        boolean generated = false;
-        int newPort = 7055;
-        int i = 100;
-        while (!generated && (--i > 0)) {
-            newPort = PortProber.findFreePort();
-            generated = firefoxPorts.add(newPort);
-        }
-        if (!generated) {
-            newPort = 7055;
-        }
-        if (firefoxPorts.size() > 20) {
-            firefoxPorts.remove(0);
-        }
-
-        profile.setPreference(FirefoxProfile.PORT_PREFERENCE, newPort);
-        LOGGER.debug("FireFox profile will use '" + newPort + "' port number.");
-
         profile.setPreference("dom.max_chrome_script_run_time", 0);
         profile.setPreference("dom.max_script_run_time", 0);
 
@@ -371,7 +367,25 @@ public abstract class AbstractCapabilities {
         profile.setAssumeUntrustedCertificateIssuer(true);
 
         // TODO: implement support of custom args if any
-        return profile;
+    }
+
+    private String getDefaultFirefoxProfileKey() {
+        StringBuilder key = new StringBuilder("default");
+        key.append('|').append(Configuration.get(Parameter.BROWSER_LANGUAGE));
+        key.append('|').append(Configuration.get(Parameter.AUTO_DOWNLOAD));
+        key.append('|').append(Configuration.get(Parameter.AUTO_DOWNLOAD_APPS));
+        if (Configuration.getBoolean(Parameter.AUTO_DOWNLOAD)) {
+            key.append('|').append(getAutoDownloadFolderPath());
+        }
+        return key.toString();
+    }
+
+    private boolean isDefaultFirefoxProfileOverridden() {
+        try {
+            return getClass().getMethod("getDefaultFirefoxProfile").getDeclaringClass() != AbstractCapabilities.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
     }
     
     
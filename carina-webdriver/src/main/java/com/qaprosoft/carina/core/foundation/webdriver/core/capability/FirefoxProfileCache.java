@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.core.capability;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.FirefoxProfile;
+import org.openqa.selenium.net.PortProber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Templates of Firefox profiles shared by sessions with the same preference set. Selenium zips and base64 encodes the
+ * profile for every new session request, so only the encoded template is cached. FirefoxOptions merges its preferences
+ * into attached profile, that's why the template is never attached: it is sent next to per session preferences.
+ */
+public final class FirefoxProfileCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int DEFAULT_PORT = 7055;
+    private static final int RECENT_PORTS_LIMIT = 20;
+
+    private static final Map<String, String> profiles = new ConcurrentHashMap<>();
+
+    private static final Set<Integer> recentPorts = ConcurrentHashMap.newKeySet();
+    private static final Queue<Integer> recentPortsOrder = new ConcurrentLinkedQueue<>();
+
+    private FirefoxProfileCache() {
+        // hide default constructor
+    }
+
+    /**
+     * Get encoded profile template by the key of its preference set.
+     *
+     * @param key unique description of all preferences set by initializer
+     * @param initializer Consumer which sets preferences of new profile
+     * @return base64 encoded profile
+     */
+    public static String get(String key, Consumer<FirefoxProfile> initializer) {
+        return profiles.computeIfAbsent(key, k -> {
+            LOGGER.debug("Creating Firefox profile template: " + k);
+            FirefoxProfile profile = new FirefoxProfile();
+            initializer.accept(profile);
+            try {
+                return profile.toJson();
+            } catch (IOException e) {
+                throw new WebDriverException("Unable to encode Firefox profile: " + k, e);
+            }
+        });
+    }
+
+    /**
+     * Create new session options based on profile template. Preferences added to the options are sent as
+     * "prefs" and applied by geckodriver on top of the template.
+     *
+     * @param key unique description of all preferences set by initializer
+     * @param initializer Consumer which sets preferences of new profile
+     * @return FirefoxOptions of new session
+     */
+    public static FirefoxOptions getOptions(String key, Consumer<FirefoxProfile> initializer) {
+        return new TemplateFirefoxOptions(get(key, initializer));
+    }
+
+    /**
+     * Allocate free port which wasn't returned among last allocations.
+     *
+     * @return port number or 7055 if no free port was found
+     */
+    public static int allocatePort() {
+        for (int i = 0; i < 100; i++) {
+            int port = PortProber.findFreePort();
+            if (recentPorts.add(port)) {
+                recentPortsOrder.add(port);
+                while (recentPortsOrder.size() > RECENT_PORTS_LIMIT) {
+                    Integer oldPort = recentPortsOrder.poll();
+                    if (oldPort != null) {
+                        recentPorts.remove(oldPort);
+                    }
+                }
+                return port;
+            }
+        }
+        return DEFAULT_PORT;
+    }
+
+    /**
+     * Options which send encoded profile template unless another profile is set explicitly.
+     */
+    static class TemplateFirefoxOptions extends FirefoxOptions {
+        private final String encodedProfile;
+
+        TemplateFirefoxOptions(String encodedProfile) {
+            this.encodedProfile = encodedProfile;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Map<String, Object> asMap() {
+            Map<String, Object> map = super.asMap();
+            Object firefoxOptions = map.get(FIREFOX_OPTIONS);
+            if (!(firefoxOptions instanceof Map) || ((Map<String, Object>) firefoxOptions).containsKey("profile")) {
+                return map;
+            }
+            Map<String, Object> mozOptions = new TreeMap<>((Map<String, Object>) firefoxOptions);
+            mozOptions.put("profile", encodedProfile);
+            Map<String, Object> result = new TreeMap<>(map);
+            result.put(FIREFOX_OPTIONS, Collections.unmodifiableMap(mozOptions));
+            return Collections.unmodifiableMap(result);
+        }
+    }
+
+}
@@ -26,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.AbstractCapabilities;
+import com.qaprosoft.carina.core.foundation.webdriver.core.capability.FirefoxProfileCache;
 
 public class FirefoxCapabilities extends AbstractCapabilities {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -42,11 +43,10 @@ public class FirefoxCapabilities extends AbstractCapabilities {
         capabilities = initBaseCapabilities(capabilities, BrowserType.FIREFOX, testName);
         capabilities.setCapability(CapabilityType.TAKES_SCREENSHOT, false);
 
-        FirefoxProfile profile = new FirefoxProfile();
-        profile.setPreference("media.eme.enabled", true);
-        profile.setPreference("media.gmp-manager.updateEnabled", true);
-
-        FirefoxOptions options = new FirefoxOptions().setProfile(profile);
+        FirefoxOptions options = FirefoxProfileCache.getOptions("media", p -> {
+            p.setPreference("media.eme.enabled", true);
+            p.setPreference("media.gmp-manager.updateEnabled", true);
+        });
         capabilities.setCapability(FirefoxOptions.FIREFOX_OPTIONS, options);
         LOGGER.debug("Firefox caps: " + capabilities);
         return capabilities;
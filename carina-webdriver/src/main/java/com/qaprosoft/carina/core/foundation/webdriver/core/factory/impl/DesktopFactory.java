@@ -37,6 +37,7 @@ import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.R;
+import com.qaprosoft.carina.core.foundation.webdriver.WarmDriverPool;
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.desktop.ChromeCapabilities;
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.desktop.EdgeCapabilities;
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.desktop.FirefoxCapabilities;
@@ -44,6 +45,7 @@ import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.deskt
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.desktop.OperaCapabilities;
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.desktop.SafariCapabilities;
 import com.qaprosoft.carina.core.foundation.webdriver.core.factory.AbstractFactory;
+import com.qaprosoft.carina.core.foundation.webdriver.listener.EventFiringAppiumCommandExecutor;
 
 public class DesktopFactory extends AbstractFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -67,13 +69,17 @@ public class DesktopFactory extends AbstractFactory {
         }
 
         try {
-            driver = new RemoteWebDriver(new URL(seleniumHost), capabilities);
+            driver = new RemoteWebDriver(EventFiringAppiumCommandExecutor.forSelenium(new URL(seleniumHost)), capabilities);
         } catch (MalformedURLException e) {
             throw new RuntimeException("Malformed selenium URL!", e);
         }
         resizeBrowserWindow(driver, capabilities);
 
-        R.CONFIG.put(SpecialKeywords.ACTUAL_BROWSER_VERSION, getBrowserVersion(driver));
+        String browserVersion = getBrowserVersion(driver);
+        // warm sessions are started in background so version is published by the test thread which takes session
+        if (!WarmDriverPool.deferBrowserVersion(browserVersion)) {
+            R.CONFIG.put(SpecialKeywords.ACTUAL_BROWSER_VERSION, browserVersion);
+        }
         return driver;
     }
 
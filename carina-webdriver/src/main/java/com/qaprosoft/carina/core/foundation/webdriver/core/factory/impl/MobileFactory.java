@@ -126,7 +126,8 @@ public class MobileFactory extends AbstractFactory {
                     AndroidStopScreenRecordingOptions o2 = new AndroidStopScreenRecordingOptions();
                     
                     ce.getListeners()
-                            .add(new MobileRecordingListener<AndroidStartScreenRecordingOptions, AndroidStopScreenRecordingOptions>(ce, o1, o2));
+                            .add(new MobileRecordingListener<AndroidStartScreenRecordingOptions, AndroidStopScreenRecordingOptions>(ce, o1, o2,
+                                    Configuration.get(Parameter.SCREEN_RECORD_UPLOAD_PATH)));
                 }
 
                 driver = new AndroidDriver<AndroidElement>(ce, capabilities);
@@ -159,14 +160,15 @@ public class MobileFactory extends AbstractFactory {
                     
                     IOSStopScreenRecordingOptions o2 = new IOSStopScreenRecordingOptions();
 
-                    ce.getListeners().add(new MobileRecordingListener<IOSStartScreenRecordingOptions, IOSStopScreenRecordingOptions>(ce, o1, o2));
+                    ce.getListeners().add(new MobileRecordingListener<IOSStartScreenRecordingOptions, IOSStopScreenRecordingOptions>(ce, o1, o2,
+                            Configuration.get(Parameter.SCREEN_RECORD_UPLOAD_PATH)));
                 }
 
                 driver = new IOSDriver<IOSElement>(ce, capabilities);
 
             } else if (mobilePlatformName.equalsIgnoreCase(SpecialKeywords.CUSTOM)) {
                 // that's a case for custom mobile capabilities like browserstack or saucelabs
-                driver = new RemoteWebDriver(new URL(seleniumHost), capabilities);
+                driver = new RemoteWebDriver(EventFiringAppiumCommandExecutor.forSelenium(new URL(seleniumHost)), capabilities);
             } else {
                 throw new RuntimeException("Unsupported mobile platform: " + mobilePlatformName);
             }
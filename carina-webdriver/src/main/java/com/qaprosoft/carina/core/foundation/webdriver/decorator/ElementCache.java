@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.decorator;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Per driver cache of resolved elements keyed by search context and locator. Enabled by element_cache parameter.
+ * Driver entries are invalidated on navigation, window switch and quit, single entry is evicted on stale element.
+ * Every hit is validated: element has to be attached and document URL has to be the same as on resolving, otherwise
+ * entry is evicted (it covers link clicks, form submits and redirects which don't go through navigate()).
+ * When element_cache_dom_tracking is enabled MutationObserver injected into the page increments DOM generation and
+ * entries resolved in previous generation are ignored.
+ */
+public final class ElementCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final String DOM_GENERATION_SCRIPT = "if (window.__carinaDomToken === undefined) {"
+            + " window.__carinaDomToken = Math.random().toString(36).substring(2); window.__carinaDomGeneration = 0;"
+            + " new MutationObserver(function() { window.__carinaDomGeneration++; })"
+            + ".observe(document, {childList: true, subtree: true}); }"
+            + " return window.__carinaDomToken + ':' + window.__carinaDomGeneration;";
+
+    private static final String URL_SCRIPT = "return window.location.href;";
+
+    // single round-trip: stale element fails on arguments serialization, detached one returns null
+    private static final String VALIDATION_SCRIPT = "return arguments[0].isConnected ? window.location.href : null;";
+
+    private static final Map<WebDriver, Map<Key, Entry>> cache = new ConcurrentHashMap<>();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    // weak keys as counters outlive cache entries removed on quit
+    private static final Map<WebDriver, AtomicLong> generations = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private ElementCache() {
+        // hide default constructor
+    }
+
+    public static boolean isEnabled() {
+        return Configuration.getBoolean(Parameter.ELEMENT_CACHE);
+    }
+
+    /**
+     * Get element resolved earlier by the same search context and locator.
+     *
+     * @param driver WebDriver
+     * @param searchContext SearchContext or null if element is searched by driver
+     * @param by By
+     * @return WebElement or null if cache is disabled or there is no valid entry
+     */
+    public static WebElement get(WebDriver driver, SearchContext searchContext, By by) {
+        if (driver == null || by == null || !isEnabled()) {
+            return null;
+        }
+        Map<Key, Entry> entries = cache.get(unwrap(driver));
+        Entry entry = entries == null ? null : entries.get(new Key(searchContext, by));
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (!isValid(driver, entry)
+                || (entry.generation != null && !entry.generation.equals(getDomGeneration(driver)))) {
+            entries.remove(new Key(searchContext, by), entry);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.element;
+    }
+
+    /**
+     * Register resolved element.
+     *
+     * @param driver WebDriver
+     * @param searchContext SearchContext or null if element is searched by driver
+     * @param by By
+     * @param element WebElement
+     */
+    public static void put(WebDriver driver, SearchContext searchContext, By by, WebElement element) {
+        if (driver == null || by == null || element == null || !isEnabled()) {
+            return;
+        }
+        String generation = null;
+        if (Configuration.getBoolean(Parameter.ELEMENT_CACHE_DOM_TRACKING)) {
+            generation = getDomGeneration(driver);
+            if (generation == null) {
+                // DOM can't be tracked (native context etc) so element is not cached at all
+                return;
+            }
+        }
+        cache.computeIfAbsent(unwrap(driver), k -> new ConcurrentHashMap<>()).put(new Key(searchContext, by),
+                new Entry(element, getUrl(driver), generation));
+    }
+
+    /**
+     * Evict single element, i.e. on StaleElementReferenceException.
+     *
+     * @param driver WebDriver
+     * @param searchContext SearchContext
+     * @param by By
+     */
+    public static void evict(WebDriver driver, SearchContext searchContext, By by) {
+        if (driver == null || by == null) {
+            return;
+        }
+        Map<Key, Entry> entries = cache.get(unwrap(driver));
+        if (entries != null && entries.remove(new Key(searchContext, by)) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Evict all elements resolved by the driver, i.e. on navigation or quit.
+     *
+     * @param driver WebDriver
+     */
+    public static void invalidate(WebDriver driver) {
+        if (driver == null) {
+            return;
+        }
+        generations.computeIfAbsent(unwrap(driver), k -> new AtomicLong()).incrementAndGet();
+        Map<Key, Entry> entries = cache.remove(unwrap(driver));
+        if (entries != null && !entries.isEmpty()) {
+            evictions.add(entries.size());
+        }
+    }
+
+    /**
+     * Navigation counter of the driver: it is incremented on every invalidation of the driver so elements resolved
+     * before can't be trusted when it is changed.
+     *
+     * @param driver WebDriver
+     * @return long
+     */
+    public static long getGeneration(WebDriver driver) {
+        AtomicLong generation = driver == null ? null : generations.get(unwrap(driver));
+        return generation == null ? 0 : generation.get();
+    }
+
+    /**
+     * @return number of lookups served from cache
+     */
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups which required element search
+     */
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of evicted elements
+     */
+    public static long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static boolean isValid(WebDriver driver, Entry entry) {
+        try {
+            if (driver instanceof JavascriptExecutor) {
+                try {
+                    Object url = ((JavascriptExecutor) driver).executeScript(VALIDATION_SCRIPT, entry.element);
+                    return url != null && url.toString().equals(entry.url);
+                } catch (StaleElementReferenceException e) {
+                    return false;
+                } catch (WebDriverException e) {
+                    // javascript is not supported (native context etc)
+                    LOGGER.debug("Unable to validate cached element by script: " + e.getMessage());
+                }
+            }
+            // any command on detached element fails with StaleElementReferenceException
+            entry.element.isEnabled();
+            return Objects.equals(entry.url, getCurrentUrl(driver));
+        } catch (StaleElementReferenceException e) {
+            return false;
+        }
+    }
+
+    private static String getUrl(WebDriver driver) {
+        if (driver instanceof JavascriptExecutor) {
+            try {
+                Object url = ((JavascriptExecutor) driver).executeScript(URL_SCRIPT);
+                return url == null ? null : url.toString();
+            } catch (WebDriverException e) {
+                LOGGER.debug("Unable to get document URL by script: " + e.getMessage());
+            }
+        }
+        return getCurrentUrl(driver);
+    }
+
+    private static String getCurrentUrl(WebDriver driver) {
+        try {
+            return driver.getCurrentUrl();
+        } catch (WebDriverException e) {
+            // native context has no URL
+            return null;
+        }
+    }
+
+    private static String getDomGeneration(WebDriver driver) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        try {
+            Object generation = ((JavascriptExecutor) driver).executeScript(DOM_GENERATION_SCRIPT);
+            return generation == null ? null : generation.toString();
+        } catch (Exception e) {
+            LOGGER.debug("Unable to get DOM generation: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static WebDriver unwrap(WebDriver driver) {
+        if (driver instanceof EventFiringWebDriver) {
+            return ((EventFiringWebDriver) driver).getWrappedDriver();
+        }
+        return driver;
+    }
+
+    private static final class Key {
+        private final SearchContext searchContext;
+        private final By by;
+
+        Key(SearchContext searchContext, By by) {
+            this.searchContext = searchContext;
+            this.by = by;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            // search contexts are compared by identity as page object contexts are proxies
+            return searchContext == key.searchContext && by.equals(key.by);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(searchContext) + by.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        private final WebElement element;
+        private final String url;
+        private final String generation;
+
+        Entry(WebElement element, String url, String generation) {
+            this.element = element;
+            this.url = url;
+            this.generation = generation;
+        }
+    }
+
+}
@@ -62,7 +62,7 @@ import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
-import com.qaprosoft.carina.core.foundation.crypto.CryptoTool;
+import com.qaprosoft.carina.core.foundation.crypto.CryptoEngine;
 import com.qaprosoft.carina.core.foundation.performance.ACTION_NAME;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
@@ -93,8 +93,6 @@ public class ExtendedWebElement {
     private WebDriver driver;
     private SearchContext searchContext;
     
-    private CryptoTool cryptoTool = new CryptoTool(Configuration.get(Parameter.CRYPTO_KEY_PATH));
-
     private static Pattern CRYPTO_PATTERN = Pattern.compile(SpecialKeywords.CRYPT);
 
     private WebElement element;
@@ -253,7 +251,8 @@ public class ExtendedWebElement {
     }
 
     public WebElement getElement() {
-    	element = refindElement();
+        WebElement cachedElement = ElementCache.get(driver, searchContext, by);
+        element = cachedElement != null ? cachedElement : refindElement();
     	return element;
     }
     
@@ -359,6 +358,8 @@ public class ExtendedWebElement {
     }
     
     private WebElement refindElement() {
+        // cached element is stale or invalid if we have to search again
+        ElementCache.evict(driver, searchContext, by);
         // do not return without element initialization!
         // TODO: if is added as part of a hotfix. Ideal solution should init searchContext everytime so we can remove getDriver usage from this class
         // at all!
@@ -386,6 +387,7 @@ public class ExtendedWebElement {
             // that's should fix use case when we switch between tabs and corrupt searchContext (mostly for Appium for mobile)
             element = getDriver().findElement(by);
         }
+        ElementCache.put(driver, searchContext, by, element);
         return element;
     }
     
@@ -839,7 +841,8 @@ public class ExtendedWebElement {
         // visibilityOfElementLocated: Checks to see if the element is present and also visible. To check visibility, it makes sure that the element
         // has a height and width greater than 0.
     	
-        waitCondition = ExpectedConditions.visibilityOfElementLocated(getBy());
+        waitCondition = JsConditions.or(getDriver(), searchContext, ExpectedConditions.visibilityOfElementLocated(getBy()),
+                JsConditions.visible(getBy()));
 		boolean tmpResult = waitUntil(waitCondition, 0);
 
 		if (tmpResult) {
@@ -894,7 +897,7 @@ public class ExtendedWebElement {
 			waitCondition = ExpectedConditions.elementToBeClickable(getBy());
 		}
 		
-    	return waitUntil(waitCondition, timeout);
+    	return waitUntil(JsConditions.or(getDriver(), searchContext, waitCondition, JsConditions.clickable(getBy())), timeout);
     }
 
     /**
@@ -922,7 +925,7 @@ public class ExtendedWebElement {
 			waitCondition = ExpectedConditions.visibilityOfElementLocated(getBy());
 		}
 		
-		return waitUntil(waitCondition, timeout);
+		return waitUntil(JsConditions.or(getDriver(), searchContext, waitCondition, JsConditions.visible(getBy())), timeout);
 	}
 
 	
@@ -944,7 +947,7 @@ public class ExtendedWebElement {
      * @return element with text existence status.
      */
     public boolean isElementWithTextPresent(final String text, long timeout) {
-    	final String decryptedText = cryptoTool.decryptByPattern(text, CRYPTO_PATTERN);
+    	final String decryptedText = getCryptoEngine().decryptByPattern(text, CRYPTO_PATTERN);
 		ExpectedCondition<Boolean> textCondition;
 		if (element != null) {
 			ExpectedCondition<Boolean>  tmpCondition = ExpectedConditions.and(ExpectedConditions.visibilityOf(element));
@@ -965,7 +968,7 @@ public class ExtendedWebElement {
 		} else {
 			textCondition = ExpectedConditions.textToBePresentInElementLocated(getBy(), decryptedText);
 		}
-		return waitUntil(textCondition, timeout);
+		return waitUntil(JsConditions.or(getDriver(), searchContext, textCondition, JsConditions.textPresent(getBy(), decryptedText)), timeout);
     	//TODO: restore below code as only projects are migrated to "isElementWithContainTextPresent"
 //    	return waitUntil(ExpectedConditions.and(ExpectedConditions.presenceOfElementLocated(getBy()),
 //				ExpectedConditions.textToBe(getBy(), decryptedText)), timeout);
@@ -1105,9 +1108,11 @@ public class ExtendedWebElement {
     		return true;
     	}
 
-        return waitUntil(ExpectedConditions.or(ExpectedConditions.invisibilityOfElementLocated(getBy()),
-                ExpectedConditions.stalenessOf(element),
-                ExpectedConditions.invisibilityOf(element)), timeout);
+        return waitUntil(JsConditions.or(getDriver(), searchContext,
+                ExpectedConditions.or(ExpectedConditions.invisibilityOfElementLocated(getBy()),
+                        ExpectedConditions.stalenessOf(element),
+                        ExpectedConditions.invisibilityOf(element)),
+                JsConditions.invisible(getBy())), timeout);
     }
 
     public ExtendedWebElement format(Object... objects) {
@@ -1344,7 +1349,17 @@ public class ExtendedWebElement {
 		// (more stable and faster for already present but cached incorrectly elements)
 		//detectElement();
 		
+		// element resolved by the same locator earlier in this DOM doesn't need extra lookups before action
+		boolean cacheHit = false;
 		if (waitCondition != null) {
+			WebElement cachedElement = ElementCache.get(driver, searchContext, by);
+			if (cachedElement != null) {
+				element = cachedElement;
+				cacheHit = true;
+			}
+		}
+		
+		if (waitCondition != null && !cacheHit) {
 			//do verification only if waitCondition is fine
 			
 			boolean tmpResult = waitUntil(waitCondition, 0);
@@ -1365,15 +1380,20 @@ public class ExtendedWebElement {
 		try {
 			element = getCachedElement();
 			output = overrideAction(actionName, inputArgs);
+			if (!cacheHit) {
+				ElementCache.put(driver, searchContext, by, element);
+			}
 		} catch (StaleElementReferenceException | InvalidElementStateException | ClassCastException e) {
 			//sometime Appiuminstead printing valid StaleElementException generate java.lang.ClassCastException: com.google.common.collect.Maps$TransformedEntriesMap cannot be cast to java.lang.String
 			LOGGER.debug("catched StaleElementReferenceException: ", e);
+			waitForConditionSkippedByCache(cacheHit, actionName, timeout, waitCondition);
 			// try to find again using driver
 			element = refindElement();
 			output = overrideAction(actionName, inputArgs);
 		} catch (WebDriverException e) {
 			// TODO: move to error for snapshot build to detect different negative use-cse and move to debug for released versions!
 			LOGGER.debug("doAction catched WebDriverException: '" + e.getMessage() + "'", e);
+			waitForConditionSkippedByCache(cacheHit, actionName, timeout, waitCondition);
 			// try to find again using driver
 			try {
 				element = refindElement();
@@ -1395,6 +1415,13 @@ public class ExtendedWebElement {
 		return output;
 	}
 
+	private void waitForConditionSkippedByCache(boolean cacheHit, ACTION_NAME actionName, long timeout,
+			ExpectedCondition<?> waitCondition) {
+		if (cacheHit && !waitUntil(waitCondition, timeout)) {
+			LOGGER.error(Messager.ELEMENT_CONDITION_NOT_VERIFIED.getMessage(actionName.getKey(), getNameWithLocator()));
+		}
+	}
+
 	// single place for all supported UI actions in carina core
 	private Object overrideAction(ACTION_NAME actionName, Object...inputArgs) {
 		Object output = executeAction(actionName, new ActionSteps() {
@@ -1466,7 +1493,7 @@ public class ExtendedWebElement {
 
 			@Override
 			public void doType(String text) {
-				final String decryptedText = cryptoTool.decryptByPattern(text, CRYPTO_PATTERN);
+				final String decryptedText = getCryptoEngine().decryptByPattern(text, CRYPTO_PATTERN);
 
 /*				if (!element.getText().isEmpty()) {
     				DriverListener.setMessages(Messager.KEYS_CLEARED_IN_ELEMENT.getMessage(getName()),
@@ -1489,7 +1516,7 @@ public class ExtendedWebElement {
 
 			@Override
 			public void doAttachFile(String filePath) {
-				final String decryptedText = cryptoTool.decryptByPattern(filePath, CRYPTO_PATTERN);
+				final String decryptedText = getCryptoEngine().decryptByPattern(filePath, CRYPTO_PATTERN);
 
 				String textLog = (!decryptedText.equals(filePath) ? "********" : filePath);
 
@@ -1580,7 +1607,7 @@ public class ExtendedWebElement {
 			
 			@Override
 			public boolean doSelect(String text) {
-				final String decryptedSelectText = cryptoTool.decryptByPattern(text, CRYPTO_PATTERN);
+				final String decryptedSelectText = getCryptoEngine().decryptByPattern(text, CRYPTO_PATTERN);
 				
 				String textLog = (!decryptedSelectText.equals(text) ? "********" : text);
 				
@@ -1690,7 +1717,12 @@ public class ExtendedWebElement {
         }
         return drv;
     }
-    
+
+    private CryptoEngine getCryptoEngine() {
+        // shared engine: crypto key is loaded once per key file instead of per element instance
+        return CryptoEngine.getInstance(Configuration.get(Parameter.CRYPTO_KEY_PATH));
+    }
+
 	//TODO: investigate how can we merge the similar functionality in ExtendedWebElement, DriverHelper and LocalizedAnnotations
     public By generateByForList(By by, int index) {
         String locator = by.toString();
@@ -1782,6 +1814,18 @@ public class ExtendedWebElement {
             }
             break;
         }
-        return waitCondition;
+        return getDefaultJsCondition(myBy, waitCondition);
+    }
+
+    private ExpectedCondition<?> getDefaultJsCondition(By myBy, ExpectedCondition<?> waitCondition) {
+        // single script call per poll for web context, the same checks as selenium condition otherwise
+        switch (loadingStrategy) {
+        case BY_PRESENCE:
+            return JsConditions.or(getDriver(), searchContext, waitCondition, JsConditions.present(myBy));
+        case BY_VISIBILITY:
+            return JsConditions.or(getDriver(), searchContext, waitCondition, JsConditions.visible(myBy));
+        default:
+            return JsConditions.or(getDriver(), searchContext, waitCondition, JsConditions.present(myBy), JsConditions.visible(myBy));
+        }
     }
 }
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.decorator;
+
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.By;
+import org.openqa.selenium.ContextAware;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * JavaScript backed element conditions. All checks of the condition are evaluated by single executeScript call per
+ * poll instead of several find/isDisplayed/isEnabled commands. Elements are searched in the same search context as
+ * ExtendedWebElement does and visibility is evaluated by selenium isDisplayed atom, so results match
+ * ExpectedConditions. Enabled by element_js_conditions parameter for web contexts only: native mobile contexts and
+ * locators without DOM equivalent (accessibility id, chained etc) use provided selenium condition.
+ */
+public final class JsConditions {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    // the same atom RemoteWebElement.isDisplayed() executes for W3C sessions
+    private static final String IS_DISPLAYED_ATOM = loadAtom("/org/openqa/selenium/remote/isDisplayed.js");
+
+    // atom is installed once per document as sending it on every poll costs ~40KB
+    private static final String INSTALL_SCRIPT = "window.__carinaIsDisplayed = " + IS_DISPLAYED_ATOM + ";";
+
+    // returns null when atom is not installed into current document yet
+    private static final String SCRIPT = "var checks = arguments[0], root = arguments[1] || document;"
+            + "if (typeof window.__carinaIsDisplayed !== 'function') { return null; }"
+            + "function find(s, v) {"
+            + " switch (s) {"
+            + "  case 'id': return root.querySelector('[id=\"' + CSS.escape(v) + '\"]');"
+            + "  case 'name': return root.querySelector('[name=\"' + CSS.escape(v) + '\"]');"
+            + "  case 'className': return root.getElementsByClassName(v)[0];"
+            + "  case 'tagName': return root.getElementsByTagName(v)[0];"
+            + "  case 'cssSelector': return root.querySelector(v);"
+            + "  case 'xpath': return document.evaluate(v, root, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;"
+            + " }"
+            + " return null;"
+            + "}"
+            + "function visible(e) { return !!e && window.__carinaIsDisplayed(e); }"
+            + "function enabled(e) { return !(e.matches && e.matches(':disabled')); }"
+            + "for (var i = 0; i < checks.length; i++) {"
+            + " var c = checks[i], e = find(c[1], c[2]);"
+            + " switch (c[0]) {"
+            + "  case 'present': if (e) { return true; } break;"
+            + "  case 'visible': if (visible(e)) { return true; } break;"
+            + "  case 'clickable': if (visible(e) && enabled(e)) { return true; } break;"
+            + "  case 'text': if (visible(e) && (e.innerText || '').indexOf(c[3]) >= 0) { return true; } break;"
+            + "  case 'invisible': if (!visible(e)) { return true; } break;"
+            + " }"
+            + "}"
+            + "return false;";
+
+    private JsConditions() {
+        // hide default constructor
+    }
+
+    public static boolean isEnabled(WebDriver driver) {
+        if (!Configuration.getBoolean(Parameter.ELEMENT_JS_CONDITIONS) || IS_DISPLAYED_ATOM == null) {
+            return false;
+        }
+        // drivers are registered wrapped into EventFiringWebDriver
+        while (driver instanceof WrapsDriver && ((WrapsDriver) driver).getWrappedDriver() != driver) {
+            driver = ((WrapsDriver) driver).getWrappedDriver();
+        }
+        if (!(driver instanceof JavascriptExecutor)) {
+            return false;
+        }
+        if (driver instanceof ContextAware) {
+            // mobile sessions: web and webview contexts only, native context keeps selenium conditions
+            try {
+                return !StringUtils.startsWith(((ContextAware) driver).getContext(), "NATIVE");
+            } catch (WebDriverException e) {
+                LOGGER.debug("Unable to get driver context: " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Combine checks into single condition which is true when any check passes.
+     *
+     * @param driver WebDriver
+     * @param searchContext SearchContext elements are searched in, document is used for driver or null
+     * @param fallback selenium condition used when checks can't be evaluated via JavaScript
+     * @param checks Check
+     * @return ExpectedCondition
+     */
+    public static ExpectedCondition<?> or(WebDriver driver, SearchContext searchContext, ExpectedCondition<?> fallback,
+            Check... checks) {
+        if (!isEnabled(driver)) {
+            return fallback;
+        }
+        List<List<String>> args = new ArrayList<>();
+        for (Check check : checks) {
+            if (check == null) {
+                // at least one locator has no DOM equivalent
+                return fallback;
+            }
+            args.add(check.toArgs());
+        }
+        WebElement root = searchContext instanceof WebElement ? (WebElement) searchContext : null;
+        return new JsCondition(args, root, fallback);
+    }
+
+    public static Check present(By by) {
+        return Check.of("present", by, null);
+    }
+
+    public static Check visible(By by) {
+        return Check.of("visible", by, null);
+    }
+
+    public static Check clickable(By by) {
+        return Check.of("clickable", by, null);
+    }
+
+    public static Check textPresent(By by, String text) {
+        return Check.of("text", by, text);
+    }
+
+    public static Check invisible(By by) {
+        return Check.of("invisible", by, null);
+    }
+
+    /**
+     * Single element check: type, locator strategy and value.
+     */
+    public static final class Check {
+        private final String type;
+        private final String strategy;
+        private final String value;
+        private final String text;
+
+        private Check(String type, String strategy, String value, String text) {
+            this.type = type;
+            this.strategy = strategy;
+            this.value = value;
+            this.text = text;
+        }
+
+        private static Check of(String type, By by, String text) {
+            String strategy = getStrategy(by);
+            if (strategy == null) {
+                return null;
+            }
+            // By.toString() format is "By.<strategy>: <value>"
+            String value = StringUtils.substringAfter(by.toString(), ": ");
+            return new Check(type, strategy, value, text);
+        }
+
+        private static String getStrategy(By by) {
+            if (by instanceof By.ById) {
+                return "id";
+            } else if (by instanceof By.ByName) {
+                return "name";
+            } else if (by instanceof By.ByClassName) {
+                return "className";
+            } else if (by instanceof By.ByTagName) {
+                return "tagName";
+            } else if (by instanceof By.ByCssSelector) {
+                return "cssSelector";
+            } else if (by instanceof By.ByXPath) {
+                return "xpath";
+            }
+            return null;
+        }
+
+        private List<String> toArgs() {
+            return Arrays.asList(type, strategy, value, text == null ? "" : text);
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + strategy + ": " + value;
+        }
+    }
+
+    private static String loadAtom(String resource) {
+        try (InputStream is = JsConditions.class.getResourceAsStream(resource)) {
+            return is == null ? null : IOUtils.toString(is, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            LOGGER.debug("Unable to load selenium atom " + resource + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class JsCondition implements ExpectedCondition<Object> {
+        private final List<List<String>> checks;
+        private final WebElement root;
+        private final ExpectedCondition<?> fallback;
+        private volatile boolean unsupported;
+
+        JsCondition(List<List<String>> checks, WebElement root, ExpectedCondition<?> fallback) {
+            this.checks = checks;
+            this.root = root;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public Object apply(WebDriver driver) {
+            if (!unsupported) {
+                try {
+                    JavascriptExecutor executor = (JavascriptExecutor) driver;
+                    Object result = executor.executeScript(SCRIPT, checks, root);
+                    if (result == null) {
+                        // new document
+                        executor.executeScript(INSTALL_SCRIPT);
+                        result = executor.executeScript(SCRIPT, checks, root);
+                    }
+                    return Boolean.TRUE.equals(result);
+                } catch (JavascriptException | UnsupportedCommandException e) {
+                    LOGGER.debug("Unable to evaluate condition via JavaScript, selenium condition will be used: " + e.getMessage());
+                    unsupported = true;
+                } catch (WebDriverException e) {
+                    // stale search context, context switch etc: selenium condition handles it for this poll
+                    LOGGER.debug("Unable to evaluate condition via JavaScript: " + e.getMessage());
+                }
+            }
+            return fallback.apply(driver);
+        }
+
+        @Override
+        public String toString() {
+            return "js condition " + checks + " or " + fallback;
+        }
+    }
+
+}
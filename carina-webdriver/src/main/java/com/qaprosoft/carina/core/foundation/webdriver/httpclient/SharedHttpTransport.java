@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Strings;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Credentials;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Process wide HTTP transport for all Selenium/Appium command executors. Single connection pool is shared by every
+ * session so keep-alive connections to the same hub are reused across drivers. Client is configured once per hub
+ * (protocol, credentials, host and port) and collects connection metrics for it.
+ */
+public final class SharedHttpTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final Map<String, Hub> hubs = new ConcurrentHashMap<>();
+
+    private static volatile ConnectionPool pool;
+
+    private SharedHttpTransport() {
+        // hide default constructor
+    }
+
+    /**
+     * Get client for the hub. Returned client shares connection pool with all other clients.
+     *
+     * @param url hub URL
+     * @param connectTimeout Duration
+     * @param readTimeout Duration
+     * @param proxy Proxy or null
+     * @return OkHttpClient
+     */
+    public static OkHttpClient getClient(URL url, Duration connectTimeout, Duration readTimeout, Proxy proxy) {
+        OkHttpClient client = hubs.computeIfAbsent(getKey(url), key -> new Hub(url)).client;
+        if (client.connectTimeoutMillis() == connectTimeout.toMillis() && client.readTimeoutMillis() == readTimeout.toMillis()
+                && Objects.equals(client.proxy(), proxy)) {
+            return client;
+        }
+        // derived client still uses the same pool, dispatcher and metrics
+        return client.newBuilder().proxy(proxy)
+                .connectTimeout(connectTimeout.toMillis(), MILLISECONDS)
+                .readTimeout(readTimeout.toMillis(), MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * @param url hub URL
+     * @return metrics of the hub or null if there were no clients created for it
+     */
+    public static Metrics getMetrics(URL url) {
+        Hub hub = hubs.get(getKey(url));
+        return hub == null ? null : hub.metrics;
+    }
+
+    /**
+     * Close all idle connections. Active connections are not affected.
+     */
+    public static void evictAll() {
+        if (pool != null) {
+            pool.evictAll();
+        }
+    }
+
+    private static ConnectionPool getPool() {
+        if (pool == null) {
+            synchronized (SharedHttpTransport.class) {
+                if (pool == null) {
+                    pool = new ConnectionPool(R.CONFIG.getInt("http_client_max_idle_connections"),
+                            R.CONFIG.getLong("http_client_keep_alive_sec"), SECONDS);
+                }
+            }
+        }
+        return pool;
+    }
+
+    private static String getKey(URL url) {
+        // path is not a part of the key as all endpoints of the hub are reachable by the same connections
+        return url.getProtocol() + "://" + Strings.nullToEmpty(url.getUserInfo()) + "@" + url.getHost() + ":"
+                + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+    }
+
+    private static final class Hub {
+        private final Metrics metrics = new Metrics();
+        private final OkHttpClient client;
+
+        Hub(URL url) {
+            LOGGER.debug("Creating shared http client for " + url.getHost());
+            OkHttpClient.Builder builder = new OkHttpClient.Builder().connectionPool(getPool())
+                    .followRedirects(true).followSslRedirects(true)
+                    .connectTimeout(R.CONFIG.getLong("http_client_connect_timeout_sec"), SECONDS)
+                    .readTimeout(R.CONFIG.getLong("appium_http_client_read_timeout_min"), MINUTES)
+                    .eventListener(metrics);
+
+            String info = url.getUserInfo();
+            if (!Strings.isNullOrEmpty(info)) {
+                String[] parts = info.split(":", 2);
+                String user = parts[0];
+                String pass = parts.length > 1 ? parts[1] : null;
+
+                String credentials = Credentials.basic(user, pass);
+
+                builder.authenticator((route, response) -> {
+                    if (response.request().header("Authorization") != null) {
+                        return null; // Give up, we've already attempted to authenticate.
+                    }
+
+                    return response.request().newBuilder().header("Authorization", credentials).build();
+                });
+            }
+
+            if (!R.CONFIG.getBoolean("http_client_gzip")) {
+                // okhttp requests gzip transparently unless encoding is declared explicitly
+                builder.addInterceptor(chain -> chain.proceed(chain.request().newBuilder().header("Accept-Encoding", "identity").build()));
+            }
+
+            builder.addNetworkInterceptor(chain -> {
+                Request request = chain.request();
+                Response response = chain.proceed(request);
+                return response.code() == 408
+                        ? response.newBuilder().code(500).message("Server-Side Timeout").build()
+                        : response;
+            });
+            this.client = builder.build();
+        }
+    }
+
+    /**
+     * Connection metrics of the hub.
+     */
+    public static final class Metrics extends EventListener {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder connectionsOpened = new LongAdder();
+        private final LongAdder connectionsAcquired = new LongAdder();
+
+        @Override
+        public void callStart(Call call) {
+            requests.increment();
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            failures.increment();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connectionsOpened.increment();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionsAcquired.increment();
+        }
+
+        /**
+         * @return number of executed http calls
+         */
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        /**
+         * @return number of http calls failed by I/O error
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * @return number of established connections
+         */
+        public long getConnectionsOpened() {
+            return connectionsOpened.sum();
+        }
+
+        /**
+         * @return number of calls which used already established connection
+         */
+        public long getConnectionsReused() {
+            return Math.max(0, connectionsAcquired.sum() - connectionsOpened.sum());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requests: %d, failures: %d, connections opened: %d, connections reused: %d",
+                    getRequests(), getFailures(), getConnectionsOpened(), getConnectionsReused());
+        }
+    }
+
+}
@@ -33,6 +33,7 @@ import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.utils.FileManager;
 import com.qaprosoft.carina.core.foundation.webdriver.IDriverPool;
 import com.qaprosoft.carina.core.foundation.webdriver.Screenshot;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ElementCache;
 import com.zebrunner.agent.core.registrar.Artifact;
 
 /**
@@ -76,21 +77,25 @@ public class DriverListener implements WebDriverEventListener {
 
     @Override
     public void afterNavigateBack(WebDriver driver) {
+        ElementCache.invalidate(driver);
         onAfterAction("Navigated back", driver);
     }
 
     @Override
     public void afterNavigateForward(WebDriver driver) {
+        ElementCache.invalidate(driver);
         onAfterAction("Navigated forward", driver);
     }
 
     @Override
     public void afterNavigateRefresh(WebDriver driver) {
+        ElementCache.invalidate(driver);
         onAfterAction("Page refreshed", driver);
     }
 
     @Override
     public void afterNavigateTo(String url, WebDriver driver) {
+        ElementCache.invalidate(driver);
         String comment = String.format("URL '%s' opened", url);
         onAfterAction(comment, driver);
     }
@@ -240,7 +245,7 @@ public class DriverListener implements WebDriverEventListener {
 
     @Override
     public void afterSwitchToWindow(String arg0, WebDriver driver) {
-        // do nothing
+        ElementCache.invalidate(driver);
 
     }
 
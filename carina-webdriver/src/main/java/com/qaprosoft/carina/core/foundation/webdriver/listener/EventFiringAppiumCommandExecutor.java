@@ -23,6 +23,7 @@ import java.lang.reflect.Field;
 import java.net.ConnectException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -62,27 +63,30 @@ public class EventFiringAppiumCommandExecutor extends HttpCommandExecutor {
     
     private final Optional<DriverService> serviceOptional;
 
+    private final boolean appiumProtocol;
+
     private List<IDriverCommandListener> listeners = new ArrayList<>();
 
     private EventFiringAppiumCommandExecutor(Map<String, CommandInfo> additionalCommands, DriverService service,
             URL addressOfRemoteServer,
-            HttpClient.Factory httpClientFactory) {
+            HttpClient.Factory httpClientFactory, boolean appiumProtocol) {
         super(additionalCommands,
                 ofNullable(service)
                         .map(DriverService::getUrl)
                         .orElse(addressOfRemoteServer),
                 httpClientFactory);
         serviceOptional = ofNullable(service);
+        this.appiumProtocol = appiumProtocol;
     }
 
     public EventFiringAppiumCommandExecutor(Map<String, CommandInfo> additionalCommands, DriverService service,
             HttpClient.Factory httpClientFactory) {
-        this(additionalCommands, checkNotNull(service), null, httpClientFactory);
+        this(additionalCommands, checkNotNull(service), null, httpClientFactory, true);
     }
 
     public EventFiringAppiumCommandExecutor(Map<String, CommandInfo> additionalCommands,
             URL addressOfRemoteServer, HttpClient.Factory httpClientFactory) {
-        this(additionalCommands, null, checkNotNull(addressOfRemoteServer), httpClientFactory);
+        this(additionalCommands, null, checkNotNull(addressOfRemoteServer), httpClientFactory, true);
     }
 
     public EventFiringAppiumCommandExecutor(Map<String, CommandInfo> additionalCommands,
@@ -99,6 +103,18 @@ public class EventFiringAppiumCommandExecutor extends HttpCommandExecutor {
         this(MobileCommand.commandRepository, addressOfRemoteServer, new HttpClientFactoryCustom());
     }
 
+    /**
+     * Executor for plain Selenium sessions (desktop browsers, custom cloud capabilities). It uses the same shared http
+     * transport and command listeners but keeps Selenium command codec after session start.
+     *
+     * @param addressOfRemoteServer URL
+     * @return EventFiringAppiumCommandExecutor
+     */
+    public static EventFiringAppiumCommandExecutor forSelenium(URL addressOfRemoteServer) {
+        return new EventFiringAppiumCommandExecutor(Collections.emptyMap(), null, checkNotNull(addressOfRemoteServer),
+                new HttpClientFactoryCustom(), false);
+    }
+
     private <B> B getPrivateFieldValue(String fieldName, Class<B> fieldType) {
         try {
             final Field f = getClass().getSuperclass().getDeclaredField(fieldName);
@@ -186,7 +202,7 @@ public class EventFiringAppiumCommandExecutor extends HttpCommandExecutor {
             }
         }
 
-        if (DriverCommand.NEW_SESSION.equals(command.getName())
+        if (appiumProtocol && DriverCommand.NEW_SESSION.equals(command.getName())
                 && getCommandCodec() instanceof W3CHttpCommandCodec) {
             setCommandCodec(new AppiumW3CHttpCommandCodec());
             getAdditionalCommands().forEach(this::defineCommand);
@@ -15,11 +15,24 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.webdriver.listener;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CharSequenceInputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 import org.openqa.selenium.remote.Command;
 import org.openqa.selenium.remote.CommandExecutor;
@@ -31,6 +44,7 @@ import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import io.appium.java_client.MobileCommand;
 import io.appium.java_client.screenrecording.BaseStartScreenRecordingOptions;
 import io.appium.java_client.screenrecording.BaseStopScreenRecordingOptions;
+import io.appium.java_client.screenrecording.ScreenRecordingUploadOptions;
 
 /**
  * ScreenRecordingListener - starts/stops video recording for Android and IOS
@@ -44,18 +58,51 @@ public class MobileRecordingListener<O1 extends BaseStartScreenRecordingOptions,
 
     private static final Logger LOGGER = Logger.getLogger(MobileRecordingListener.class);
 
+    // bounded pool for video decoding: when the queue is full the quitting thread saves video itself
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),
+            Runtime.getRuntime().availableProcessors(), 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(Runtime.getRuntime().availableProcessors()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "carina-video-saver");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    static {
+        // videos of the last sessions are still written when tests are finished
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(60, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "carina-video-saver-shutdown"));
+    }
+
 	private CommandExecutor commandExecutor;
 
 	private O1 startRecordingOpt;
 
 	private O2 stopRecordingOpt;
 
+	private String uploadPath;
+
 	private boolean recording = false;
 
 	public MobileRecordingListener(CommandExecutor commandExecutor, O1 startRecordingOpt, O2 stopRecordingOpt) {
+		this(commandExecutor, startRecordingOpt, stopRecordingOpt, "");
+	}
+
+	/**
+	 * @param uploadPath remote path where Appium uploads video itself instead of returning it, "%s" is replaced by
+	 *            video file name. Video is saved into local artifacts when path is empty.
+	 */
+	public MobileRecordingListener(CommandExecutor commandExecutor, O1 startRecordingOpt, O2 stopRecordingOpt, String uploadPath) {
 		this.commandExecutor = commandExecutor;
 		this.startRecordingOpt = startRecordingOpt;
 		this.stopRecordingOpt = stopRecordingOpt;
+		this.uploadPath = uploadPath;
 	}
 
 	@Override
@@ -63,14 +110,23 @@ public class MobileRecordingListener<O1 extends BaseStartScreenRecordingOptions,
 		if (recording) {
 			if (DriverCommand.QUIT.equals(command.getName())) {
 			    // stop video recording and publish it to local artifacts
+			    //IMPORTANT! DON'T MODIFY FILENAME WITHOUT UPDATING DRIVER FACTORIES AND LISTENERS!
+			    String fileName = String.format(SpecialKeywords.DEFAULT_VIDEO_FILENAME, command.getSessionId());
+			    if (!StringUtils.isEmpty(uploadPath)) {
+			        // video is uploaded by Appium so nothing is returned
+			        ((BaseStopScreenRecordingOptions) stopRecordingOpt).withUploadOptions(ScreenRecordingUploadOptions.uploadOptions()
+			                .withRemotePath(uploadPath.replace("%s", fileName)));
+			    }
+
 			    String data = "";
                 try {
                     LOGGER.debug("Stopping mobile video recording and upload data locally for " + command.getSessionId());
-                    data = commandExecutor
+                    Object value = commandExecutor
                             .execute(new Command(command.getSessionId(), MobileCommand.STOP_RECORDING_SCREEN,
                                     MobileCommand.stopRecordingScreenCommand(
                                             (BaseStopScreenRecordingOptions) stopRecordingOpt).getValue()))
-                            .getValue().toString();
+                            .getValue();
+                    data = value != null ? value.toString() : "";
                     
                     LOGGER.debug("Stopped mobile video recording and uploaded data locally for " + command.getSessionId());
                 } catch (Throwable e) {
@@ -83,23 +139,56 @@ public class MobileRecordingListener<O1 extends BaseStartScreenRecordingOptions,
                 }
                 
                 // create file in artifacts using driver session id
-                //IMPORTANT! DON'T MODIFY FILENAME WITHOUT UPDATING DRIVER FACTORIES AND LISTENERS!
-                String fileName = String.format(SpecialKeywords.DEFAULT_VIDEO_FILENAME, command.getSessionId());
-                String filePath = ReportContext.getArtifactsFolder().getAbsolutePath() + File.separator + fileName;
-                File file = null;
-                
+                String artifactsFolder = ReportContext.getArtifactsFolder().getAbsolutePath() + File.separator;
+                File file = new File(artifactsFolder + fileName);
+                File tempFile = new File(artifactsFolder + String.format(SpecialKeywords.TEMP_VIDEO_FILENAME, command.getSessionId()));
                 try {
-                    LOGGER.debug("Saving video artifact: " + fileName);
-                    file = new File(filePath);
-                    FileUtils.writeByteArrayToFile(file, Base64.getDecoder().decode(data));
-                    LOGGER.debug("Saved video artifact: " + fileName);
+                    // temporary file is created in advance so video link is available as soon as driver is quit
+                    tempFile.createNewFile();
                 } catch (IOException e) {
                     LOGGER.warn("Error has been occurred during video artifact generation: " + fileName, e);
+                    return;
                 }
+
+                String video = data;
+                executor.execute(() -> {
+                    try {
+                        LOGGER.debug("Saving video artifact: " + fileName);
+                        writeVideo(video, tempFile, file);
+                        LOGGER.debug("Saved video artifact: " + fileName);
+                    } catch (Exception e) {
+                        LOGGER.warn("Error has been occurred during video artifact generation: " + fileName, e);
+                    }
+                });
 			}
 		}
 	}
 
+    /**
+     * Decodes base64 video into temporary file by small chunks, so decoded video is never kept in memory. Temporary
+     * file is renamed to the video file when decoding is completed, so video file is never seen partially written.
+     * 
+     * @param data base64 video
+     * @param tempFile temporary file
+     * @param file video file
+     * @throws IOException on decoding or file failure
+     */
+    static void writeVideo(CharSequence data, File tempFile, File file) throws IOException {
+        try (InputStream is = Base64.getDecoder().wrap(new CharSequenceInputStream(data, StandardCharsets.US_ASCII));
+                OutputStream os = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            IOUtils.copy(is, os);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     @Override
     public void afterEvent(Command command) {
         if (!recording && command.getSessionId() != null) {
@@ -15,13 +15,17 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.webdriver.locator.internal;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.InvalidElementStateException;
@@ -55,6 +59,10 @@ public class AbstractUIObjectListHandler<T extends AbstractUIObject> implements
 
     private By locatorBy;
 
+    private volatile ElementListSnapshot<T> snapshot;
+
+    private static final Map<Class<?>, MethodHandle> CONSTRUCTORS = new ConcurrentHashMap<>();
+
     public AbstractUIObjectListHandler(Class<?> clazz, WebDriver webDriver, ElementLocator locator, String name) {
         this.clazz = clazz;
         this.webDriver = webDriver;
@@ -63,9 +71,17 @@ public class AbstractUIObjectListHandler<T extends AbstractUIObject> implements
         this.locatorBy = getLocatorBy(locator);
     }
 
-    @SuppressWarnings("unchecked")
     public Object invoke(Object object, Method method, Object[] objects) throws Throwable {
-    	
+        ElementListSnapshot<T> uIObjects = resolve();
+
+        try {
+            return method.invoke(uIObjects, objects);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private ElementListSnapshot<T> resolve() {
 		// Hotfix for huge and expected regression in carina: we lost managed
 		// time delays with lists manipulations
 		// Temporary we are going to restore explicit waiter here with hardcoded
@@ -73,8 +89,12 @@ public class AbstractUIObjectListHandler<T extends AbstractUIObject> implements
 		// Pros: super fast regression issue which block UI execution
 		// Cons: there is no way to manage timeouts in this places
 
-    	waitUntil(ExpectedConditions.and(ExpectedConditions.presenceOfElementLocated(locatorBy),
-    			ExpectedConditions.visibilityOfElementLocated(locatorBy)));
+        ElementListSnapshot<T> previous = snapshot;
+        if (previous == null || !previous.isLoaded(webDriver)) {
+            // list loaded in the current document doesn't need to be awaited again
+            waitUntil(ExpectedConditions.and(ExpectedConditions.presenceOfElementLocated(locatorBy),
+                    ExpectedConditions.visibilityOfElementLocated(locatorBy)));
+        }
 
     	List<WebElement> elements = null;
     	try {
@@ -84,35 +104,45 @@ public class AbstractUIObjectListHandler<T extends AbstractUIObject> implements
 			elements = webDriver.findElements(locatorBy);
 		}
 
-        List<T> uIObjects = new ArrayList<T>();
-        int index = 0;
-        if (elements != null) {
-            for (WebElement element : elements) {
-                T uiObject;
-                try {
-                    uiObject = (T) clazz.getConstructor(WebDriver.class, SearchContext.class)
-                            .newInstance(
-                                    webDriver, element);
-                } catch (NoSuchMethodException e) {
-                    LOGGER.error("Implement appropriate AbstractUIObject constructor for auto-initialization: "
-                            + e.getMessage());
-                    throw new RuntimeException(
-                            "Implement appropriate AbstractUIObject constructor for auto-initialization: "
-                                    + e.getMessage(),
-                            e);
-                }
-                uiObject.setName(String.format("%s - %d", name, index++));
-                uiObject.setRootElement(element);
-                uiObject.setRootBy(locatorBy);
-                uIObjects.add(uiObject);
-            }
+        ElementListSnapshot<T> uIObjects = new ElementListSnapshot<>(webDriver,
+                elements != null ? elements : Collections.emptyList(), this::createUIObject, previous);
+        if (Configuration.getBoolean(Parameter.ELEMENT_LIST_SNAPSHOT)) {
+            snapshot = uIObjects;
         }
+        return uIObjects;
+    }
 
+    @SuppressWarnings("unchecked")
+    private T createUIObject(WebElement element, int index) {
+        T uiObject;
         try {
-            return method.invoke(uIObjects, objects);
-        } catch (InvocationTargetException e) {
-            throw e.getCause();
+            uiObject = (T) getConstructor(clazz).invoke(webDriver, element);
+        } catch (NoSuchMethodException e) {
+            LOGGER.error("Implement appropriate AbstractUIObject constructor for auto-initialization: "
+                    + e.getMessage());
+            throw new RuntimeException(
+                    "Implement appropriate AbstractUIObject constructor for auto-initialization: "
+                            + e.getMessage(),
+                    e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable thr) {
+            throw new RuntimeException("Unable to create " + clazz.getName() + ": " + thr.getMessage(), thr);
+        }
+        uiObject.setName(String.format("%s - %d", name, index));
+        uiObject.setRootElement(element);
+        uiObject.setRootBy(locatorBy);
+        return uiObject;
+    }
+
+    private static MethodHandle getConstructor(Class<?> clazz) throws NoSuchMethodException, IllegalAccessException {
+        MethodHandle constructor = CONSTRUCTORS.get(clazz);
+        if (constructor == null) {
+            constructor = MethodHandles.lookup().unreflectConstructor(clazz.getConstructor(WebDriver.class, SearchContext.class))
+                    .asType(MethodType.methodType(Object.class, WebDriver.class, SearchContext.class));
+            CONSTRUCTORS.put(clazz, constructor);
         }
+        return constructor;
     }
     
     private By getLocatorBy(ElementLocator locator) {
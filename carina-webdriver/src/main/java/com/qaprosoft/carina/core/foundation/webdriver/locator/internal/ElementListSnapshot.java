@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.locator.internal;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.BiFunction;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ElementCache;
+
+/**
+ * Immutable result of single list resolution. Rows are created on first access and reused afterwards. List is found
+ * again on every access so its size always reflects the page, but rows of the previous snapshot are reused for the
+ * same elements (element references are compared locally) until driver navigation
+ * (see {@link ElementCache#getGeneration(WebDriver)}).
+ *
+ * @param <T> row type
+ */
+class ElementListSnapshot<T> extends AbstractList<T> implements RandomAccess {
+
+    private final List<WebElement> elements;
+    private final BiFunction<WebElement, Integer, T> factory;
+    private final long generation;
+    private final Object[] rows;
+
+    ElementListSnapshot(WebDriver driver, List<WebElement> elements, BiFunction<WebElement, Integer, T> factory) {
+        this(driver, elements, factory, null);
+    }
+
+    ElementListSnapshot(WebDriver driver, List<WebElement> elements, BiFunction<WebElement, Integer, T> factory,
+            ElementListSnapshot<T> previous) {
+        this.elements = elements;
+        this.factory = factory;
+        this.generation = ElementCache.getGeneration(driver);
+        this.rows = new Object[elements.size()];
+        if (previous != null && previous.generation == generation) {
+            for (int i = 0; i < Math.min(rows.length, previous.rows.length); i++) {
+                if (elements.get(i).equals(previous.elements.get(i))) {
+                    rows[i] = previous.rows[i];
+                }
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Object row = rows[index];
+        if (row == null) {
+            row = factory.apply(elements.get(index), index);
+            rows[index] = row;
+        }
+        return (T) row;
+    }
+
+    @Override
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Check that list was already loaded in the current document of the driver.
+     *
+     * @param driver WebDriver
+     * @return true if snapshot is not empty and there was no navigation since resolution
+     */
+    boolean isLoaded(WebDriver driver) {
+        return rows.length > 0 && generation == ElementCache.getGeneration(driver);
+    }
+
+}
@@ -20,7 +20,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.openqa.selenium.By;
@@ -33,6 +33,8 @@ import org.openqa.selenium.support.pagefactory.ElementLocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
 
 public class LocatingElementListHandler implements InvocationHandler {
@@ -40,6 +42,8 @@ public class LocatingElementListHandler implements InvocationHandler {
     private String name;
     private By by;
     private final WebDriver driver;
+
+    private volatile ElementListSnapshot<ExtendedWebElement> snapshot;
     
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -51,6 +55,16 @@ public class LocatingElementListHandler implements InvocationHandler {
     }
 
     public Object invoke(Object object, Method method, Object[] objects) throws Throwable {
+        ElementListSnapshot<ExtendedWebElement> extendedWebElements = resolve();
+
+        try {
+            return method.invoke(extendedWebElements, objects);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private ElementListSnapshot<ExtendedWebElement> resolve() throws NoSuchFieldException, IllegalAccessException {
 		// Hotfix for huge and expected regression in carina: we lost managed
 		// time delays with lists manipulations
 		// Temporary we are going to restore explicit waiter here with hardcoded
@@ -70,36 +84,28 @@ public class LocatingElementListHandler implements InvocationHandler {
 			LOGGER.debug("catched StaleElementReferenceException: ", e);
 			elements = driver.findElements(by);
 		}
-    	
-        List<ExtendedWebElement> extendedWebElements = null;
-        if (elements != null) {
-            extendedWebElements = new ArrayList<ExtendedWebElement>();
-            
-//            int i = 1;
-			for (WebElement element : elements) {
-				String tempName = name;
-				try {
-					tempName = element.getText();
-				} catch (Exception e) {
-					 //do nothing and keep 'undefined' for control name 
-				}
 
-				ExtendedWebElement tempElement = new ExtendedWebElement(element, tempName, by);
-				Field searchContextField = locator.getClass().getDeclaredField("searchContext");
-				searchContextField.setAccessible(true);
-				tempElement.setSearchContext((SearchContext) searchContextField.get(locator));
-//				tempElement.setBy(tempElement.generateByForList(by, i));
-				extendedWebElements.add(tempElement);
-//				i++;
-			}
+        Field searchContextField = locator.getClass().getDeclaredField("searchContext");
+        searchContextField.setAccessible(true);
+        SearchContext searchContext = (SearchContext) searchContextField.get(locator);
 
-        }
+        ElementListSnapshot<ExtendedWebElement> extendedWebElements = new ElementListSnapshot<>(driver,
+                elements != null ? elements : Collections.emptyList(), (element, index) -> {
+                    String tempName = name;
+                    try {
+                        tempName = element.getText();
+                    } catch (Exception e) {
+                        // do nothing and keep 'undefined' for control name
+                    }
 
-        try {
-            return method.invoke(extendedWebElements, objects);
-        } catch (InvocationTargetException e) {
-            throw e.getCause();
+                    ExtendedWebElement tempElement = new ExtendedWebElement(element, tempName, by);
+                    tempElement.setSearchContext(searchContext);
+                    return tempElement;
+                }, snapshot);
+        if (Configuration.getBoolean(Parameter.ELEMENT_LIST_SNAPSHOT)) {
+            snapshot = extendedWebElements;
         }
+        return extendedWebElements;
     }
 
 }
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.factory;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.factory.DeviceType.Type;
+import com.qaprosoft.carina.core.gui.AbstractPage;
+
+public class PageClassResolverTest {
+
+    @Test()
+    public void testIndexGeneratedAtCompileTime() {
+        Assert.assertNotNull(getClass().getClassLoader().getResource(PageClassResolver.INDEX), "Page index wasn't generated!");
+        Assert.assertEquals(PageClassResolver.getCandidates(HomePageBase.class).size(), 3, "Incorrect number of indexed pages!");
+    }
+
+    @Test()
+    public void testResolveByVersion() {
+        Assert.assertEquals(PageClassResolver.resolve(HomePageBase.class, Type.IOS_PHONE, "13.0"), IosHomePageV13.class);
+        Assert.assertEquals(PageClassResolver.resolve(HomePageBase.class, Type.IOS_PHONE, "13.4"), IosHomePageV13.class);
+    }
+
+    @Test()
+    public void testResolveByDeviceType() {
+        Assert.assertEquals(PageClassResolver.resolve(HomePageBase.class, Type.ANDROID_PHONE, "9.0"), AndroidHomePage.class);
+        Assert.assertEquals(PageClassResolver.resolve(HomePageBase.class, Type.DESKTOP, "1"), DesktopHomePage.class);
+    }
+
+    @Test()
+    public void testResolveByFamily() {
+        Assert.assertEquals(PageClassResolver.resolve(HomePageBase.class, Type.ANDROID_TABLET, "9.0"), AndroidHomePage.class);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testUnresolved() {
+        PageClassResolver.resolve(HomePageBase.class, Type.APPLE_TV, "13.0");
+    }
+
+    public abstract static class HomePageBase extends AbstractPage {
+        public HomePageBase(WebDriver driver) {
+            super(driver);
+        }
+    }
+
+    @DeviceType(pageType = Type.DESKTOP, parentClass = HomePageBase.class)
+    public static class DesktopHomePage extends HomePageBase {
+        public DesktopHomePage(WebDriver driver) {
+            super(driver);
+        }
+    }
+
+    @DeviceType(pageType = Type.ANDROID_PHONE, parentClass = HomePageBase.class)
+    public static class AndroidHomePage extends HomePageBase {
+        public AndroidHomePage(WebDriver driver) {
+            super(driver);
+        }
+    }
+
+    @DeviceType(pageType = Type.IOS_PHONE, parentClass = HomePageBase.class, version = { "13.0" })
+    public static class IosHomePageV13 extends HomePageBase {
+        public IosHomePageV13(WebDriver driver) {
+            super(driver);
+        }
+    }
+
+}
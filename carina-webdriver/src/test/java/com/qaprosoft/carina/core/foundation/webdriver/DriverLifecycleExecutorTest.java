@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DriverLifecycleExecutorTest {
+
+    @Test()
+    public void testHungQuitIsCancelledByTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            long start = System.currentTimeMillis();
+            DriverLifecycleExecutor.quit(driver(release, new AtomicInteger()), 1);
+            Assert.assertTrue(System.currentTimeMillis() - start < 5000, "Quit timeout wasn't enforced!");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test()
+    public void testQuitTimeoutIsEnforcedWhenPoolIsSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger quits = new AtomicInteger();
+        try {
+            // all pool threads and queue slots are occupied by hung drivers
+            for (int i = 0; i < DriverLifecycleExecutor.MAX_THREADS + DriverLifecycleExecutor.MAX_QUEUED; i++) {
+                DriverLifecycleExecutor.quitAsync(driver(release, quits));
+            }
+
+            long start = System.currentTimeMillis();
+            DriverLifecycleExecutor.quit(driver(release, quits), 1);
+            Assert.assertTrue(System.currentTimeMillis() - start < 5000, "Quit was executed by the calling thread!");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test()
+    public void testThreadsAreBoundedWhenPoolsAreSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        AtomicBoolean callerRuns = new AtomicBoolean();
+        WebDriver driver = (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(), new Class<?>[] { WebDriver.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "quit":
+                        if (Thread.currentThread() == caller) {
+                            callerRuns.set(true);
+                        } else {
+                            release.await();
+                        }
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                    }
+                });
+        try {
+            int capacity = DriverLifecycleExecutor.MAX_THREADS + DriverLifecycleExecutor.MAX_QUEUED
+                    + DriverLifecycleExecutor.OVERFLOW_THREADS + DriverLifecycleExecutor.OVERFLOW_QUEUED;
+            for (int i = 0; i <= capacity && !callerRuns.get(); i++) {
+                DriverLifecycleExecutor.quitAsync(driver);
+            }
+            Assert.assertTrue(callerRuns.get(), "Quit wasn't executed by the caller when all pools were saturated!");
+
+            long threads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().startsWith("carina-driver-lifecycle"))
+                    .count();
+            Assert.assertTrue(threads <= DriverLifecycleExecutor.MAX_THREADS + DriverLifecycleExecutor.OVERFLOW_THREADS,
+                    "Too many driver lifecycle threads: " + threads);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test()
+    public void testQuitAsyncQuitsDriverOnce() throws Exception {
+        AtomicInteger quits = new AtomicInteger();
+        CountDownLatch quit = new CountDownLatch(1);
+        WebDriver driver = (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(), new Class<?>[] { WebDriver.class },
+                (proxy, method, args) -> {
+                    if ("quit".equals(method.getName())) {
+                        quits.incrementAndGet();
+                        quit.countDown();
+                    }
+                    return "hashCode".equals(method.getName()) ? System.identityHashCode(proxy)
+                            : "equals".equals(method.getName()) ? proxy == args[0] : null;
+                });
+
+        DriverLifecycleExecutor.quitAsync(driver);
+        Assert.assertTrue(quit.await(5, TimeUnit.SECONDS), "Driver wasn't quit!");
+        Thread.sleep(100);
+        Assert.assertEquals(quits.get(), 1, "Driver should be quit exactly once!");
+    }
+
+    private static WebDriver driver(CountDownLatch release, AtomicInteger quits) {
+        return (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(), new Class<?>[] { WebDriver.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "close":
+                    case "quit":
+                        quits.incrementAndGet();
+                        release.await();
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.qaprosoft.carina.core.foundation.webdriver.TestPhase.Phase;
+import com.qaprosoft.carina.core.foundation.webdriver.device.Device;
+
+/**
+ * Driver lookup throughput: legacy scan of the whole pool (IDriverPool.getDrivers() before indexing) vs
+ * {@link DriverPoolIndex} at 1/16/64 threads, each thread owning several drivers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverPoolIndexBenchmark {
+    private static final int THREADS = 64;
+    private static final int DRIVERS_PER_THREAD = 3;
+
+    @State(Scope.Benchmark)
+    public static class Pool {
+        ConcurrentHashMap<CarinaDriver, Integer> drivers = new ConcurrentHashMap<>();
+        DriverPoolIndex index = new DriverPoolIndex(drivers);
+
+        @Setup
+        public void setup() {
+            Device device = new Device();
+            index.add(new CarinaDriver("suite", null, device, Phase.BEFORE_SUITE, 0));
+            for (long threadId = 0; threadId < THREADS; threadId++) {
+                for (int i = 0; i < DRIVERS_PER_THREAD; i++) {
+                    index.add(new CarinaDriver("driver" + i, null, device, Phase.METHOD, threadId));
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Lookup {
+        long threadId;
+
+        @Setup
+        public void setup(ThreadParams params) {
+            threadId = params.getThreadIndex() % THREADS;
+        }
+    }
+
+    private static CarinaDriver scan(Pool pool, Lookup lookup) {
+        ConcurrentHashMap<String, CarinaDriver> currentDrivers = new ConcurrentHashMap<String, CarinaDriver>();
+        for (CarinaDriver carinaDriver : pool.drivers.keySet()) {
+            if (Phase.BEFORE_SUITE.equals(carinaDriver.getPhase())) {
+                currentDrivers.put(carinaDriver.getName(), carinaDriver);
+            } else if (lookup.threadId == carinaDriver.getThreadId()) {
+                currentDrivers.put(carinaDriver.getName(), carinaDriver);
+            }
+        }
+        return currentDrivers.get("driver1");
+    }
+
+    private static CarinaDriver index(Pool pool, Lookup lookup) {
+        return pool.index.get(lookup.threadId, "driver1");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public CarinaDriver scan1(Pool pool, Lookup lookup) {
+        return scan(pool, lookup);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public CarinaDriver scan16(Pool pool, Lookup lookup) {
+        return scan(pool, lookup);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public CarinaDriver scan64(Pool pool, Lookup lookup) {
+        return scan(pool, lookup);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public CarinaDriver index1(Pool pool, Lookup lookup) {
+        return index(pool, lookup);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public CarinaDriver index16(Pool pool, Lookup lookup) {
+        return index(pool, lookup);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public CarinaDriver index64(Pool pool, Lookup lookup) {
+        return index(pool, lookup);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DriverPoolIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.core.capability;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.FirefoxProfile;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FirefoxProfileCacheTest {
+
+    @Test()
+    public void testProfileIsEncodedOnce() throws Exception {
+        String profile = FirefoxProfileCache.get("test-encoded", p -> p.setPreference("intl.accept_languages", "de"));
+        Assert.assertSame(FirefoxProfileCache.get("test-encoded", p -> Assert.fail("Template should be created once!")), profile);
+        Assert.assertEquals(FirefoxProfile.fromJson(profile).getStringPreference("intl.accept_languages", ""), "de");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test()
+    public void testTemplateIsNotChangedBySessions() throws Exception {
+        String template = FirefoxProfileCache.get("test-sessions", p -> p.setPreference("intl.accept_languages", "de"));
+
+        FirefoxOptions first = FirefoxProfileCache.getOptions("test-sessions", p -> Assert.fail("Template should be created once!"));
+        first.addPreference(FirefoxProfile.PORT_PREFERENCE, 1111);
+        first.addPreference("carina.session.preference", "first");
+        FirefoxOptions second = FirefoxProfileCache.getOptions("test-sessions", p -> Assert.fail("Template should be created once!"));
+        second.addPreference(FirefoxProfile.PORT_PREFERENCE, 2222);
+
+        Map<String, Object> firstOptions = (Map<String, Object>) first.asMap().get(FirefoxOptions.FIREFOX_OPTIONS);
+        Map<String, Object> secondOptions = (Map<String, Object>) second.asMap().get(FirefoxOptions.FIREFOX_OPTIONS);
+
+        Assert.assertSame(FirefoxProfileCache.get("test-sessions", p -> Assert.fail("Template should be created once!")), template,
+                "Cached template was changed!");
+        Assert.assertSame(firstOptions.get("profile"), template, "Template should be sent as is!");
+        Assert.assertSame(secondOptions.get("profile"), template, "Template should be sent as is!");
+
+        Map<String, Object> firstPrefs = (Map<String, Object>) firstOptions.get("prefs");
+        Map<String, Object> secondPrefs = (Map<String, Object>) secondOptions.get("prefs");
+        Assert.assertEquals(firstPrefs.get(FirefoxProfile.PORT_PREFERENCE), 1111);
+        Assert.assertEquals(secondPrefs.get(FirefoxProfile.PORT_PREFERENCE), 2222);
+        Assert.assertFalse(secondPrefs.containsKey("carina.session.preference"), "Preference leaked from another session!");
+
+        FirefoxProfile profile = FirefoxProfile.fromJson(template);
+        Assert.assertEquals(profile.getStringPreference("carina.session.preference", "none"), "none", "Template got session preference!");
+        Assert.assertNotEquals(profile.getIntegerPreference(FirefoxProfile.PORT_PREFERENCE, 0), 2222, "Template got session port!");
+    }
+
+    @Test()
+    public void testExplicitProfileIsNotReplaced() throws Exception {
+        FirefoxOptions options = FirefoxProfileCache.getOptions("test-explicit", p -> p.setPreference("intl.accept_languages", "de"));
+        FirefoxProfile profile = new FirefoxProfile();
+        profile.setPreference("intl.accept_languages", "fr");
+        options.setProfile(profile);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> mozOptions = (Map<String, Object>) options.asMap().get(FirefoxOptions.FIREFOX_OPTIONS);
+        Assert.assertEquals(FirefoxProfile.fromJson((String) mozOptions.get("profile")).getStringPreference("intl.accept_languages", ""),
+                "fr");
+    }
+
+    @Test()
+    public void testPortsAreUniqueInParallel() throws Exception {
+        Set<Integer> ports = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> ports.add(FirefoxProfileCache.allocatePort())));
+            }
+            for (Future<Boolean> future : futures) {
+                Assert.assertTrue(future.get(), "The same port was allocated twice!");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.decorator;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class ElementCacheTest {
+
+    private static final By BY = By.id("login");
+
+    private final WebDriver driver = mock(WebDriver.class);
+    private final WebElement element = mock(WebElement.class);
+
+    @BeforeClass(alwaysRun = true)
+    public void enableCache() {
+        R.CONFIG.put("element_cache", "true");
+        R.CONFIG.put("element_cache_dom_tracking", "false");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void disableCache() {
+        R.CONFIG.put("element_cache", "false");
+        ElementCache.invalidate(driver);
+    }
+
+    @Test()
+    public void testHitAndMiss() {
+        long hits = ElementCache.getHits();
+        long misses = ElementCache.getMisses();
+
+        Assert.assertNull(ElementCache.get(driver, driver, BY), "Element shouldn't be cached yet!");
+        ElementCache.put(driver, driver, BY, element);
+        Assert.assertSame(ElementCache.get(driver, driver, BY), element, "Cached element wasn't returned!");
+
+        Assert.assertEquals(ElementCache.getHits() - hits, 1, "Incorrect number of cache hits!");
+        Assert.assertEquals(ElementCache.getMisses() - misses, 1, "Incorrect number of cache misses!");
+    }
+
+    @Test()
+    public void testSearchContextIsPartOfKey() {
+        SearchContext parent = mock(SearchContext.class);
+        ElementCache.put(driver, parent, BY, element);
+
+        Assert.assertNull(ElementCache.get(driver, mock(SearchContext.class), BY),
+                "Element resolved in another search context was returned!");
+        Assert.assertSame(ElementCache.get(driver, parent, BY), element, "Cached element wasn't returned!");
+    }
+
+    @Test()
+    public void testEvict() {
+        ElementCache.put(driver, driver, BY, element);
+        ElementCache.evict(driver, driver, BY);
+        Assert.assertNull(ElementCache.get(driver, driver, BY), "Evicted element was returned!");
+    }
+
+    @Test()
+    public void testInvalidate() {
+        ElementCache.put(driver, driver, BY, element);
+        ElementCache.put(driver, driver, By.id("password"), element);
+        ElementCache.invalidate(driver);
+
+        Assert.assertNull(ElementCache.get(driver, driver, BY), "Element was returned after navigation!");
+        Assert.assertNull(ElementCache.get(driver, driver, By.id("password")), "Element was returned after navigation!");
+    }
+
+    @Test()
+    public void testUrlChangeInvalidatesEntry() {
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.getCurrentUrl()).thenReturn("https://site/login");
+        ElementCache.put(driver, driver, BY, element);
+        Assert.assertSame(ElementCache.get(driver, driver, BY), element, "Cached element wasn't returned!");
+
+        // i.e. form submit or link click which doesn't go through navigate()
+        when(driver.getCurrentUrl()).thenReturn("https://site/home");
+        Assert.assertNull(ElementCache.get(driver, driver, BY), "Element resolved on another page was returned!");
+        ElementCache.invalidate(driver);
+    }
+
+    @Test()
+    public void testStaleElementIsEvicted() {
+        WebElement stale = mock(WebElement.class);
+        when(stale.isEnabled()).thenThrow(new StaleElementReferenceException("detached"));
+        long evictions = ElementCache.getEvictions();
+
+        ElementCache.put(driver, driver, By.id("stale"), stale);
+        Assert.assertNull(ElementCache.get(driver, driver, By.id("stale")), "Stale element was returned!");
+        Assert.assertEquals(ElementCache.getEvictions() - evictions, 1, "Stale element wasn't evicted!");
+    }
+
+    @Test()
+    public void testDisabled() {
+        R.CONFIG.put("element_cache", "false");
+        try {
+            ElementCache.put(driver, driver, BY, element);
+            Assert.assertNull(ElementCache.get(driver, driver, BY), "Element was returned from disabled cache!");
+        } finally {
+            R.CONFIG.put("element_cache", "true");
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.decorator;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.MobileBy;
+
+public class JsConditionsTest {
+
+    private static final By BY = By.cssSelector("#login");
+
+    @BeforeClass(alwaysRun = true)
+    public void enable() {
+        R.CONFIG.put("element_js_conditions", "true");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void disable() {
+        R.CONFIG.put("element_js_conditions", "false");
+    }
+
+    @Test()
+    public void testSingleScriptCallForAllChecks() {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class);
+        when(driver.executeScript(anyString(), any(), any())).thenReturn(Boolean.TRUE);
+
+        ExpectedCondition<?> fallback = ExpectedConditions.presenceOfElementLocated(BY);
+        ExpectedCondition<?> condition = JsConditions.or(driver, null, fallback, JsConditions.present(BY), JsConditions.visible(BY));
+
+        Assert.assertNotSame(condition, fallback, "JavaScript condition wasn't created!");
+        Assert.assertEquals(condition.apply(driver), Boolean.TRUE, "Condition should be passed!");
+        verify(driver, times(1)).executeScript(anyString(), any(), any());
+    }
+
+    @Test()
+    public void testAtomIsInstalledIntoNewDocument() {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class);
+        when(driver.executeScript(anyString(), any(), any())).thenReturn(null, Boolean.TRUE);
+
+        ExpectedCondition<?> condition = JsConditions.or(driver, null, ExpectedConditions.presenceOfElementLocated(BY),
+                JsConditions.visible(BY));
+
+        Assert.assertEquals(condition.apply(driver), Boolean.TRUE, "Condition should be passed!");
+        verify(driver, times(2)).executeScript(anyString(), any(), any());
+        verify(driver, times(1)).executeScript(anyString());
+    }
+
+    @Test()
+    public void testSearchContextIsPassedToScript() {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class);
+        WebElement parent = mock(WebElement.class);
+        when(driver.executeScript(anyString(), any(), eq(parent))).thenReturn(Boolean.TRUE);
+
+        ExpectedCondition<?> condition = JsConditions.or(driver, parent, ExpectedConditions.presenceOfElementLocated(BY),
+                JsConditions.present(BY));
+
+        Assert.assertEquals(condition.apply(driver), Boolean.TRUE, "Condition should be evaluated in search context!");
+    }
+
+    @Test()
+    public void testFallbackOnWebDriverException() {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class);
+        when(driver.executeScript(anyString(), any(), isNull()))
+                .thenThrow(new StaleElementReferenceException("detached")).thenReturn(Boolean.TRUE);
+        @SuppressWarnings("unchecked")
+        ExpectedCondition<Object> fallback = mock(ExpectedCondition.class);
+        when(fallback.apply(driver)).thenReturn(Boolean.FALSE);
+
+        ExpectedCondition<?> condition = JsConditions.or(driver, null, fallback, JsConditions.present(BY));
+
+        Assert.assertEquals(condition.apply(driver), Boolean.FALSE, "Selenium condition result should be returned!");
+        Assert.assertEquals(condition.apply(driver), Boolean.TRUE, "JavaScript should be used on next poll!");
+        verify(fallback, times(1)).apply(driver);
+    }
+
+    @Test()
+    public void testFallbackForNativeContext() {
+        AppiumDriver<?> driver = mock(AppiumDriver.class);
+        when(driver.getContext()).thenReturn("NATIVE_APP");
+        WebDriver wrapped = new EventFiringWebDriver(driver);
+        ExpectedCondition<?> fallback = ExpectedConditions.presenceOfElementLocated(BY);
+
+        Assert.assertSame(JsConditions.or(wrapped, null, fallback, JsConditions.present(BY)), fallback,
+                "Selenium condition should be used for native context!");
+
+        when(driver.getContext()).thenReturn("WEBVIEW_1");
+        Assert.assertNotSame(JsConditions.or(wrapped, null, fallback, JsConditions.present(BY)), fallback,
+                "JavaScript condition should be used for web context!");
+    }
+
+    @Test()
+    public void testFallbackForMobileLocator() {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class);
+        ExpectedCondition<?> fallback = ExpectedConditions.presenceOfElementLocated(BY);
+
+        Assert.assertSame(JsConditions.or(driver, null, fallback, JsConditions.visible(MobileBy.AccessibilityId("login"))), fallback,
+                "Selenium condition should be used for locator without DOM equivalent!");
+    }
+
+    @Test()
+    public void testFallbackWhenDisabled() {
+        R.CONFIG.put("element_js_conditions", "false");
+        try {
+            RemoteWebDriver driver = mock(RemoteWebDriver.class);
+            ExpectedCondition<?> fallback = ExpectedConditions.presenceOfElementLocated(BY);
+            Assert.assertSame(JsConditions.or(driver, null, fallback, JsConditions.present(BY)), fallback,
+                    "Selenium condition should be used when JavaScript conditions are disabled!");
+        } finally {
+            R.CONFIG.put("element_js_conditions", "true");
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class SharedHttpTransportTest {
+
+    private HttpServer server;
+    private URL hub;
+
+    @BeforeClass(alwaysRun = true)
+    public void startHub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "{\"value\": null}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        hub = new URL("http://localhost:" + server.getAddress().getPort() + "/wd/hub");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopHub() {
+        SharedHttpTransport.evictAll();
+        server.stop(0);
+    }
+
+    @Test()
+    public void testClientIsSharedPerHub() throws Exception {
+        Duration connect = Duration.ofSeconds(10);
+        Duration read = Duration.ofSeconds(30);
+        Assert.assertSame(SharedHttpTransport.getClient(hub, connect, read, null).connectionPool(),
+                SharedHttpTransport.getClient(new URL(hub, "/status"), connect, read, null).connectionPool(),
+                "Connection pool should be shared by all endpoints of the hub!");
+        Assert.assertSame(SharedHttpTransport.getClient(hub, connect, Duration.ofSeconds(60), null).connectionPool(),
+                SharedHttpTransport.getClient(hub, connect, read, null).connectionPool(),
+                "Clients with custom timeouts should use shared connection pool!");
+    }
+
+    @Test()
+    public void testConnectionIsReusedBySessions() throws Exception {
+        HttpClient.Factory factory = new HttpClientFactoryCustom();
+        HttpResponse first = factory.createClient(hub).execute(new HttpRequest(HttpMethod.GET, "/wd/hub/status"));
+        HttpResponse second = factory.createClient(hub).execute(new HttpRequest(HttpMethod.GET, "/wd/hub/status"));
+        Assert.assertEquals(first.getStatus(), 200);
+        Assert.assertEquals(second.getStatus(), 200);
+
+        SharedHttpTransport.Metrics metrics = SharedHttpTransport.getMetrics(hub);
+        Assert.assertNotNull(metrics, "Metrics are not collected for the hub!");
+        Assert.assertEquals(metrics.getConnectionsOpened(), 1, "Connection wasn't reused by another client! " + metrics);
+        Assert.assertTrue(metrics.getConnectionsReused() >= 1, "Connection wasn't reused by another client! " + metrics);
+    }
+
+}
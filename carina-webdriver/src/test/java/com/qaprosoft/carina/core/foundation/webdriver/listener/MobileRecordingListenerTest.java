@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.listener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+public class MobileRecordingListenerTest {
+    // 3-minute 1080p recording is about 100MB, 32MB is enough to see decoded video on heap
+    private static final int VIDEO_SIZE = 32 * 1024 * 1024;
+
+    @Test()
+    public void testVideoIsDecodedWithoutLoadingIntoMemory() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            throw new SkipException("Thread allocated memory isn't supported by JVM");
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+
+        byte[] video = new byte[VIDEO_SIZE];
+        for (int i = 0; i < video.length; i++) {
+            video[i] = (byte) (i * 31 + (i >> 12));
+        }
+        CRC32 expected = new CRC32();
+        expected.update(video);
+        String data = Base64.getEncoder().encodeToString(video);
+        video = null;
+
+        File dir = Files.createTempDirectory("video").toFile();
+        File tempFile = new File(dir, "session.mp4.tmp");
+        File file = new File(dir, "session.mp4");
+        try {
+            long threadId = Thread.currentThread().getId();
+            long allocated = threadBean.getThreadAllocatedBytes(threadId);
+            MobileRecordingListener.writeVideo(data, tempFile, file);
+            allocated = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+
+            Assert.assertTrue(allocated < VIDEO_SIZE / 8, "Too much memory allocated during video decoding: " + allocated);
+            Assert.assertFalse(tempFile.exists(), "Temporary video file wasn't renamed!");
+            Assert.assertEquals(file.length(), VIDEO_SIZE, "Incorrect video file size!");
+
+            CRC32 actual = new CRC32();
+            try (InputStream is = Files.newInputStream(file.toPath())) {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = is.read(buffer)) > 0) {
+                    actual.update(buffer, 0, n);
+                }
+            }
+            Assert.assertEquals(actual.getValue(), expected.getValue(), "Video content is corrupted!");
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    @Test()
+    public void testCorruptedVideoIsNotPublished() throws Exception {
+        File dir = Files.createTempDirectory("video").toFile();
+        File tempFile = new File(dir, "session.mp4.tmp");
+        File file = new File(dir, "session.mp4");
+        try {
+            Assert.assertTrue(tempFile.createNewFile());
+            try {
+                MobileRecordingListener.writeVideo("AAAA#not-base64#", tempFile, file);
+                Assert.fail("Corrupted video should not be decoded!");
+            } catch (IOException e) {
+                // expected
+            }
+            Assert.assertFalse(file.exists(), "Partially decoded video was published!");
+            Assert.assertFalse(tempFile.exists(), "Temporary video file wasn't removed!");
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+}
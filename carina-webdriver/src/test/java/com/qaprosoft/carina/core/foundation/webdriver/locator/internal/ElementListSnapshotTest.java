@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.locator.internal;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ElementCache;
+
+public class ElementListSnapshotTest {
+
+    private final WebDriver driver = mock(WebDriver.class);
+
+    @Test()
+    public void testRowsAreCreatedLazilyOnce() {
+        AtomicInteger created = new AtomicInteger();
+        ElementListSnapshot<String> snapshot = new ElementListSnapshot<>(driver,
+                Arrays.asList(mock(WebElement.class), mock(WebElement.class), mock(WebElement.class)),
+                (element, index) -> {
+                    created.incrementAndGet();
+                    return "row " + index;
+                });
+
+        Assert.assertEquals(snapshot.size(), 3);
+        Assert.assertEquals(created.get(), 0, "Rows shouldn't be created on size call!");
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            Assert.assertEquals(snapshot.get(i), "row " + i);
+        }
+        for (String row : snapshot) {
+            Assert.assertNotNull(row);
+        }
+        Assert.assertEquals(created.get(), 3, "Each row should be created only once!");
+    }
+
+    @Test()
+    public void testRowsAreReusedForSameElements() {
+        WebElement first = mock(WebElement.class);
+        WebElement second = mock(WebElement.class);
+        AtomicInteger created = new AtomicInteger();
+        BiFunction<WebElement, Integer, String> factory = (element, index) -> "row " + created.incrementAndGet();
+
+        ElementListSnapshot<String> previous = new ElementListSnapshot<>(driver, Arrays.asList(first), factory);
+        String row = previous.get(0);
+
+        // row appended to the page is visible in the next snapshot
+        ElementListSnapshot<String> snapshot = new ElementListSnapshot<>(driver, Arrays.asList(first, second), factory,
+                previous);
+        Assert.assertEquals(snapshot.size(), 2, "Actual list size wasn't returned!");
+        Assert.assertSame(snapshot.get(0), row, "Row of the same element wasn't reused!");
+        Assert.assertNotNull(snapshot.get(1));
+        Assert.assertEquals(created.get(), 2, "Only new row should be created!");
+
+        // removed rows
+        Assert.assertEquals(new ElementListSnapshot<>(driver, Collections.<WebElement> emptyList(), factory, snapshot).size(), 0,
+                "Actual list size wasn't returned!");
+    }
+
+    @Test()
+    public void testRowsAreNotReusedForAnotherElements() {
+        AtomicInteger created = new AtomicInteger();
+        BiFunction<WebElement, Integer, String> factory = (element, index) -> "row " + created.incrementAndGet();
+
+        ElementListSnapshot<String> previous = new ElementListSnapshot<>(driver, Arrays.asList(mock(WebElement.class)), factory);
+        String row = previous.get(0);
+        ElementListSnapshot<String> snapshot = new ElementListSnapshot<>(driver, Arrays.asList(mock(WebElement.class)), factory,
+                previous);
+        Assert.assertNotSame(snapshot.get(0), row, "Row of another element was reused!");
+    }
+
+    @Test()
+    public void testRowsAreNotReusedAfterNavigation() {
+        List<WebElement> elements = Arrays.asList(mock(WebElement.class));
+        BiFunction<WebElement, Integer, Object> factory = (element, index) -> new Object();
+
+        ElementListSnapshot<Object> previous = new ElementListSnapshot<>(driver, elements, factory);
+        Object row = previous.get(0);
+        Assert.assertTrue(previous.isLoaded(driver), "Snapshot should be loaded before navigation!");
+
+        // navigation of another driver doesn't affect snapshot
+        ElementCache.invalidate(mock(WebDriver.class));
+        Assert.assertTrue(previous.isLoaded(driver), "Snapshot was invalidated by another driver!");
+        Assert.assertSame(new ElementListSnapshot<>(driver, elements, factory, previous).get(0), row,
+                "Row wasn't reused!");
+
+        ElementCache.invalidate(driver);
+        Assert.assertFalse(previous.isLoaded(driver), "Snapshot should be invalid after navigation!");
+        Assert.assertNotSame(new ElementListSnapshot<>(driver, elements, factory, previous).get(0), row,
+                "Row was reused after navigation!");
+    }
+
+    @Test()
+    public void testEmptySnapshotIsNotLoaded() {
+        ElementListSnapshot<WebElement> snapshot = new ElementListSnapshot<>(driver, Collections.emptyList(),
+                (element, index) -> element);
+        Assert.assertFalse(snapshot.isLoaded(driver), "Empty snapshot shouldn't be treated as loaded list!");
+    }
+
+}